@@ -0,0 +1,76 @@
+package br.com.mottu.fleet.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmark do `JwtService.verify`: um token já verificado (cache hit) contra o parse completo
+ * (decodificação + HMAC + claims) que o verify faz na primeira vez que vê um token.
+ * Ex: ./mvnw -Pbenchmark -DskipTests test-compile exec:exec -Djmh.args="JwtVerifyBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerifyBenchmark {
+
+    private static final String SEGREDO = "segredo-de-benchmark-com-pelo-menos-256-bits-para-o-hs256";
+
+    private JwtService jwtService;
+    private JwtParser parser;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        SecretKey chave = Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8));
+        jwtService = new JwtService(SEGREDO, TimeUnit.HOURS.toMillis(1), 0, 10_000, false, null,
+                new JwtKeyRing("HS256", "", "", false));
+        parser = Jwts.parser().verifyWith(chave).build();
+        token = Jwts.builder()
+                .subject("admin@mottu.com")
+                .claim("typ", "ADMIN")
+                .claim("id", "0191f3a2-7c1e-7d4b-9a3f-2b8c4d5e6f71")
+                .claim("nome", "Admin do Pátio")
+                .claim("role", "PATEO_ADMIN")
+                .claim("status", "ATIVO")
+                .claim("pateoId", "0191f3a2-7c1e-7d4b-9a3f-2b8c4d5e6f70")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(chave)
+                .compact();
+        // Aquece o cache: todas as chamadas de verify_cacheHit encontram o token já verificado
+        jwtService.verify(token);
+    }
+
+
+    @Benchmark
+    public VerifiedToken verify_cacheHit() {
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public Claims parseCompleto() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+}
@@ -0,0 +1,121 @@
+package br.com.mottu.fleet.infrastructure.persistence;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+
+/**
+ * Benchmark de INSERT com chaves UUID v4 x v7 (`UuidV7Generator`) em uma tabela com o mesmo formato de token_acesso.
+ * Cada invocação grava um lote de 1.000 linhas; a tabela cresce ao longo da execução, então o custo das
+ * inserções aleatórias da v4 no índice primário aparece à medida que ele deixa de caber no buffer pool.
+ * Precisa de um MySQL descartável em FLEET_BENCHMARK_DB_URL, ex:
+ * FLEET_BENCHMARK_DB_URL="jdbc:mysql://localhost:3306/bench?user=root&password=root&rewriteBatchedStatements=true" \
+ *   ./mvnw -Pbenchmark -DskipTests test-compile exec:exec -Djmh.args="UuidInsercaoBenchmark"
+ * As tabelas ficam no banco ao final, para comparar o Data_length com SHOW TABLE STATUS LIKE 'bench_token_uuid_%'.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(UuidInsercaoBenchmark.LOTE)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class UuidInsercaoBenchmark {
+
+    static final int LOTE = 1_000;
+
+    @Param({"v4", "v7"})
+    private String versao;
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private Supplier<UUID> ids;
+    private MessageDigest sha256;
+    private byte[] funcionarioId;
+    private Timestamp agora;
+
+    @Setup
+    public void preparar() throws Exception {
+        String url = System.getenv("FLEET_BENCHMARK_DB_URL");
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("Defina FLEET_BENCHMARK_DB_URL com um MySQL descartável.");
+        }
+        String tabela = "bench_token_uuid_" + versao;
+        ids = "v7".equals(versao) ? UuidV7Generator::novoUuid : UUID::randomUUID;
+
+        connection = DriverManager.getConnection(url);
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS " + tabela);
+            ddl.execute("CREATE TABLE " + tabela + " (" +
+                    "id BINARY(16) NOT NULL PRIMARY KEY, " +
+                    "token_hash BINARY(32) NOT NULL UNIQUE, " +
+                    "funcionario_id BINARY(16) NOT NULL, " +
+                    "criado_em TIMESTAMP NOT NULL, " +
+                    "expira_em TIMESTAMP NOT NULL, " +
+                    "usado BOOLEAN NOT NULL DEFAULT FALSE)");
+        }
+        connection.setAutoCommit(false);
+        insert = connection.prepareStatement("INSERT INTO " + tabela +
+                " (id, token_hash, funcionario_id, criado_em, expira_em) VALUES (?, ?, ?, ?, ?)");
+
+        sha256 = MessageDigest.getInstance("SHA-256");
+        funcionarioId = bytes(UUID.randomUUID());
+        agora = Timestamp.from(Instant.now());
+    }
+
+    @TearDown
+    public void encerrar() throws Exception {
+        insert.close();
+        connection.close();
+    }
+
+
+    @Benchmark
+    public int[] inserirLote() throws Exception {
+        for (int i = 0; i < LOTE; i++) {
+            insert.setBytes(1, bytes(ids.get()));
+            insert.setBytes(2, sha256.digest(UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8)));
+            insert.setBytes(3, funcionarioId);
+            insert.setTimestamp(4, agora);
+            insert.setTimestamp(5, agora);
+            insert.addBatch();
+        }
+        int[] gravados = insert.executeBatch();
+        connection.commit();
+        return gravados;
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    private static byte[] bytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -4,10 +4,14 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Clock;
+
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
 public class FleetManagerJavaApplication {
 
 	public static void main(String[] args) {
@@ -18,5 +22,10 @@ public class FleetManagerJavaApplication {
     public RestTemplate restTemplate() {
         return new RestTemplate();
     }
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
 	
 }
@@ -3,6 +3,7 @@ package br.com.mottu.fleet.application.controller;
 import br.com.mottu.fleet.application.dto.web.*;
 import br.com.mottu.fleet.domain.entity.Funcionario;
 import br.com.mottu.fleet.domain.entity.Pateo;
+import br.com.mottu.fleet.domain.service.ImagemService;
 import br.com.mottu.fleet.domain.service.OnboardingService;
 import br.com.mottu.fleet.domain.service.PateoService;
 import br.com.mottu.fleet.domain.service.UsuarioAdminService;
@@ -24,12 +25,13 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.multipart.MultipartFile;
 
 import org.locationtech.jts.io.WKTWriter;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -53,9 +55,6 @@ public class AdminController {
     private final QueueMonitoringService queueMonitoringService;
     private final StorageService storageService;
 
-    @Value("${spring.profiles.active:prod}")
-    private String activeProfile;
-
     public AdminController(OnboardingService onboardingService,
                            UsuarioAdminService usuarioAdminService,
                            PateoService pateoService,
@@ -223,13 +222,7 @@ public class AdminController {
         PateoViewModel viewModel = pateoService.prepararViewModelDeDetalhes(pateoId);
         Pateo pateo = viewModel.pateo();
 
-        String urlPlantaAcessivel = pateo.getPlantaBaixaUrl(); // Pega a URL base
-        
-        if (!"dev".equals(activeProfile) && urlPlantaAcessivel != null && !urlPlantaAcessivel.isBlank()) {
-            String blobName = urlPlantaAcessivel.substring(urlPlantaAcessivel.lastIndexOf("/") + 1);
-            urlPlantaAcessivel = storageService.gerarUrlAcessoTemporario("plantas", blobName);            
-            pateo.setPlantaBaixaUrl(urlPlantaAcessivel);
-        }
+        pateo.setPlantaBaixaUrl(storageService.gerarUrlAcessivel("plantas", pateo.getPlantaBaixaUrl()));
         
         model.addAttribute("viewModel", viewModel);
         model.addAttribute("wktWriter", wktWriter);
@@ -254,17 +247,16 @@ public class AdminController {
             funcionarios = usuarioAdminService.listarTodosFuncionariosComPateo();
         }
         
+        // A listagem exibe apenas a miniatura; fotos antigas (sem variantes) usam a imagem original
+        Map<UUID, String> fotoExibida = new HashMap<>();
+        for (Funcionario func : funcionarios) {
+            String miniatura = ImagemService.urlVariante(func.getFotoUrl(), ImagemService.Variante.MINIATURA);
+            fotoExibida.put(func.getId(), miniatura != null ? miniatura : func.getFotoUrl());
+        }
+        Map<String, String> urlsFotos = storageService.gerarUrlsAcessoTemporario("fotos", fotoExibida.values());
         List<FuncionarioMestreViewModel> funcionariosVM = funcionarios.stream()
-            .map(func -> {
-                String urlFotoAcessivel = func.getFotoUrl();
-
-                if (!"dev".equals(activeProfile) && urlFotoAcessivel != null && !urlFotoAcessivel.isBlank()) {
-                    String blobName = urlFotoAcessivel.substring(urlFotoAcessivel.lastIndexOf("/") + 1);
-                    urlFotoAcessivel = storageService.gerarUrlAcessoTemporario("fotos", blobName);
-                }
-
-                return new FuncionarioMestreViewModel(func, urlFotoAcessivel);
-            }).collect(Collectors.toList());
+            .map(func -> new FuncionarioMestreViewModel(func, urlsFotos.get(fotoExibida.get(func.getId()))))
+            .collect(Collectors.toList());
 
         model.addAttribute("funcionariosVM", funcionariosVM);
         model.addAttribute("pateos", pateoService.listarTodosAtivos());
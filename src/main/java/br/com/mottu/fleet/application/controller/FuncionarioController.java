@@ -2,14 +2,25 @@ package br.com.mottu.fleet.application.controller;
 
 import br.com.mottu.fleet.application.dto.ErrorResponse; // Importe
 import br.com.mottu.fleet.application.dto.api.FuncionarioCreateRequest;
+import br.com.mottu.fleet.application.dto.api.FuncionarioImportResponse;
+import br.com.mottu.fleet.application.dto.api.FuncionarioPaginaResponse;
 import br.com.mottu.fleet.application.dto.api.FuncionarioResponse;
 import br.com.mottu.fleet.application.dto.api.FuncionarioUpdateRequest;
+import br.com.mottu.fleet.application.dto.api.MagicLinkLoteRequest;
+import br.com.mottu.fleet.application.dto.api.MagicLinkLoteResponse;
 import br.com.mottu.fleet.application.dto.api.MagicLinkResponse;
+import br.com.mottu.fleet.application.dto.api.UploadConfirmacaoRequest;
+import br.com.mottu.fleet.application.dto.api.UploadTicketRequest;
+import br.com.mottu.fleet.application.dto.api.UploadTicketResponse;
 import br.com.mottu.fleet.domain.entity.Funcionario;
 import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
 import br.com.mottu.fleet.domain.enums.Cargo;
 import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.domain.exception.BusinessException;
+import br.com.mottu.fleet.domain.repository.FuncionarioRepository;
+import br.com.mottu.fleet.domain.service.FuncionarioImportService;
 import br.com.mottu.fleet.domain.service.FuncionarioService;
+import br.com.mottu.fleet.domain.service.ImagemService;
 import br.com.mottu.fleet.domain.service.MagicLinkService;
 import br.com.mottu.fleet.domain.service.StorageService;
 
@@ -32,14 +43,21 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.io.IOException;
@@ -58,21 +76,24 @@ import java.io.IOException;
 @PreAuthorize("hasRole('PATEO_ADMIN')")
 public class FuncionarioController {
 
+    private static final List<String> CAMPOS_LISTAGEM = List.of("id", "nome", "telefone", "email", "fotoUrl", "fotoMediaUrl", "fotoMiniaturaUrl");
+    private static final int LOTE_EXPORTACAO = 200; // limitado pelo serviço a application.funcionario.pagina.limite-maximo
+
     private final FuncionarioService funcionarioService;
+    private final FuncionarioImportService funcionarioImportService;
     private final MagicLinkService magicLinkService;
     private final Validator validator;
     private final ObjectMapper objectMapper;
     private final StorageService storageService;
 
-    @Value("${spring.profiles.active:prod}")
-    private String activeProfile;
-
     public FuncionarioController(FuncionarioService funcionarioService,
+                                   FuncionarioImportService funcionarioImportService,
                                    MagicLinkService magicLinkService,
                                    Validator validator,
                                    ObjectMapper objectMapper,
                                    StorageService storageService) {
         this.funcionarioService = funcionarioService;
+        this.funcionarioImportService = funcionarioImportService;
         this.magicLinkService = magicLinkService;
         this.validator = validator;
         this.objectMapper = objectMapper;
@@ -127,6 +148,38 @@ public class FuncionarioController {
     }
 
 
+    /**
+     * Importa funcionários em lote a partir de um arquivo CSV (cabeçalho nome,telefone,email,cargo)
+     * ou JSON (array de objetos no formato do cadastro individual). Usado na abertura de um pátio.
+     * Linhas inválidas ou duplicadas não interrompem a importação; o resultado de cada linha volta no relatório.
+     *
+     * @param arquivo O arquivo CSV ou JSON. O formato é identificado pelo Content-Type ou pela extensão.
+     * @param adminLogado O usuário admin autenticado.
+     * @return ResponseEntity 200 OK com o relatório da importação.
+     * @throws IOException Se houver erro na leitura do arquivo.
+     */
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importa funcionários em lote a partir de um arquivo CSV ou JSON")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Arquivo processado; o resultado de cada linha está no relatório",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = FuncionarioImportResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Arquivo vazio, formato não suportado ou cabeçalho inválido",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<FuncionarioImportResponse> importarFuncionarios(
+            @RequestPart("arquivo") MultipartFile arquivo,
+            @Parameter(hidden = true) @AuthenticationPrincipal UsuarioAdmin adminLogado) throws IOException {
+
+        if (arquivo.isEmpty()) {
+            throw new BusinessException("O arquivo de importação está vazio.");
+        }
+        FuncionarioImportService.Formato formato = identificarFormato(arquivo);
+        try (InputStream conteudo = arquivo.getInputStream()) {
+            return ResponseEntity.ok(funcionarioImportService.importar(conteudo, formato, adminLogado));
+        }
+    }
+
+
     /**
      * Lista os funcionários do pátio do admin logado.
      * Permite filtrar por status (ATIVO, SUSPENSO, REMOVIDO) e cargo.
@@ -145,14 +198,106 @@ public class FuncionarioController {
             @Parameter(hidden = true) @AuthenticationPrincipal UsuarioAdmin adminLogado) {
 
         List<Funcionario> funcionarios = funcionarioService.listarPorAdminEfiltros(adminLogado, status, cargo);
+        Map<String, String> urlsFotos = storageService.gerarUrlsAcessoTemporario("fotos",
+                comVariantes(funcionarios.stream().map(Funcionario::getFotoUrl).toList()));
         List<FuncionarioResponse> response = funcionarios.stream()
-            .map(this::toFuncionarioResponse)
+            .map(funcionario -> toFuncionarioResponse(funcionario, urlsFotos))
             .toList();
 
         return ResponseEntity.ok(response);
     }
 
 
+    /**
+     * Lista uma página dos funcionários do pátio do admin logado, ordenados por nome (paginação por cursor).
+     * Para a próxima página, envie o 'proximoCursor' recebido. O parâmetro 'fields' restringe os campos
+     * de cada item (ex: fields=id,nome); a URL assinada da foto só é gerada quando 'fotoUrl' é pedido.
+     *
+     * @param status Filtro opcional por status. Se não fornecido, o serviço assume 'ATIVO'.
+     * @param cargo Filtro opcional por cargo.
+     * @param cursor O cursor da página anterior (opcional; ausente na primeira página).
+     * @param limite O tamanho da página.
+     * @param fields Os campos de cada item, separados por vírgula (opcional; padrão: todos).
+     * @param adminLogado O usuário admin autenticado.
+     * @return ResponseEntity 200 OK com a página e o cursor da próxima.
+     */
+    @GetMapping("/pagina")
+    @Operation(summary = "Lista funcionários de um pátio com paginação por cursor e seleção de campos")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página recuperada com sucesso"),
+        @ApiResponse(responseCode = "400", description = "Cursor ou campo inválido",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<FuncionarioPaginaResponse> listarFuncionariosPaginado(
+            @RequestParam(required = false) Status status,
+            @RequestParam(required = false) Cargo cargo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limite,
+            @RequestParam(required = false) String fields,
+            @Parameter(hidden = true) @AuthenticationPrincipal UsuarioAdmin adminLogado) {
+
+        Set<String> campos = parseCampos(fields);
+        FuncionarioService.Pagina pagina = funcionarioService.listarPagina(adminLogado, status, cargo, cursor, limite);
+        return ResponseEntity.ok(new FuncionarioPaginaResponse(toItens(pagina.itens(), campos), pagina.proximoCursor()));
+    }
+
+
+    /**
+     * Exporta todos os funcionários do pátio do admin logado como um array JSON escrito em streaming:
+     * os itens são lidos do banco página a página (keyset) e enviados à medida que são lidos,
+     * sem montar a lista inteira em memória.
+     *
+     * @param status Filtro opcional por status. Se não fornecido, o serviço assume 'ATIVO'.
+     * @param cargo Filtro opcional por cargo.
+     * @param fields Os campos de cada item, separados por vírgula (opcional; padrão: todos).
+     * @param adminLogado O usuário admin autenticado.
+     * @return ResponseEntity 200 OK com o array JSON em streaming.
+     */
+    @GetMapping(value = "/exportar", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Exporta todos os funcionários de um pátio em um array JSON (streaming)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Exportação iniciada",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = FuncionarioPaginaResponse.Item.class))),
+        @ApiResponse(responseCode = "400", description = "Campo inválido ou admin sem pátio",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> exportarFuncionarios(
+            @RequestParam(required = false) Status status,
+            @RequestParam(required = false) Cargo cargo,
+            @RequestParam(required = false) String fields,
+            @Parameter(hidden = true) @AuthenticationPrincipal UsuarioAdmin adminLogado) {
+
+        Set<String> campos = parseCampos(fields);
+        // O pátio e a primeira página são resolvidos ainda na thread da requisição: as páginas seguintes são lidas
+        // na thread do StreamingResponseBody, sem TenantContext, e erros aqui viram uma resposta 400 normal
+        UUID pateoId = funcionarioService.getPateoIdDoAdmin(adminLogado);
+        FuncionarioService.Pagina primeiraPagina = funcionarioService.listarPagina(pateoId, status, cargo, null, LOTE_EXPORTACAO);
+
+        StreamingResponseBody corpo = saida -> {
+            try (JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida)) {
+                gerador.writeStartArray();
+                FuncionarioService.Pagina pagina = primeiraPagina;
+                while (true) {
+                    for (FuncionarioPaginaResponse.Item item : toItens(pagina.itens(), campos)) {
+                        gerador.writeObject(item);
+                    }
+                    gerador.flush();
+                    if (pagina.proximoCursor() == null) {
+                        break;
+                    }
+                    pagina = funcionarioService.listarPagina(pateoId, status, cargo, pagina.proximoCursor(), LOTE_EXPORTACAO);
+                }
+                gerador.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=\"funcionarios.json\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(corpo);
+    }
+
+
     /**
      * Atualiza os dados textuais de um funcionário (nome, e-mail, status, etc.).
      * Para atualizar a foto, use o endpoint POST /{id}/photo.
@@ -211,6 +356,64 @@ public class FuncionarioController {
     }
 
 
+    /**
+     * Primeira fase do upload direto da foto: devolve uma URL de escrita de curta duração para o app
+     * enviar a imagem direto ao storage, sem que os bytes passem pela API.
+     *
+     * @param id O UUID do funcionário.
+     * @param request DTO com o Content-Type da imagem.
+     * @param adminLogado O admin autenticado.
+     * @return ResponseEntity 200 OK com o ticket de upload.
+     */
+    @PostMapping("/{id}/photo/upload-url")
+    @Operation(summary = "Gera uma URL para o upload direto da foto de um funcionário ao storage")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "URL de upload gerada",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = UploadTicketResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Tipo de arquivo inválido",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "404", description = "Funcionário não encontrado",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<UploadTicketResponse> solicitarUploadFoto(
+            @PathVariable UUID id,
+            @Valid @RequestBody UploadTicketRequest request,
+            @Parameter(hidden = true) @AuthenticationPrincipal UsuarioAdmin adminLogado) {
+
+        StorageService.TicketUpload ticket = funcionarioService.solicitarUploadFoto(id, request.contentType(), adminLogado);
+        return ResponseEntity.ok(new UploadTicketResponse(
+                ticket.blobName(), ticket.urlUpload(), ticket.contentType(), ticket.tamanhoMaximo(), ticket.expiraEm()));
+    }
+
+
+    /**
+     * Segunda fase do upload direto da foto: confirma o arquivo enviado ao storage e o associa ao funcionário.
+     *
+     * @param id O UUID do funcionário.
+     * @param request DTO com o nome do arquivo recebido na primeira fase.
+     * @param adminLogado O admin autenticado.
+     * @return ResponseEntity 200 OK com os dados atualizados do funcionário (incluindo a nova fotoUrl).
+     */
+    @PostMapping("/{id}/photo/confirmar")
+    @Operation(summary = "Confirma o upload direto da foto de um funcionário")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Foto atualizada com sucesso",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = FuncionarioResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Arquivo inexistente, de outro funcionário, de tipo inválido ou grande demais",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "404", description = "Funcionário não encontrado",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<FuncionarioResponse> confirmarUploadFoto(
+            @PathVariable UUID id,
+            @Valid @RequestBody UploadConfirmacaoRequest request,
+            @Parameter(hidden = true) @AuthenticationPrincipal UsuarioAdmin adminLogado) {
+
+        Funcionario funcionarioAtualizado = funcionarioService.confirmarUploadFoto(id, request.blobName(), adminLogado);
+        return ResponseEntity.ok(toFuncionarioResponse(funcionarioAtualizado));
+    }
+
+
     /**
      * Desativa (soft delete) um funcionário, mudando seu status para REMOVIDO.
      *
@@ -288,26 +491,143 @@ public class FuncionarioController {
     }
 
 
+    /**
+     * Gera e envia novos Magic Links para vários funcionários do pátio em uma única requisição.
+     *
+     * @param request DTO com os IDs dos funcionários. Sem IDs, gera para todos os ativos sem link válido.
+     * @param adminLogado O usuário admin autenticado.
+     * @return ResponseEntity 200 OK com os links gerados e os IDs ignorados.
+     */
+    @PostMapping("/regenerar-links")
+    @Operation(summary = "Gera e envia novos Magic Links em lote para funcionários do pátio")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Links gerados; o envio das notificações segue em segundo plano"),
+        @ApiResponse(responseCode = "400", description = "Lote acima do tamanho máximo ou admin sem pátio",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<MagicLinkLoteResponse> gerarMagicLinksEmLote(
+        @RequestBody(required = false) MagicLinkLoteRequest request,
+        @Parameter(hidden = true) @AuthenticationPrincipal UsuarioAdmin adminLogado) {
+
+        List<UUID> funcionarioIds = request == null ? null : request.funcionarioIds();
+        return ResponseEntity.ok(magicLinkService.regenerarLinksEmLote(funcionarioIds, adminLogado));
+    }
+
+
+    /**
+     * Método auxiliar que identifica o formato do arquivo de importação pelo Content-Type ou, se genérico, pela extensão.
+     */
+    private FuncionarioImportService.Formato identificarFormato(MultipartFile arquivo) {
+        String contentType = arquivo.getContentType() == null ? "" : arquivo.getContentType().toLowerCase(Locale.ROOT);
+        String nome = arquivo.getOriginalFilename() == null ? "" : arquivo.getOriginalFilename().toLowerCase(Locale.ROOT);
+        if (contentType.contains("json") || nome.endsWith(".json")) {
+            return FuncionarioImportService.Formato.JSON;
+        }
+        if (contentType.contains("csv") || nome.endsWith(".csv")) {
+            return FuncionarioImportService.Formato.CSV;
+        }
+        throw new BusinessException("Formato de arquivo não suportado. Envie um arquivo .csv ou .json.");
+    }
+
+
+    /**
+     * Método auxiliar que interpreta o parâmetro 'fields' da listagem paginada.
+     */
+    private Set<String> parseCampos(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return Set.copyOf(CAMPOS_LISTAGEM);
+        }
+        Set<String> campos = new LinkedHashSet<>();
+        for (String campo : Arrays.stream(fields.split(",")).map(String::trim).filter(c -> !c.isEmpty()).toList()) {
+            if (!CAMPOS_LISTAGEM.contains(campo)) {
+                throw new BusinessException("Campo '" + campo + "' inválido. Valores aceitos: " + String.join(",", CAMPOS_LISTAGEM));
+            }
+            campos.add(campo);
+        }
+        return campos;
+    }
+
+
+    /**
+     * Método auxiliar que converte os itens de uma página da listagem, mantendo apenas os campos pedidos.
+     * As URLs das fotos da página são geradas em lote, e só as das variantes pedidas em 'fields'.
+     */
+    private List<FuncionarioPaginaResponse.Item> toItens(List<FuncionarioRepository.ResumoView> funcionarios, Set<String> campos) {
+        List<String> urlsPedidas = new ArrayList<>();
+        for (FuncionarioRepository.ResumoView funcionario : funcionarios) {
+            if (campos.contains("fotoUrl")) {
+                urlsPedidas.add(funcionario.getFotoUrl());
+            }
+            if (campos.contains("fotoMediaUrl")) {
+                urlsPedidas.add(ImagemService.urlVariante(funcionario.getFotoUrl(), ImagemService.Variante.MEDIA));
+            }
+            if (campos.contains("fotoMiniaturaUrl")) {
+                urlsPedidas.add(ImagemService.urlVariante(funcionario.getFotoUrl(), ImagemService.Variante.MINIATURA));
+            }
+        }
+        Map<String, String> urlsFotos = urlsPedidas.isEmpty()
+                ? Map.of()
+                : storageService.gerarUrlsAcessoTemporario("fotos", urlsPedidas);
+        return funcionarios.stream()
+                .map(funcionario -> new FuncionarioPaginaResponse.Item(
+                        campos.contains("id") ? funcionario.getId() : null,
+                        campos.contains("nome") ? funcionario.getNome() : null,
+                        campos.contains("telefone") ? funcionario.getTelefone() : null,
+                        campos.contains("email") ? funcionario.getEmail() : null,
+                        campos.contains("fotoUrl") ? urlAssinada(urlsFotos, funcionario.getFotoUrl()) : null,
+                        campos.contains("fotoMediaUrl")
+                                ? urlAssinada(urlsFotos, ImagemService.urlVariante(funcionario.getFotoUrl(), ImagemService.Variante.MEDIA)) : null,
+                        campos.contains("fotoMiniaturaUrl")
+                                ? urlAssinada(urlsFotos, ImagemService.urlVariante(funcionario.getFotoUrl(), ImagemService.Variante.MINIATURA)) : null
+                ))
+                .toList();
+    }
+
+
     /**
      * Método auxiliar para converter a entidade Funcionario em uma DTO de resposta.
-     * Sensível ao perfil (dev vs prod) para gerar a URL da foto.
+     * A URL da foto é gerada pelo StorageService (sensível ao perfil dev vs prod).
      */
     private FuncionarioResponse toFuncionarioResponse(Funcionario funcionario) {
-        
-        String urlAcessivel = funcionario.getFotoUrl();
+        return toFuncionarioResponse(funcionario,
+                storageService.gerarUrlsAcessoTemporario("fotos", comVariantes(Arrays.asList(funcionario.getFotoUrl()))));
+    }
 
-        if (!"dev".equals(activeProfile) && urlAcessivel != null && !urlAcessivel.isBlank()) {
-            String blobName = urlAcessivel.substring(urlAcessivel.lastIndexOf("/") + 1);
-            urlAcessivel = storageService.gerarUrlAcessoTemporario("fotos", blobName);
-        }
-        
+
+    /**
+     * @param urlsFotos As URLs acessíveis, já geradas em lote, indexadas pela URL gravada no banco.
+     */
+    private FuncionarioResponse toFuncionarioResponse(Funcionario funcionario, Map<String, String> urlsFotos) {
+        String fotoUrl = funcionario.getFotoUrl();
         return new FuncionarioResponse(
                 funcionario.getId(),
                 funcionario.getNome(),
                 funcionario.getTelefone(),
                 funcionario.getEmail(),
-                urlAcessivel
+                urlsFotos.getOrDefault(fotoUrl, fotoUrl),
+                urlAssinada(urlsFotos, ImagemService.urlVariante(fotoUrl, ImagemService.Variante.MEDIA)),
+                urlAssinada(urlsFotos, ImagemService.urlVariante(fotoUrl, ImagemService.Variante.MINIATURA))
         );
     }
 
+
+    /**
+     * Método auxiliar que acrescenta, a cada URL gravada no banco, as URLs das suas variantes (quando existem),
+     * para que todas sejam assinadas na mesma chamada ao StorageService.
+     */
+    private static List<String> comVariantes(List<String> urlsOriginais) {
+        List<String> urls = new ArrayList<>(urlsOriginais.size() * 3);
+        for (String url : urlsOriginais) {
+            urls.add(url);
+            urls.add(ImagemService.urlVariante(url, ImagemService.Variante.MEDIA));
+            urls.add(ImagemService.urlVariante(url, ImagemService.Variante.MINIATURA));
+        }
+        return urls;
+    }
+
+
+    private static String urlAssinada(Map<String, String> urlsAssinadas, String urlArmazenada) {
+        return urlArmazenada == null ? null : urlsAssinadas.get(urlArmazenada);
+    }
+
 }
\ No newline at end of file
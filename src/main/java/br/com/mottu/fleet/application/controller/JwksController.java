@@ -0,0 +1,91 @@
+package br.com.mottu.fleet.application.controller;
+
+import br.com.mottu.fleet.config.JwtKeyRing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+
+
+/**
+ * Controller público que publica as chaves de verificação dos JWTs no formato JWKS (RFC 7517).
+ * Permite que outros serviços (ex: a API de C#) validem os tokens offline, apenas com chaves públicas.
+ * O documento é montado uma única vez e servido com ETag forte e Cache-Control público,
+ * para que os consumidores revalidem com requisições condicionais (304) baratas.
+ */
+@RestController
+@Tag(name = "JWKS", description = "Chaves públicas para validação dos tokens JWT")
+public class JwksController {
+
+    private final byte[] jwksJson;
+    private final String etag;
+    private final CacheControl cacheControl;
+
+    public JwksController(JwtKeyRing keyRing,
+                          ObjectMapper objectMapper,
+                          @Value("${application.security.jwt.jwks-max-age-seconds:3600}") long maxAgeSeconds) throws JsonProcessingException {
+        // As chaves só mudam em um restart (rotação), então o corpo e o ETag são calculados uma vez
+        this.jwksJson = objectMapper.writeValueAsBytes(Map.of("keys", keyRing.toJwks()));
+        this.etag = "\"" + sha256Hex(jwksJson) + "\"";
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    }
+
+
+    /**
+     * Retorna o JWKS com as chaves públicas ativas e em rotação.
+     * Responde 304 (Not Modified) quando o cliente envia o ETag atual em If-None-Match.
+     * @param request A requisição, usada para a verificação condicional do ETag.
+     * @return ResponseEntity com o JWKS (200) ou vazio (304).
+     */
+    @Operation(summary = "Publica as chaves públicas dos JWTs (JWKS)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "JWKS retornado"),
+            @ApiResponse(responseCode = "304", description = "JWKS não mudou desde o ETag informado")
+    })
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> jwks(WebRequest request) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jwksJson);
+    }
+
+
+    /**
+     * Método auxiliar que calcula o hash usado como ETag.
+     */
+    private static String sha256Hex(byte[] conteudo) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM.", e);
+        }
+    }
+
+}
@@ -5,6 +5,7 @@ import br.com.mottu.fleet.application.dto.api.PateoDetailResponse;
 import br.com.mottu.fleet.application.dto.api.ZonaResponse;
 import br.com.mottu.fleet.domain.entity.Pateo;
 import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
+import br.com.mottu.fleet.domain.service.ImagemService;
 import br.com.mottu.fleet.domain.service.PateoService;
 import br.com.mottu.fleet.domain.service.StorageService;
 
@@ -26,9 +27,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.beans.factory.annotation.Value;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 
@@ -49,9 +51,6 @@ public class PateoController {
     // WKTWriter pra converter objeto JTS Polygon em String
     private final WKTWriter wktWriter = new WKTWriter();
 
-    @Value("${spring.profiles.active:prod}")
-    private String activeProfile;
-
     public PateoController(PateoService pateoService, StorageService storageService) {
         this.pateoService = pateoService;
         this.storageService = storageService;
@@ -93,19 +92,20 @@ public class PateoController {
                         wktWriter.write(zona.getCoordenadas())
                 )).toList();
 
-        // 3. LÓGICA DE PERFIL (PROD vs DEV) PARA A URL DA PLANTA
-        String urlPlantaAcessivel = pateo.getPlantaBaixaUrl(); // Pega a URL base do banco
-        
-        if (!"dev".equals(activeProfile) && urlPlantaAcessivel != null && !urlPlantaAcessivel.isBlank()) {            
-            String blobName = urlPlantaAcessivel.substring(urlPlantaAcessivel.lastIndexOf("/") + 1);            
-            urlPlantaAcessivel = storageService.gerarUrlAcessoTemporario("plantas", blobName);
-        }
+        // 3. URLs DA PLANTA E DAS SUAS VARIANTES, geradas em lote (o StorageService trata o perfil PROD vs DEV)
+        String plantaUrl = pateo.getPlantaBaixaUrl();
+        String plantaMediaUrl = ImagemService.urlVariante(plantaUrl, ImagemService.Variante.MEDIA);
+        String plantaMiniaturaUrl = ImagemService.urlVariante(plantaUrl, ImagemService.Variante.MINIATURA);
+        Map<String, String> urlsPlanta = storageService.gerarUrlsAcessoTemporario("plantas",
+                Arrays.asList(plantaUrl, plantaMediaUrl, plantaMiniaturaUrl));
 
         // 4. Monta a DTO de resposta final
         PateoDetailResponse response = new PateoDetailResponse(
                 pateo.getId(),
                 pateo.getNome(),
-                urlPlantaAcessivel,
+                urlsPlanta.getOrDefault(plantaUrl, plantaUrl),
+                plantaMediaUrl == null ? null : urlsPlanta.get(plantaMediaUrl),
+                plantaMiniaturaUrl == null ? null : urlsPlanta.get(plantaMiniaturaUrl),
                 pateo.getPlantaLargura(),
                 pateo.getPlantaAltura(),
                 zonasResponse
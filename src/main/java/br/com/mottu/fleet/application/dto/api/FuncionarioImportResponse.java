@@ -0,0 +1,40 @@
+package br.com.mottu.fleet.application.dto.api;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.UUID;
+
+@Schema(description = "DTO com o relatório da importação de funcionários em lote")
+public record FuncionarioImportResponse(
+    @Schema(description = "Total de linhas lidas do arquivo", example = "200")
+    int total,
+
+    @Schema(description = "Funcionários criados", example = "197")
+    int criados,
+
+    @Schema(description = "Linhas recusadas", example = "3")
+    int erros,
+
+    @Schema(description = "Resultado de cada linha, na ordem do arquivo")
+    List<Linha> linhas
+) {
+
+    @Schema(description = "Resultado da importação de uma linha do arquivo")
+    public record Linha(
+        @Schema(description = "Número da linha no arquivo (CSV) ou posição no array (JSON), a partir de 1", example = "2")
+        int linha,
+
+        @Schema(description = "E-mail informado na linha", example = "joao.silva@email.com")
+        String email,
+
+        @Schema(description = "Resultado da linha. Valores possíveis: CRIADO, ERRO", example = "CRIADO")
+        String status,
+
+        @Schema(description = "ID do funcionário criado (apenas quando CRIADO)")
+        UUID funcionarioId,
+
+        @Schema(description = "Motivos da recusa (apenas quando ERRO)")
+        List<String> erros
+    ) {}
+}
@@ -0,0 +1,43 @@
+package br.com.mottu.fleet.application.dto.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.UUID;
+
+@Schema(description = "DTO para uma página da listagem de funcionários (paginação por cursor)")
+public record FuncionarioPaginaResponse(
+    @Schema(description = "Funcionários da página, ordenados por nome")
+    List<Item> itens,
+
+    @Schema(description = "Cursor para buscar a próxima página. Nulo quando esta é a última página", example = "YTFiMmMzZDQtZTVmNi00YTViLThjOWQtMGUxZjJhM2I0YzVkOkpvw6Nv")
+    String proximoCursor
+) {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "Funcionário da listagem. Apenas os campos pedidos em 'fields' (e não nulos) são enviados")
+    public record Item(
+        @Schema(description = "ID único do funcionário", example = "a1b2c3d4-e5f6-4a5b-8c9d-0e1f2a3b4c5d")
+        UUID id,
+
+        @Schema(description = "Nome do funcionário", example = "Funcionário Teste")
+        String nome,
+
+        @Schema(description = "Telefone do funcionário", example = "11999998888")
+        String telefone,
+
+        @Schema(description = "Email do funcionário", example = "email@funcionario.com")
+        String email,
+
+        @Schema(description = "URL da foto do funcionário")
+        String fotoUrl,
+
+        @Schema(description = "URL da variante média da foto (640px)")
+        String fotoMediaUrl,
+
+        @Schema(description = "URL da miniatura da foto (160px)")
+        String fotoMiniaturaUrl
+    ) {}
+}
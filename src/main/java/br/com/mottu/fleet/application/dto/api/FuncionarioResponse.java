@@ -18,5 +18,11 @@ public record FuncionarioResponse(
     String email,
 
     @Schema(description = "URL da foto do funcionário")
-    String fotoUrl
+    String fotoUrl,
+
+    @Schema(description = "URL da variante média da foto (640px). Nula para fotos enviadas antes do processamento de variantes")
+    String fotoMediaUrl,
+
+    @Schema(description = "URL da miniatura da foto (160px). Nula para fotos enviadas antes do processamento de variantes")
+    String fotoMiniaturaUrl
 ) {}
\ No newline at end of file
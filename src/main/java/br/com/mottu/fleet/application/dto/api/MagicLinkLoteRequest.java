@@ -0,0 +1,14 @@
+package br.com.mottu.fleet.application.dto.api;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.UUID;
+
+@Schema(description = "DTO para a geração de Magic Links em lote")
+public record MagicLinkLoteRequest(
+    @Schema(description = "IDs dos funcionários que receberão um novo link. Se vazio, gera para todos os funcionários " +
+                          "ativos do pátio que não têm um link válido.",
+            example = "[\"c2a9a3f8-8a8b-4f9e-8c8d-6a5b4c3d2e1f\"]")
+    List<UUID> funcionarioIds
+) {}
@@ -0,0 +1,25 @@
+package br.com.mottu.fleet.application.dto.api;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.UUID;
+
+@Schema(description = "DTO para a resposta da geração de Magic Links em lote")
+public record MagicLinkLoteResponse(
+    @Schema(description = "Links gerados, um por funcionário")
+    List<Item> links,
+
+    @Schema(description = "IDs informados que foram ignorados (não encontrados, removidos ou de outro pátio)")
+    List<UUID> ignorados
+) {
+
+    @Schema(description = "Magic Link gerado para um funcionário")
+    public record Item(
+        @Schema(description = "ID do funcionário", example = "c2a9a3f8-8a8b-4f9e-8c8d-6a5b4c3d2e1f")
+        UUID funcionarioId,
+
+        @Schema(description = "URL completa do Magic Link gerado", example = "http://localhost:8080/auth/validar-token?valor=abc123xyz456...")
+        String magicLinkUrl
+    ) {}
+}
@@ -15,6 +15,12 @@ public record PateoDetailResponse(
         @Schema(description = "URL para acessar a imagem da planta baixa", example = "/images/plantas/planta-pateo-teste.png")
         String plantaBaixaUrl,
 
+        @Schema(description = "URL da variante média da planta baixa (640px). Nula para plantas enviadas antes do processamento de variantes")
+        String plantaBaixaMediaUrl,
+
+        @Schema(description = "URL da miniatura da planta baixa (160px). Nula para plantas enviadas antes do processamento de variantes")
+        String plantaBaixaMiniaturaUrl,
+
         @Schema(description = "Largura original da imagem da planta em pixels. Essencial para o cálculo de coordenadas no frontend.", example = "800")
         Integer plantaLargura,
 
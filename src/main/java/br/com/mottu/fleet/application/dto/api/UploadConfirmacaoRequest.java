@@ -0,0 +1,11 @@
+package br.com.mottu.fleet.application.dto.api;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+
+@Schema(description = "DTO para confirmar um upload direto ao storage")
+public record UploadConfirmacaoRequest(
+    @NotBlank(message = "O nome do arquivo é obrigatório")
+    @Schema(description = "Nome do arquivo recebido na solicitação do upload", example = "a1b2c3d4-e5f6-4a5b-8c9d-0e1f2a3b4c5d_0f8e7d6c-5b4a-4c3d-9e2f-1a0b9c8d7e6f.jpg")
+    String blobName
+) {}
@@ -0,0 +1,11 @@
+package br.com.mottu.fleet.application.dto.api;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+
+@Schema(description = "DTO para solicitar uma URL de upload direto ao storage")
+public record UploadTicketRequest(
+    @NotBlank(message = "O Content-Type é obrigatório")
+    @Schema(description = "Tipo de mídia da imagem que será enviada. Valores aceitos: image/jpeg, image/png, image/gif", example = "image/jpeg")
+    String contentType
+) {}
@@ -0,0 +1,25 @@
+package br.com.mottu.fleet.application.dto.api;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+@Schema(description = "DTO com a autorização para enviar uma imagem direto ao storage. " +
+                      "Faça um PUT do arquivo em 'urlUpload' com os headers 'x-ms-blob-type: BlockBlob' e 'Content-Type', " +
+                      "e depois confirme o upload informando o 'blobName'.")
+public record UploadTicketResponse(
+    @Schema(description = "Nome do arquivo no storage, a ser informado na confirmação", example = "a1b2c3d4-e5f6-4a5b-8c9d-0e1f2a3b4c5d_0f8e7d6c-5b4a-4c3d-9e2f-1a0b9c8d7e6f.jpg")
+    String blobName,
+
+    @Schema(description = "URL (SAS de escrita) para o PUT do arquivo")
+    String urlUpload,
+
+    @Schema(description = "Content-Type que deve ser enviado no PUT", example = "image/jpeg")
+    String contentType,
+
+    @Schema(description = "Tamanho máximo aceito na confirmação, em bytes", example = "5242880")
+    long tamanhoMaximo,
+
+    @Schema(description = "Instante em que a URL de upload expira", example = "2025-10-20T13:10:00Z")
+    Instant expiraEm
+) {}
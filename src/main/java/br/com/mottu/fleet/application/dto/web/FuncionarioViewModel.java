@@ -2,13 +2,15 @@ package br.com.mottu.fleet.application.dto.web;
 
 import br.com.mottu.fleet.domain.entity.Funcionario;
 
+import java.time.OffsetDateTime;
 import java.util.Optional;
 
 /**
  * ViewModel usado na tela de "Detalhes do Pátio" do Super Admin.
- * Encapsula a entidade Funcionario e a URL de um Magic Link válido (se existir).
+ * Encapsula a entidade Funcionario e até quando vale o seu Magic Link válido (se existir).
+ * A URL em si não é exibida: o banco guarda apenas o hash do token.
  */
 public record FuncionarioViewModel(
     Funcionario funcionario,
-    Optional<String> magicLinkUrl
-) {}
\ No newline at end of file
+    Optional<OffsetDateTime> magicLinkValidoAte
+) {}
@@ -9,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -23,7 +24,9 @@ import org.springframework.web.util.UriComponentsBuilder;
 import br.com.mottu.fleet.application.dto.ErrorResponse;
 import br.com.mottu.fleet.domain.exception.BusinessException;
 import br.com.mottu.fleet.domain.exception.EmailAlreadyExistsException;
+import br.com.mottu.fleet.domain.exception.ImageProcessingOverloadedException;
 import br.com.mottu.fleet.domain.exception.InvalidTokenException;
+import br.com.mottu.fleet.domain.exception.LoginOverloadedException;
 import br.com.mottu.fleet.domain.exception.ResourceNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
@@ -135,6 +138,40 @@ public class GlobalExceptionHandler {
     }
 
 
+    /**
+     * Handler para logins rejeitados por falta de capacidade no pool de verificação de senhas.
+     * Retorna um status 429 Too Many Requests com o cabeçalho Retry-After.
+     *
+     * @param ex A exceção capturada.
+     * @param request A requisição HTTP.
+     * @return Um ResponseEntity com status 429 e corpo de erro padronizado.
+     */
+    @ExceptionHandler(LoginOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleLoginOverloaded(LoginOverloadedException ex, HttpServletRequest request) {
+        ResponseEntity<ErrorResponse> resposta = buildErrorResponse(ex, HttpStatus.TOO_MANY_REQUESTS, "Muitas Requisições", request);
+        return ResponseEntity.status(resposta.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(resposta.getBody());
+    }
+
+
+    /**
+     * Handler para uploads de imagem rejeitados por falta de capacidade no pool de processamento de imagens.
+     * Retorna um status 503 Service Unavailable com o cabeçalho Retry-After.
+     *
+     * @param ex A exceção capturada.
+     * @param request A requisição HTTP.
+     * @return Um ResponseEntity com status 503 e corpo de erro padronizado.
+     */
+    @ExceptionHandler(ImageProcessingOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleImageProcessingOverloaded(ImageProcessingOverloadedException ex, HttpServletRequest request) {
+        ResponseEntity<ErrorResponse> resposta = buildErrorResponse(ex, HttpStatus.SERVICE_UNAVAILABLE, "Serviço Indisponível", request);
+        return ResponseEntity.status(resposta.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(resposta.getBody());
+    }
+
+
     /**
      * Handler "pega-tudo" para exceções inesperadas (ex: NullPointerException).
      * Diferencia entre erros na API e erros no Painel Web.
@@ -0,0 +1,173 @@
+package br.com.mottu.fleet.config;
+
+import br.com.mottu.fleet.domain.exception.BusinessException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.UUID;
+
+
+/**
+ * Gera e valida AuthCodes "stateless" (modo application.security.auth-code.mode=stateless).
+ * Em vez de uma linha na tabela auth_code, o código é um blob AES-256-GCM (cifrado e autenticado)
+ * com o ID do funcionário e a expiração, codificado em Base64 URL-safe.
+ *
+ * O uso único é garantido por um conjunto em memória dos nonces já resgatados, mantido pela janela
+ * de validade do código. Esse conjunto é local ao nó: em um cluster sem afinidade de sessão, o mesmo
+ * código pode ser resgatado uma vez em cada nó dentro da janela. A chave é derivada do segredo do JWT,
+ * então todos os nós conseguem abrir códigos emitidos por qualquer um deles.
+ */
+@Component
+public class AuthCodeCodec {
+
+    private static final byte VERSAO = 1;
+    private static final int TAMANHO_NONCE = 12;
+    private static final int TAMANHO_TAG_BITS = 128;
+    private static final int TAMANHO_CONTEUDO = 16 + 8; // UUID do funcionário + expiração (epoch seconds)
+
+    private final SecretKey chave;
+    private final SecureRandom random = new SecureRandom();
+    private final Duration validade;
+    private final Cache<String, Boolean> resgatados;
+    private final boolean stateless;
+
+    public AuthCodeCodec(@Value("${application.security.jwt.secret-key}") String segredo,
+                         @Value("${application.security.auth-code.mode:database}") String modo,
+                         @Value("${application.security.auth-code.validade-segundos:120}") long validadeSegundos,
+                         @Value("${application.security.auth-code.replay-cache-size:100000}") long tamanhoReplayCache) {
+        this.chave = derivarChave(segredo);
+        this.stateless = "stateless".equalsIgnoreCase(modo);
+        this.validade = Duration.ofSeconds(validadeSegundos);
+        // Margem de 5s para cobrir diferenças de relógio entre quem emitiu e quem resgata
+        this.resgatados = Caffeine.newBuilder()
+                .maximumSize(tamanhoReplayCache)
+                .expireAfterWrite(validade.plusSeconds(5))
+                .build();
+    }
+
+
+    /**
+     * @return true se os AuthCodes devem ser emitidos sem gravar na tabela auth_code.
+     */
+    public boolean isStateless() {
+        return stateless;
+    }
+
+
+    /**
+     * @return A validade de um AuthCode.
+     */
+    public Duration getValidade() {
+        return validade;
+    }
+
+
+    /**
+     * Emite um AuthCode stateless para um funcionário.
+     * @param funcionarioId O ID do funcionário.
+     * @param expiraEm O instante de expiração do código.
+     * @return O código, em Base64 URL-safe.
+     */
+    public String emitir(UUID funcionarioId, Instant expiraEm) {
+        byte[] nonce = new byte[TAMANHO_NONCE];
+        random.nextBytes(nonce);
+
+        ByteBuffer conteudo = ByteBuffer.allocate(TAMANHO_CONTEUDO)
+                .putLong(funcionarioId.getMostSignificantBits())
+                .putLong(funcionarioId.getLeastSignificantBits())
+                .putLong(expiraEm.getEpochSecond());
+
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, chave, new GCMParameterSpec(TAMANHO_TAG_BITS, nonce));
+            cipher.updateAAD(new byte[] {VERSAO});
+            byte[] cifrado = cipher.doFinal(conteudo.array());
+
+            ByteBuffer blob = ByteBuffer.allocate(1 + nonce.length + cifrado.length)
+                    .put(VERSAO)
+                    .put(nonce)
+                    .put(cifrado);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(blob.array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Não foi possível gerar o código de autorização.", e);
+        }
+    }
+
+
+    /**
+     * Resgata (queima) um AuthCode stateless: valida autenticidade, expiração e uso único.
+     * @param code O código recebido do app.
+     * @return O ID do funcionário dono do código.
+     * @throws BusinessException se o código for inválido, tiver expirado ou já tiver sido utilizado.
+     */
+    public UUID resgatar(String code) {
+        byte[] blob;
+        try {
+            blob = Base64.getUrlDecoder().decode(code);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Código de autorização inválido.");
+        }
+        if (blob.length != 1 + TAMANHO_NONCE + TAMANHO_CONTEUDO + TAMANHO_TAG_BITS / 8 || blob[0] != VERSAO) {
+            throw new BusinessException("Código de autorização inválido.");
+        }
+
+        ByteBuffer conteudo;
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, chave, new GCMParameterSpec(TAMANHO_TAG_BITS, blob, 1, TAMANHO_NONCE));
+            cipher.updateAAD(blob, 0, 1);
+            conteudo = ByteBuffer.wrap(cipher.doFinal(blob, 1 + TAMANHO_NONCE, blob.length - 1 - TAMANHO_NONCE));
+        } catch (GeneralSecurityException e) {
+            // Tag GCM inválida: código adulterado ou emitido com outra chave
+            throw new BusinessException("Código de autorização inválido.");
+        }
+
+        UUID funcionarioId = new UUID(conteudo.getLong(), conteudo.getLong());
+        Instant expiraEm = Instant.ofEpochSecond(conteudo.getLong());
+        if (expiraEm.isBefore(Instant.now())) {
+            throw new BusinessException("Código de autorização expirou.");
+        }
+
+        String nonce = Base64.getEncoder().encodeToString(Arrays.copyOfRange(blob, 1, 1 + TAMANHO_NONCE));
+        if (resgatados.asMap().putIfAbsent(nonce, Boolean.TRUE) != null) {
+            throw new BusinessException("Código de autorização já foi utilizado.");
+        }
+        return funcionarioId;
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    /**
+     * Método auxiliar que deriva uma chave AES-256 exclusiva para os AuthCodes a partir do segredo do JWT,
+     * para não reutilizar a mesma chave em dois algoritmos diferentes.
+     */
+    private static SecretKey derivarChave(String segredo) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update("fleet-auth-code-v1:".getBytes(StandardCharsets.UTF_8));
+            return new SecretKeySpec(sha256.digest(segredo.getBytes(StandardCharsets.UTF_8)), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 indisponível.", e);
+        }
+    }
+
+}
@@ -1,8 +1,10 @@
 package br.com.mottu.fleet.config;
 
+import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
 import br.com.mottu.fleet.domain.repository.UsuarioAdminRepository;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -10,12 +12,12 @@ import org.springframework.stereotype.Service;
 
 /**
  * Serviço de autenticação customizado que se integra ao Spring Security.
- * A única responsabilidade dessa classe é implementar a interface UserDetailsService
- * para carregar os dados do usuário (UsuarioAdmin entity) a partir do banco de dados
- * usando o email como "username".
+ * Implementa a interface UserDetailsService para carregar os dados do usuário (UsuarioAdmin entity)
+ * a partir do banco de dados usando o email como "username", e a UserDetailsPasswordService para
+ * gravar a senha re-codificada quando o hash armazenado usa um custo/algoritmo desatualizado.
  */
 @Service
-public class AuthenticationService implements UserDetailsService {
+public class AuthenticationService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UsuarioAdminRepository repository;
 
@@ -39,4 +41,22 @@ public class AuthenticationService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado com o email: " + username));
     }
 
-}
\ No newline at end of file
+
+    /**
+     * Grava o novo hash da senha após um login bem-sucedido com um hash desatualizado
+     * (ex: sem o prefixo {bcrypt} ou com custo menor que o configurado).
+     * Chamado pelo DaoAuthenticationProvider, que já validou a senha informada.
+     *
+     * @param user O usuário autenticado.
+     * @param newPassword O novo hash da senha, já codificado.
+     * @return O usuário com o hash atualizado.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UsuarioAdmin admin = (UsuarioAdmin) user;
+        repository.atualizarSenha(admin.getId(), newPassword);
+        admin.setSenha(newPassword);
+        return admin;
+    }
+
+}
@@ -0,0 +1,169 @@
+package br.com.mottu.fleet.config;
+
+import br.com.mottu.fleet.domain.exception.LoginOverloadedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * AuthenticationProvider usado pelo login da API (/api/auth/login) e pelo formLogin do painel web.
+ * Delega para um DaoAuthenticationProvider, mas executa a verificação da senha (BCrypt, CPU-bound)
+ * em um pool dedicado e limitado, em vez de ocupar todas as threads do Tomcat.
+ *
+ * Quando o pool e a fila estão cheios (ex: rajada de logins ou ataque de força bruta), a tentativa é
+ * rejeitada imediatamente com LoginOverloadedException (HTTP 429), protegendo o restante da API.
+ * Também é o ponto onde o DaoAuthenticationProvider recebe o UserDetailsPasswordService, que
+ * re-codifica a senha no login quando o custo do BCrypt configurado muda.
+ */
+@Component
+public class BoundedAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String MENSAGEM_SOBRECARGA = "Muitas tentativas de login simultâneas. Tente novamente em instantes.";
+
+    private final DaoAuthenticationProvider delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final Counter rejeitadosFilaCheia;
+    private final Counter rejeitadosTimeout;
+
+    public BoundedAuthenticationProvider(AuthenticationService authenticationService,
+                                         PasswordEncoder passwordEncoder,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${application.security.login.threads:0}") int threads,
+                                         @Value("${application.security.login.queue-size:32}") int queueSize,
+                                         @Value("${application.security.login.timeout-ms:5000}") long timeoutMs) {
+        int tamanhoPool = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                tamanhoPool, tamanhoPool, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-worker-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMs = timeoutMs;
+
+        this.delegate = new DaoAuthenticationProvider();
+        this.delegate.setUserDetailsService(authenticationService);
+        this.delegate.setUserDetailsPasswordService(authenticationService);
+        this.delegate.setPasswordEncoder(new PasswordEncoderMedido(passwordEncoder,
+                Timer.builder("fleet.auth.password.hash")
+                        .description("Tempo de verificação da senha (BCrypt) no login")
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry)));
+
+        this.rejeitadosFilaCheia = Counter.builder("fleet.auth.login.rejeitados")
+                .description("Logins rejeitados com 429 por falta de capacidade no pool de verificação")
+                .tag("motivo", "fila_cheia")
+                .register(meterRegistry);
+        this.rejeitadosTimeout = Counter.builder("fleet.auth.login.rejeitados")
+                .description("Logins rejeitados com 429 por falta de capacidade no pool de verificação")
+                .tag("motivo", "timeout")
+                .register(meterRegistry);
+        Gauge.builder("fleet.auth.login.fila", executor, e -> e.getQueue().size())
+                .description("Tentativas de login aguardando uma thread de verificação")
+                .register(meterRegistry);
+        Gauge.builder("fleet.auth.login.ativos", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Verificações de senha em andamento")
+                .register(meterRegistry);
+    }
+
+
+    /**
+     * Submete a autenticação ao pool de verificação e aguarda o resultado.
+     * @param authentication O token com usuário e senha informados.
+     * @return A autenticação preenchida, se as credenciais forem válidas.
+     * @throws LoginOverloadedException se não houver capacidade para verificar a senha agora.
+     */
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Future<Authentication> tarefa;
+        try {
+            tarefa = executor.submit(() -> delegate.authenticate(authentication));
+        } catch (RejectedExecutionException e) {
+            rejeitadosFilaCheia.increment();
+            throw new LoginOverloadedException(MENSAGEM_SOBRECARGA);
+        }
+
+        try {
+            return tarefa.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Repassa as falhas do delegate (BadCredentials, DisabledException...) sem alteração
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new AuthenticationServiceException("Falha ao verificar as credenciais.", e.getCause());
+        } catch (TimeoutException e) {
+            tarefa.cancel(true);
+            rejeitadosTimeout.increment();
+            throw new LoginOverloadedException(MENSAGEM_SOBRECARGA);
+        } catch (InterruptedException e) {
+            tarefa.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Verificação de credenciais interrompida.", e);
+        }
+    }
+
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    /**
+     * PasswordEncoder que apenas mede o tempo das verificações de senha do encoder original.
+     */
+    private record PasswordEncoderMedido(PasswordEncoder encoder, Timer timer) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return encoder.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return timer.record(() -> encoder.matches(rawPassword, encodedPassword));
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return encoder.upgradeEncoding(encodedPassword);
+        }
+    }
+
+}
@@ -1,5 +1,9 @@
 package br.com.mottu.fleet.config;
 
+import br.com.mottu.fleet.infrastructure.cache.TokenRevocationRegistry;
+
+import io.jsonwebtoken.JwtException;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,12 +13,13 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.Optional;
 
 
 /**
@@ -22,20 +27,27 @@ import java.io.IOException;
  * A principal responsabilidade deste filtro é validar o token JWT (Bearer Token)
  * e configurar o Contexto de Segurança do Spring (SecurityContextHolder)
  * com a identidade do usuário autenticado.
+ * A resolução do principal (admin ou funcionário) é delegada ao PrincipalResolver,
+ * que evita acessos ao banco a cada requisição. Tokens revogados são barrados pelo TokenRevocationRegistry.
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalResolver principalResolver;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
 
     /**
      * @param jwtService O serviço responsável por manipular os tokens JWT.
-     * @param userDetailsService O serviço do Spring Security para carregar os dados do usuário.
+     * @param principalResolver O componente que resolve o usuário (admin ou funcionário) de um token.
+     * @param tokenRevocationRegistry O registro em memória de tokens revogados.
      */
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   PrincipalResolver principalResolver,
+                                   TokenRevocationRegistry tokenRevocationRegistry) {
         this.jwtService = jwtService;
-        this.userDetailsService = userDetailsService;
+        this.principalResolver = principalResolver;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
     }
 
 
@@ -67,14 +79,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         
         final String jwt = authHeader.substring(7);
-        final String userEmail = jwtService.extractUsername(jwt);
+        final VerifiedToken verifiedToken;
+        try {
+            // Valida assinatura e expiração uma única vez (ou reaproveita a verificação em cache)
+            verifiedToken = jwtService.verify(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Token inválido ou expirado: a requisição segue como não autenticada
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final String username = verifiedToken.subject();
+        final Optional<TenantContext> tenantContext = TenantContext.fromToken(verifiedToken);
+
+        // 2. Tokens emitidos antes de uma revogação (ex: usuário desativado) são tratados como inválidos
+        if (tenantContext.isPresent() && isRevogado(tenantContext.get(), verifiedToken)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-        // 2. Se o token contém um email E o usuário ainda não está autenticado nesta requisição
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+        // 3. Se o token contém um subject E o usuário ainda não está autenticado nesta requisição
+        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = principalResolver.resolver(verifiedToken);
 
-            // 3. Se o token for válido (assinatura correta, não expirado, e bate com o usuário)
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            // 4. Só autentica usuários ativos
+            if (userDetails != null && userDetails.isEnabled()) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null, // Senha nula pois a API usa JWT
@@ -82,11 +111,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+
+                // Disponibiliza o pátio do token para as verificações de posse nos serviços
+                tenantContext.ifPresent(TenantContext::bind);
             }
         }
 
-        // 4. Passa a requisição (autenticada ou não) para o próximo filtro na cadeia.
+        // 5. Passa a requisição (autenticada ou não) para o próximo filtro na cadeia.
         filterChain.doFilter(request, response);
     }
+
+
+    /**
+     * Método auxiliar que consulta o registro de revogações em memória (sem acesso ao banco).
+     */
+    private boolean isRevogado(TenantContext tenantContext, VerifiedToken verifiedToken) {
+        Instant emitidoEm = verifiedToken.issuedAt();
+        return emitidoEm == null || tokenRevocationRegistry.isRevogado(tenantContext.usuarioId(), emitidoEm);
+    }
     
 }
\ No newline at end of file
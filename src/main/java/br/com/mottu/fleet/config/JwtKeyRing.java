@@ -0,0 +1,265 @@
+package br.com.mottu.fleet.config;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+
+/**
+ * Conjunto de chaves assimétricas usadas para assinar e verificar os JWTs (RS256 ou EdDSA).
+ * As chaves são lidas de um diretório com um arquivo PEM por chave, onde o nome do arquivo é o "kid"
+ * (ex: 2025-10.pem). Cada arquivo contém um bloco "PUBLIC KEY" e, opcionalmente, um "PRIVATE KEY" (PKCS#8).
+ *
+ * Rotação de chaves: publique a nova chave no diretório (ela passa a aparecer no JWKS), aguarde os
+ * consumidores atualizarem o cache e então aponte 'active-kid' para ela. Chaves antigas podem ficar
+ * apenas com o bloco público até que todos os tokens assinados por elas expirem.
+ * No modo HS256 (padrão) o anel fica vazio e o JwtService continua usando o segredo compartilhado.
+ *
+ * No modo assimétrico, a aplicação não sobe sem uma chave privada no diretório: uma chave gerada por nó
+ * faria cada instância do cluster recusar os tokens das outras. A chave efêmera só é usada com
+ * 'ephemeral-key' ligado (desenvolvimento, instância única).
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private static final Pattern PEM_BLOCK = Pattern.compile(
+            "-----BEGIN ([A-Z ]+)-----([^-]+)-----END \\1-----");
+
+    private final String algorithm;
+    private final Map<String, PublicKey> publicKeys;
+    private final String activeKid;
+    private final PrivateKey activePrivateKey;
+
+    public JwtKeyRing(@Value("${application.security.jwt.algorithm:HS256}") String algorithm,
+                      @Value("${application.security.jwt.keys-dir:}") String keysDir,
+                      @Value("${application.security.jwt.active-kid:}") String activeKid,
+                      @Value("${application.security.jwt.ephemeral-key:false}") boolean permitirChaveEfemera) {
+        this.algorithm = algorithm.toUpperCase().equals("EDDSA") ? "EdDSA" : algorithm.toUpperCase();
+        if (!List.of("HS256", "RS256", "EdDSA").contains(this.algorithm)) {
+            throw new IllegalStateException("Algoritmo JWT não suportado: " + algorithm + ". Use HS256, RS256 ou EdDSA.");
+        }
+
+        if (!isAsymmetric()) {
+            this.publicKeys = Map.of();
+            this.activeKid = null;
+            this.activePrivateKey = null;
+            return;
+        }
+
+        Map<String, PublicKey> publicas = new TreeMap<>();
+        Map<String, PrivateKey> privadas = new TreeMap<>();
+        if (!keysDir.isBlank()) {
+            carregarDiretorio(Path.of(keysDir), publicas, privadas);
+        }
+
+        if (privadas.isEmpty()) {
+            if (!permitirChaveEfemera) {
+                throw new IllegalStateException("Nenhuma chave privada encontrada para " + this.algorithm
+                        + ". Configure application.security.jwt.keys-dir (ou application.security.jwt.ephemeral-key=true, apenas em desenvolvimento).");
+            }
+            // Chave efêmera explicitamente permitida: tokens não sobrevivem a um restart nem valem em outros nós
+            KeyPair par = gerarParEfemero();
+            String kid = "efemera-" + Instant.now().getEpochSecond();
+            publicas.put(kid, par.getPublic());
+            privadas.put(kid, par.getPrivate());
+            log.warn("Nenhuma chave privada encontrada para {}. Usando a chave efêmera '{}' (application.security.jwt.ephemeral-key=true).",
+                    this.algorithm, kid);
+        }
+
+        // Sem 'active-kid', assina com a chave privada de maior kid (ex: a mais recente, se nomeadas por data)
+        String kidAtivo = activeKid.isBlank() ? ((TreeMap<String, PrivateKey>) privadas).lastKey() : activeKid;
+        if (!privadas.containsKey(kidAtivo)) {
+            throw new IllegalStateException("A chave ativa '" + kidAtivo + "' não possui chave privada no diretório de chaves.");
+        }
+
+        this.publicKeys = Collections.unmodifiableMap(publicas);
+        this.activeKid = kidAtivo;
+        this.activePrivateKey = privadas.get(kidAtivo);
+        log.info("Assinatura de JWT com {} usando o kid '{}'. Chaves publicadas no JWKS: {}", this.algorithm, kidAtivo, publicas.keySet());
+    }
+
+
+    /**
+     * @return true se os tokens devem ser assinados com chave assimétrica (RS256 ou EdDSA).
+     */
+    public boolean isAsymmetric() {
+        return !"HS256".equals(algorithm);
+    }
+
+
+    /**
+     * @return O "kid" da chave usada para assinar novos tokens.
+     */
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+
+    /**
+     * @return A chave privada usada para assinar novos tokens.
+     */
+    public PrivateKey getActivePrivateKey() {
+        return activePrivateKey;
+    }
+
+
+    /**
+     * @return O algoritmo de assinatura do jjwt correspondente à configuração.
+     */
+    public SignatureAlgorithm getSignatureAlgorithm() {
+        return "RS256".equals(algorithm) ? Jwts.SIG.RS256 : Jwts.SIG.EdDSA;
+    }
+
+
+    /**
+     * Busca a chave pública de um "kid" para verificar a assinatura de um token.
+     * @param kid O "kid" do cabeçalho do token.
+     * @return A chave pública, ou null se o kid for desconhecido.
+     */
+    public PublicKey getPublicKey(String kid) {
+        return publicKeys.get(kid);
+    }
+
+
+    /**
+     * Monta as chaves públicas no formato JWK (RFC 7517), para o endpoint JWKS.
+     * @return A lista de JWKs, uma por chave publicada.
+     */
+    public List<Map<String, Object>> toJwks() {
+        return publicKeys.entrySet().stream()
+                .map(entry -> toJwk(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    /**
+     * Método auxiliar que converte uma chave pública em JWK.
+     */
+    private Map<String, Object> toJwk(String kid, PublicKey publicKey) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        if (publicKey instanceof RSAPublicKey rsa) {
+            jwk.put("kty", "RSA");
+            jwk.put("n", base64Url(unsigned(rsa.getModulus())));
+            jwk.put("e", base64Url(unsigned(rsa.getPublicExponent())));
+            jwk.put("alg", "RS256");
+        } else {
+            // Ed25519: a codificação X.509 termina com os 32 bytes da chave pública "crua"
+            byte[] encoded = publicKey.getEncoded();
+            jwk.put("kty", "OKP");
+            jwk.put("crv", "Ed25519");
+            jwk.put("x", base64Url(Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length)));
+            jwk.put("alg", "EdDSA");
+        }
+        jwk.put("use", "sig");
+        jwk.put("kid", kid);
+        return jwk;
+    }
+
+
+    /**
+     * Método auxiliar que lê todos os arquivos .pem do diretório de chaves.
+     */
+    private void carregarDiretorio(Path diretorio, Map<String, PublicKey> publicas, Map<String, PrivateKey> privadas) {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            for (Path arquivo : arquivos.filter(p -> p.getFileName().toString().endsWith(".pem")).toList()) {
+                String nome = arquivo.getFileName().toString();
+                String kid = nome.substring(0, nome.length() - ".pem".length());
+                carregarArquivo(kid, Files.readString(arquivo, StandardCharsets.US_ASCII), publicas, privadas);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler o diretório de chaves JWT: " + diretorio, e);
+        }
+    }
+
+
+    /**
+     * Método auxiliar que interpreta os blocos PEM de um arquivo de chave.
+     */
+    private void carregarArquivo(String kid, String pem, Map<String, PublicKey> publicas, Map<String, PrivateKey> privadas) {
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("RS256".equals(algorithm) ? "RSA" : "Ed25519");
+            Matcher matcher = PEM_BLOCK.matcher(pem);
+            while (matcher.find()) {
+                byte[] der = Base64.getMimeDecoder().decode(matcher.group(2));
+                switch (matcher.group(1)) {
+                    case "PUBLIC KEY" -> publicas.put(kid, keyFactory.generatePublic(new X509EncodedKeySpec(der)));
+                    case "PRIVATE KEY" -> privadas.put(kid, keyFactory.generatePrivate(new PKCS8EncodedKeySpec(der)));
+                    default -> log.warn("Bloco PEM '{}' ignorado na chave '{}'.", matcher.group(1), kid);
+                }
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Chave JWT inválida para " + algorithm + ": " + kid, e);
+        }
+        if (privadas.containsKey(kid) && !publicas.containsKey(kid)) {
+            throw new IllegalStateException("A chave '" + kid + "' precisa do bloco PUBLIC KEY para ser publicada no JWKS.");
+        }
+    }
+
+
+    /**
+     * Método auxiliar que gera um par de chaves efêmero para o algoritmo configurado.
+     */
+    private KeyPair gerarParEfemero() {
+        try {
+            if ("RS256".equals(algorithm)) {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                return generator.generateKeyPair();
+            }
+            return KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Não foi possível gerar uma chave efêmera para " + algorithm, e);
+        }
+    }
+
+
+    /**
+     * Método auxiliar que remove o byte de sinal do BigInteger (JWK usa inteiros sem sinal).
+     */
+    private static byte[] unsigned(BigInteger valor) {
+        byte[] bytes = valor.toByteArray();
+        return (bytes.length > 1 && bytes[0] == 0) ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+}
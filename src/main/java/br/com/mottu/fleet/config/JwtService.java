@@ -3,10 +3,22 @@ package br.com.mottu.fleet.config;
 import br.com.mottu.fleet.domain.entity.Funcionario;
 import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
 import br.com.mottu.fleet.domain.enums.Role;
-import br.com.mottu.fleet.domain.repository.PateoRepository;
+import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.domain.enums.TipoUsuario;
+import br.com.mottu.fleet.infrastructure.cache.PateoOwnershipIndex;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -16,29 +28,91 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
 
 
 /**
  * Serviço responsável por todas as operações relacionadas a JWT.
  * Geração, validação e extração de claims dos tokens.
+ * Cada token é verificado (parse + HMAC) uma única vez e o resultado fica em um cache limitado,
+ * indexado pelo digest SHA-256 do token e expirado junto com o próprio token.
+ * A assinatura usa HS256 (segredo compartilhado) ou, se configurado, RS256/EdDSA com o cabeçalho "kid",
+ * permitindo que outros serviços validem os tokens apenas com as chaves públicas do JWKS.
+ * No modo assimétrico, tokens HS256 (sem "kid") só são aceitos com 'accept-legacy-hs256' ligado, durante a
+ * migração; depois que os tokens emitidos antes da troca expirarem, o segredo compartilhado não emite mais
+ * nenhum token aceito por este serviço.
+ * A validade de cada token recebe um desconto aleatório (jitter), para que os dispositivos que
+ * fizeram login juntos (ex: início de turno) não renovem o token todos no mesmo instante.
  */
 @Service
 public class JwtService {
 
-    private final String secretKey;
+    private final SecretKey signInKey;
+    private final JwtKeyRing keyRing;
+    private final boolean aceitarHs256Legado;
+    private final JwtParser jwtParser;
     private final long jwtExpiration;
-    private final PateoRepository pateoRepository;
+    private final long jitterMaximo;
+    private final PateoOwnershipIndex pateoOwnershipIndex;
+    private final Cache<String, VerifiedToken> verifiedTokens;
 
     public JwtService(@Value("${application.security.jwt.secret-key}") String secretKey,
                       @Value("${application.security.jwt.expiration}") long jwtExpiration,
-                      PateoRepository pateoRepository) {
-        this.secretKey = secretKey;
+                      @Value("${application.security.jwt.expiration-jitter-percent:10}") int jitterPercentual,
+                      @Value("${application.security.jwt.verified-cache-size:10000}") long verifiedCacheSize,
+                      @Value("${application.security.jwt.accept-legacy-hs256:false}") boolean aceitarHs256Legado,
+                      PateoOwnershipIndex pateoOwnershipIndex,
+                      JwtKeyRing keyRing) {
+        // Chaves e parser são imutáveis e thread-safe: construídos uma única vez
+        this.signInKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.keyRing = keyRing;
+        this.aceitarHs256Legado = aceitarHs256Legado;
+        this.jwtParser = Jwts.parser().keyLocator(new LocalizadorDeChave()).build();
         this.jwtExpiration = jwtExpiration;
-        this.pateoRepository = pateoRepository;
+        this.jitterMaximo = jwtExpiration * Math.max(0, Math.min(jitterPercentual, 50)) / 100;
+        this.pateoOwnershipIndex = pateoOwnershipIndex;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new ExpiraJuntoComToken())
+                .build();
+    }
+
+
+    /**
+     * Verifica um token (assinatura e expiração) e devolve todas as suas claims.
+     * Tokens já verificados são servidos do cache, sem uma nova verificação de assinatura.
+     * @param token O token JWT.
+     * @return O VerifiedToken com as claims do token.
+     * @throws io.jsonwebtoken.JwtException se o token for inválido ou estiver expirado.
+     */
+    public VerifiedToken verify(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return cached;
+            }
+            verifiedTokens.invalidate(digest);
+            throw new ExpiredJwtException(null, cached.claims(), "Token expirado.");
+        }
+
+        Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims, claims.getExpiration().toInstant());
+        verifiedTokens.put(digest, verified);
+        return verified;
     }
 
 
@@ -48,7 +122,7 @@ public class JwtService {
      * @return O subject do token como uma String.
      */
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
 
 
@@ -73,30 +147,43 @@ public class JwtService {
 
         // Adiciona as claims
         if (userDetails instanceof UsuarioAdmin admin) {
+            extraClaims.put("typ", TipoUsuario.ADMIN.name());
+            extraClaims.put("id", admin.getId().toString());
             extraClaims.put("nome", admin.getNome());
             extraClaims.put("role", admin.getRole().name());
+            extraClaims.put("status", admin.getStatus().name());
 
             // Regra de Negócio: Se for um admin de pátio, adiciona o ID do pátio ao token.
             if (Role.PATEO_ADMIN.equals(admin.getRole())) {
-                pateoRepository.findFirstByGerenciadoPorId(admin.getId())
-                        .ifPresent(pateo -> extraClaims.put("pateoId", pateo.getId()));
+                pateoOwnershipIndex.pateoAtivoDoAdmin(admin.getId())
+                        .ifPresent(pateoId -> extraClaims.put("pateoId", pateoId));
             }
 
         } else if (userDetails instanceof Funcionario funcionario) {
+            extraClaims.put("typ", TipoUsuario.FUNCIONARIO.name());
+            extraClaims.put("id", funcionario.getId().toString());
             extraClaims.put("nome", funcionario.getNome());
             extraClaims.put("role", funcionario.getCargo().name()); // cargo = enum Role
+            extraClaims.put("status", funcionario.getStatus().name());
             if (funcionario.getPateo() != null) {
                 extraClaims.put("pateoId", funcionario.getPateo().getId());
             }
         }
 
-        return Jwts.builder()
+        long agora = System.currentTimeMillis();
+        JwtBuilder builder = Jwts.builder()
                 .claims(extraClaims)
                 .subject(userDetails.getUsername())
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSignInKey())
-                .compact();
+                .issuedAt(new Date(agora))
+                .expiration(new Date(agora + validadeComJitter()));
+
+        if (keyRing.isAsymmetric()) {
+            return builder
+                    .header().keyId(keyRing.getActiveKid()).and()
+                    .signWith(keyRing.getActivePrivateKey(), keyRing.getSignatureAlgorithm())
+                    .compact();
+        }
+        return builder.signWith(signInKey).compact();
     }
 
 
@@ -110,9 +197,8 @@ public class JwtService {
      */
     public boolean isTokenValid(String token, @Nullable UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            boolean isUsernameValid = (userDetails == null) || username.equals(userDetails.getUsername());
-            return isUsernameValid && !isTokenExpired(token);
+            final VerifiedToken verified = verify(token);
+            return (userDetails == null) || verified.subject().equals(userDetails.getUsername());
         } catch (Exception e) {
             return false;
         }
@@ -126,38 +212,128 @@ public class JwtService {
      * @return O valor do claim.
      */
     public <T> T extractClaim(String token, @NonNull Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(verify(token).claims());
     }
 
 
     /**
-     * Método auxiliar que extrai todas as claims de um token.
-     * Ele valida a assinatura do token no processo.
+     * Reconstrói o administrador autenticado diretamente a partir das claims de um token já verificado,
+     * sem consultar o banco. O objeto retornado é "destacado" (não gerenciado pelo JPA) e não possui senha.
+     * @param claims As claims de um token com assinatura e expiração já validadas.
+     * @return Optional com o UsuarioAdmin, ou vazio se o token não carregar as claims necessárias
+     *         (tokens legados, emitidos antes da claim "id") ou não for de um administrador.
      */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public Optional<UsuarioAdmin> buildAdminFromClaims(Claims claims) {
+        String typ = claims.get("typ", String.class);
+        if (typ != null && !TipoUsuario.ADMIN.name().equals(typ)) {
+            return Optional.empty();
+        }
+
+        String id = claims.get("id", String.class);
+        String role = claims.get("role", String.class);
+        String status = claims.get("status", String.class);
+        if (id == null || role == null || status == null) {
+            return Optional.empty();
+        }
+
+        Role roleAdmin;
+        try {
+            roleAdmin = Role.valueOf(role);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty(); // Claim "role" com um cargo de funcionário
+        }
+
+        UsuarioAdmin admin = new UsuarioAdmin();
+        admin.setId(UUID.fromString(id));
+        admin.setEmail(claims.getSubject());
+        admin.setNome(claims.get("nome", String.class));
+        admin.setRole(roleAdmin);
+        admin.setStatus(Status.valueOf(status));
+        return Optional.of(admin);
     }
 
 
     /**
-     * Método auxiliar que verifica se um token expirou.
+     * Extrai todas as claims de um token, validando assinatura e expiração no processo.
+     * @param token O token JWT.
+     * @return As claims do token.
+     * @throws io.jsonwebtoken.JwtException se o token for inválido ou estiver expirado.
      */
-    private boolean isTokenExpired(String token) {
-        return extractClaim(token, Claims::getExpiration).before(new Date());
+    public Claims extractAllClaims(String token) {
+        return verify(token).claims();
     }
 
 
     /**
-     * Método auxiliar que gera a chave de assinatura a partir da secret key em texto.
+     * Método auxiliar que sorteia a validade de um novo token: a expiração configurada menos um desconto
+     * aleatório de até 'expiration-jitter-percent' (limitado a 50%). O jitter só encurta o token, nunca
+     * o estende além do configurado.
      */
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    private long validadeComJitter() {
+        if (jitterMaximo <= 0) {
+            return jwtExpiration;
+        }
+        return jwtExpiration - ThreadLocalRandom.current().nextLong(jitterMaximo + 1);
     }
-    
-}
\ No newline at end of file
+
+
+    /**
+     * Método auxiliar que calcula a chave do cache: o SHA-256 do token, para não manter o token em memória.
+     */
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM.", e);
+        }
+    }
+
+
+    /**
+     * Escolhe a chave de verificação pelo cabeçalho do token: tokens com "kid" usam a chave pública
+     * correspondente do JwtKeyRing; tokens sem "kid" (HS256) usam o segredo apenas no modo HS256 ou,
+     * no modo assimétrico, se 'accept-legacy-hs256' estiver ligado (tokens emitidos antes da migração).
+     */
+    private class LocalizadorDeChave extends LocatorAdapter<Key> {
+
+        @Override
+        protected Key locate(JwsHeader header) {
+            String kid = header.getKeyId();
+            if (kid == null) {
+                if (keyRing.isAsymmetric() && !aceitarHs256Legado) {
+                    throw new UnsupportedJwtException("Token sem 'kid' (HS256) não é aceito com " + keyRing.getSignatureAlgorithm().getId() + ".");
+                }
+                return signInKey;
+            }
+            Key publicKey = keyRing.getPublicKey(kid);
+            if (publicKey == null) {
+                throw new UnsupportedJwtException("Chave de assinatura desconhecida: " + kid);
+            }
+            return publicKey;
+        }
+    }
+
+
+    /**
+     * Política de expiração do cache: cada entrada vive exatamente até o "exp" do seu token.
+     */
+    private static class ExpiraJuntoComToken implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+}
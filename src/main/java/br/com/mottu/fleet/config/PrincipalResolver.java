@@ -0,0 +1,153 @@
+package br.com.mottu.fleet.config;
+
+import br.com.mottu.fleet.domain.enums.TipoUsuario;
+import br.com.mottu.fleet.domain.repository.FuncionarioRepository;
+import br.com.mottu.fleet.domain.repository.UsuarioAdminRepository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+
+/**
+ * Resolve o principal (UserDetails) de um token JWT já verificado, de acordo com a claim "typ".
+ * Administradores são reconstruídos direto das claims (sem banco), a menos que a busca no banco
+ * tenha sido habilitada. Funcionários são carregados por ID e mantidos em um cache limitado com TTL,
+ * invalidado pelos serviços sempre que o cadastro do usuário muda.
+ */
+@Component
+public class PrincipalResolver {
+
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+    private final UsuarioAdminRepository usuarioAdminRepository;
+    private final FuncionarioRepository funcionarioRepository;
+    private final boolean loadUserFromDatabase;
+    private final Cache<ChavePrincipal, Optional<UserDetails>> principals;
+
+    public PrincipalResolver(JwtService jwtService,
+                             UserDetailsService userDetailsService,
+                             UsuarioAdminRepository usuarioAdminRepository,
+                             FuncionarioRepository funcionarioRepository,
+                             @Value("${application.security.jwt.load-user-from-database:false}") boolean loadUserFromDatabase,
+                             @Value("${application.security.principal-cache.max-size:10000}") long maxSize,
+                             @Value("${application.security.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.usuarioAdminRepository = usuarioAdminRepository;
+        this.funcionarioRepository = funcionarioRepository;
+        this.loadUserFromDatabase = loadUserFromDatabase;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+
+    /**
+     * Resolve o principal de um token já verificado.
+     * @param token O token verificado pelo JwtService.
+     * @return O UserDetails correspondente, ou null se o usuário não existir mais.
+     */
+    @Nullable
+    public UserDetails resolver(VerifiedToken token) {
+        TipoUsuario tipo = parseTipo(token.claim("typ", String.class));
+        String id = token.claim("id", String.class);
+
+        // Tokens legados (sem "typ"/"id") só existiam para admins: busca pelo email
+        if (tipo == null || id == null) {
+            return carregarPorUsername(token.subject());
+        }
+
+        if (tipo == TipoUsuario.ADMIN && !loadUserFromDatabase) {
+            Optional<? extends UserDetails> fromClaims = jwtService.buildAdminFromClaims(token.claims());
+            if (fromClaims.isPresent()) {
+                return fromClaims.get();
+            }
+        }
+
+        ChavePrincipal chave = new ChavePrincipal(tipo, UUID.fromString(id));
+        return principals.get(chave, this::carregarDoBanco).orElse(null);
+    }
+
+
+    /**
+     * Remove um usuário do cache logo após o commit da transação atual
+     * (ou imediatamente, se não houver transação ativa).
+     * Deve ser chamado sempre que dados que compõem o principal (status, cargo, nome, telefone) mudarem.
+     * @param tipo O tipo do usuário.
+     * @param id O UUID do usuário.
+     */
+    public void invalidar(TipoUsuario tipo, UUID id) {
+        ChavePrincipal chave = new ChavePrincipal(tipo, id);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            principals.invalidate(chave);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                principals.invalidate(chave);
+            }
+        });
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    /**
+     * Método auxiliar que carrega o usuário do banco pelo ID, de acordo com o tipo.
+     */
+    private Optional<UserDetails> carregarDoBanco(ChavePrincipal chave) {
+        return switch (chave.tipo()) {
+            case ADMIN -> usuarioAdminRepository.findById(chave.id()).map(UserDetails.class::cast);
+            case FUNCIONARIO -> funcionarioRepository.findById(chave.id()).map(UserDetails.class::cast);
+        };
+    }
+
+
+    /**
+     * Método auxiliar para o caminho legado, via UserDetailsService (email do admin).
+     */
+    private UserDetails carregarPorUsername(String username) {
+        try {
+            return userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Método auxiliar que converte a claim "typ", tolerando valores desconhecidos.
+     */
+    private static TipoUsuario parseTipo(String typ) {
+        if (typ == null) {
+            return null;
+        }
+        try {
+            return TipoUsuario.valueOf(typ);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Chave do cache de principals: tipo do usuário + ID.
+     */
+    private record ChavePrincipal(TipoUsuario tipo, UUID id) {}
+
+}
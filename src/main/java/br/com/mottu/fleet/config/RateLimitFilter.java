@@ -0,0 +1,369 @@
+package br.com.mottu.fleet.config;
+
+import br.com.mottu.fleet.application.dto.ErrorResponse;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+
+/**
+ * Filtro que limita a taxa de requisições aos endpoints públicos de autenticação
+ * (Magic Link, login da API, troca de AuthCode, renovação de tokens e login do painel).
+ * Todos são permitAll e fazem trabalho no banco (ou BCrypt, no login).
+ *
+ * Cada endpoint tem dois limites, em requisições por minuto: um por IP do cliente e outro por credencial
+ * (e-mail do login ou prefixo do token). Os baldes usam GCRA (Generic Cell Rate Algorithm): cada balde é um
+ * único AtomicLong com o "instante teórico de chegada", atualizado por CAS, sem locks. Os baldes ficam em um
+ * cache Caffeine limitado, que é segmentado internamente e descarta baldes ociosos.
+ *
+ * Roda antes da cadeia do Spring Security. O balde por IP usa request.getRemoteAddr(), já resolvido pelo
+ * RemoteIpValve do Tomcat (server.forward-headers-strategy=NATIVE): o X-Forwarded-For só é considerado
+ * quando a conexão vem de um proxy confiável, e vale o salto mais à direita que não é proxy. Assim, um
+ * cliente que troca o cabeçalho a cada requisição continua no mesmo balde.
+ * O estado é local ao nó: em um cluster, o limite efetivo é multiplicado pelo número de nós.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final int TAMANHO_MAXIMO_CORPO = 16 * 1024;
+    private static final int TAMANHO_PREFIXO_TOKEN = 16;
+    private static final long UM_MINUTO_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * Um endpoint limitado. Os limites são em requisições por minuto; 0 desliga o limite.
+     * @param credencial Extrai a credencial da requisição (pode devolver null).
+     */
+    private record Regra(String nome, String metodo, String caminho, int limitePorIp, int limitePorCredencial,
+                         Function<CorpoReutilizavel, String> credencial) {}
+
+    private final boolean habilitado;
+    private final List<Regra> regras;
+    private final Cache<String, Balde> baldes;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${application.rate-limit.habilitado:true}") boolean habilitado,
+                           @Value("${application.rate-limit.max-chaves:100000}") long maxChaves,
+                           @Value("${application.rate-limit.validar-token:30,5}") int[] validarToken,
+                           @Value("${application.rate-limit.login:20,5}") int[] login,
+                           @Value("${application.rate-limit.exchange-token:30,3}") int[] exchangeToken,
+                           @Value("${application.rate-limit.refresh-token:60,6}") int[] refreshToken,
+                           @Value("${application.rate-limit.login-painel:20,5}") int[] loginPainel) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.habilitado = habilitado;
+        this.regras = List.of(
+                new Regra("validar-token", "GET", "/auth/validar-token", validarToken[0], validarToken[1],
+                        r -> prefixo(r.getParameter("valor"))),
+                new Regra("login", "POST", "/api/auth/login", login[0], login[1],
+                        r -> minusculo(campoJson(r, "email"))),
+                new Regra("exchange-token", "POST", "/api/auth/exchange-token", exchangeToken[0], exchangeToken[1],
+                        r -> prefixo(campoJson(r, "code"))),
+                new Regra("refresh-token", "POST", "/api/auth/refresh-token", refreshToken[0], refreshToken[1],
+                        r -> prefixo(campoJson(r, "refreshToken"))),
+                new Regra("login-painel", "POST", "/login", loginPainel[0], loginPainel[1],
+                        r -> minusculo(r.getParameter("username")))
+        );
+        // Um balde ocioso por 2 minutos já está cheio de novo: pode ser descartado sem mudar o resultado
+        this.baldes = Caffeine.newBuilder()
+                .maximumSize(maxChaves)
+                .expireAfterAccess(Duration.ofMinutes(2))
+                .build();
+    }
+
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !habilitado || regraDe(request) == null;
+    }
+
+
+    /**
+     * Consome uma ficha do balde do IP e, se houver credencial, do balde da credencial.
+     * Se algum estiver vazio, responde 429 com Retry-After e não repassa a requisição.
+     */
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Regra regra = regraDe(request);
+        CorpoReutilizavel requisicao = new CorpoReutilizavel(request);
+
+        long espera = consumir(regra.nome() + "|ip|" + request.getRemoteAddr(), regra.limitePorIp());
+        String tipo = "ip";
+        if (espera == 0 && regra.limitePorCredencial() > 0) {
+            String credencial = regra.credencial().apply(requisicao);
+            if (credencial != null) {
+                espera = consumir(regra.nome() + "|cred|" + credencial, regra.limitePorCredencial());
+                tipo = "credencial";
+            }
+        }
+
+        if (espera > 0) {
+            rejeitar(request, response, regra, tipo, espera);
+            return;
+        }
+        filterChain.doFilter(requisicao, response);
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    private Regra regraDe(HttpServletRequest request) {
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        for (Regra regra : regras) {
+            if (regra.metodo().equals(request.getMethod()) && regra.caminho().equals(caminho)) {
+                return regra;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Método auxiliar que tenta consumir uma ficha do balde da chave.
+     * @return 0 se a requisição foi aceita, ou o tempo de espera em nanossegundos até a próxima ficha.
+     */
+    private long consumir(String chave, int limitePorMinuto) {
+        if (limitePorMinuto <= 0) {
+            return 0;
+        }
+        return baldes.get(chave, k -> new Balde()).consumir(UM_MINUTO_NANOS / limitePorMinuto, UM_MINUTO_NANOS);
+    }
+
+
+    /**
+     * Método auxiliar que escreve a resposta 429 no mesmo formato do GlobalExceptionHandler.
+     */
+    private void rejeitar(HttpServletRequest request, HttpServletResponse response,
+                          Regra regra, String tipo, long esperaNanos) throws IOException {
+        Counter.builder("fleet.rate-limit.rejeitados")
+                .description("Requisições rejeitadas com 429 pelo limite de taxa dos endpoints de autenticação")
+                .tag("endpoint", regra.nome())
+                .tag("limite", tipo)
+                .register(meterRegistry)
+                .increment();
+
+        long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(esperaNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        ErrorResponse corpo = new ErrorResponse(
+                Instant.now(),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Muitas Requisições",
+                "Muitas tentativas em pouco tempo. Tente novamente em " + segundos + " segundo(s).",
+                request.getRequestURI());
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundos));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), corpo);
+    }
+
+
+    /**
+     * Método auxiliar que lê um campo de texto do corpo JSON, sem consumir o corpo para o controller.
+     */
+    private String campoJson(CorpoReutilizavel request, String campo) {
+        byte[] corpo = request.getCorpo();
+        if (corpo.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode valor = objectMapper.readTree(corpo).get(campo);
+            return (valor != null && valor.isTextual()) ? valor.asText() : null;
+        } catch (IOException e) {
+            return null; // JSON inválido: o controller responde 400; aqui vale só o limite por IP
+        }
+    }
+
+
+    private static String prefixo(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        return valor.length() <= TAMANHO_PREFIXO_TOKEN ? valor : valor.substring(0, TAMANHO_PREFIXO_TOKEN);
+    }
+
+
+    private static String minusculo(String valor) {
+        return (valor == null || valor.isBlank()) ? null : valor.trim().toLowerCase(Locale.ROOT);
+    }
+
+
+    /**
+     * Balde GCRA: guarda apenas o instante teórico de chegada (TAT) da próxima requisição.
+     * Uma requisição é aceita se o TAT não estiver mais de 'tolerancia' no futuro; ao ser aceita,
+     * o TAT avança um intervalo de emissão. Equivale a um token bucket com capacidade tolerancia/intervalo.
+     */
+    static final class Balde {
+
+        private final AtomicLong tat = new AtomicLong(System.nanoTime());
+
+        /**
+         * @param intervalo O intervalo de emissão (período / limite), em nanossegundos.
+         * @param periodo A janela do limite (e a rajada máxima), em nanossegundos.
+         * @return 0 se a requisição foi aceita, ou a espera em nanossegundos.
+         */
+        long consumir(long intervalo, long periodo) {
+            long tolerancia = periodo - intervalo;
+            while (true) {
+                long agora = System.nanoTime();
+                long atual = tat.get();
+                long base = Math.max(atual, agora);
+                long permitidoEm = base - tolerancia;
+                if (permitidoEm > agora) {
+                    return permitidoEm - agora;
+                }
+                if (tat.compareAndSet(atual, base + intervalo)) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Wrapper que lê o corpo da requisição (até 16 KiB) uma única vez, para que o filtro extraia a
+     * credencial e o controller ainda consiga ler o corpo completo depois.
+     */
+    private static final class CorpoReutilizavel extends HttpServletRequestWrapper {
+
+        private byte[] corpo;
+        private CorpoInputStream restante;
+
+        CorpoReutilizavel(HttpServletRequest request) {
+            super(request);
+        }
+
+        byte[] getCorpo() {
+            if (corpo == null) {
+                try {
+                    InputStream original = super.getInputStream();
+                    byte[] lido = original.readNBytes(TAMANHO_MAXIMO_CORPO + 1);
+                    // Corpos acima do limite não são interpretados, mas continuam disponíveis para o controller
+                    corpo = lido.length > TAMANHO_MAXIMO_CORPO ? new byte[0] : lido;
+                    restante = new CorpoInputStream(new SequenceInputStream(new ByteArrayInputStream(lido), original));
+                } catch (IOException e) {
+                    corpo = new byte[0];
+                }
+            }
+            return corpo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (restante == null) {
+                return super.getInputStream();
+            }
+            return restante;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (restante == null) {
+                return super.getReader();
+            }
+            Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+
+
+    /**
+     * Stream entregue ao controller: o prefixo já lido pelo filtro seguido do restante do corpo original.
+     * O fim do corpo é marcado quando uma leitura devolve -1, e não pelo available(), que fica zerado
+     * assim que o prefixo em memória se esgota, mesmo com bytes ainda por vir do original.
+     */
+    private static final class CorpoInputStream extends ServletInputStream {
+
+        private final InputStream fonte;
+        private boolean fim;
+
+        CorpoInputStream(InputStream fonte) {
+            this.fonte = fonte;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int lido = fonte.read();
+            fim = lido == -1;
+            return lido;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int lidos = fonte.read(b, off, len);
+            fim = lidos == -1;
+            return lidos;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return fim;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        /**
+         * Como a leitura aqui é sempre bloqueante (isReady() é sempre true), o listener é notificado na hora:
+         * lê o que quiser em onDataAvailable() e, se tiver chegado ao fim do corpo, recebe onAllDataRead().
+         */
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            try {
+                readListener.onDataAvailable();
+                if (fim) {
+                    readListener.onAllDataRead();
+                }
+            } catch (IOException e) {
+                readListener.onError(e);
+            }
+        }
+    }
+
+}
@@ -1,8 +1,13 @@
 package br.com.mottu.fleet.config;
 
+import br.com.mottu.fleet.domain.exception.LoginOverloadedException;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -11,14 +16,18 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -40,11 +49,20 @@ public class SecurityConfig {
 
     /**
      * Define o codificador de senhas padrão para a aplicação.
-     * @return Uma instância do BCryptPasswordEncoder.
+     * Novos hashes são gravados com o prefixo {bcrypt} e o custo configurado. Hashes antigos, sem prefixo,
+     * continuam válidos e são re-codificados no próximo login (ver AuthenticationService.updatePassword),
+     * assim como hashes com custo menor que o atual. Isso permite ajustar o custo sem invalidar senhas.
+     *
+     * @param bcryptStrength O fator de custo do BCrypt (log2 das rodadas).
+     * @return Um DelegatingPasswordEncoder com BCrypt como algoritmo padrão.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${application.security.password.bcrypt-strength:10}") int bcryptStrength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        // Hashes legados foram gravados sem o prefixo "{bcrypt}"
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
 
@@ -113,6 +131,8 @@ public class SecurityConfig {
     /**
      * Define a cadeia de filtros de segurança para o Painel Web (Stateful).
      * Esta cadeia tem prioridade 2 e se aplica a todas as outras rotas.
+     * A sessão HTTP é mantida no MySQL pelo Spring Session JDBC (e não na memória do Tomcat),
+     * então o painel pode rodar em várias instâncias sem sticky session.
      *
      * @param http O objeto HttpSecurity para configurar a segurança.
      * @return A SecurityFilterChain configurada.
@@ -132,12 +152,14 @@ public class SecurityConfig {
                 .requestMatchers("/css/**", "/js/**", "/error").permitAll()
                 .requestMatchers("/login").permitAll()
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-resources/**").permitAll()
+                .requestMatchers("/.well-known/jwks.json").permitAll()
                 .requestMatchers("/admin/**").hasRole("SUPER_ADMIN")
                 .anyRequest().authenticated()
             )
             .formLogin(form -> form
                 .loginPage("/login")
                 .defaultSuccessUrl("/admin/dashboard", true)
+                .failureHandler(loginFailureHandler())
                 .permitAll()
             )
             .logout(logout -> logout
@@ -147,4 +169,23 @@ public class SecurityConfig {
 
         return http.build();
     }
+
+
+    // --- Métodos Auxiliares ---
+
+    /**
+     * Método auxiliar que trata falhas do formLogin: responde 429 quando o pool de verificação
+     * de senhas está saturado e mantém o redirect padrão ("/login?error") nos demais casos.
+     */
+    private AuthenticationFailureHandler loginFailureHandler() {
+        SimpleUrlAuthenticationFailureHandler padrao = new SimpleUrlAuthenticationFailureHandler("/login?error");
+        return (request, response, exception) -> {
+            if (exception instanceof LoginOverloadedException) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), exception.getMessage());
+                return;
+            }
+            padrao.onAuthenticationFailure(request, response, exception);
+        };
+    }
 }
\ No newline at end of file
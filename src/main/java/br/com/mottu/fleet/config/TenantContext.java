@@ -0,0 +1,89 @@
+package br.com.mottu.fleet.config;
+
+import br.com.mottu.fleet.domain.enums.TipoUsuario;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+import java.util.UUID;
+
+
+/**
+ * Contexto de tenant (pátio) da requisição atual, montado pelo JwtAuthenticationFilter
+ * a partir das claims já verificadas do token ("typ", "id" e "pateoId").
+ * Fica guardado como atributo da requisição, então vive exatamente o tempo dela.
+ *
+ * @param tipo O tipo do usuário dono do token.
+ * @param usuarioId O ID do usuário dono do token.
+ * @param pateoId O ID do pátio do usuário (pode ser nulo, ex: SUPER_ADMIN).
+ */
+public record TenantContext(
+    TipoUsuario tipo,
+    UUID usuarioId,
+    UUID pateoId
+) {
+
+    private static final String ATRIBUTO = TenantContext.class.getName();
+
+
+    /**
+     * Monta o contexto a partir de um token já verificado.
+     * @param token O token verificado.
+     * @return Optional com o contexto, ou vazio para tokens legados (sem as claims "typ" e "id").
+     */
+    public static Optional<TenantContext> fromToken(VerifiedToken token) {
+        String typ = token.claim("typ", String.class);
+        String id = token.claim("id", String.class);
+        if (typ == null || id == null) {
+            return Optional.empty();
+        }
+        String pateoId = token.claim("pateoId", String.class);
+        try {
+            return Optional.of(new TenantContext(
+                    TipoUsuario.valueOf(typ),
+                    UUID.fromString(id),
+                    pateoId != null ? UUID.fromString(pateoId) : null));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+
+    /**
+     * Associa o contexto à requisição atual.
+     * @param context O contexto montado a partir do token.
+     */
+    public static void bind(TenantContext context) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(ATRIBUTO, context, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+
+    /**
+     * Retorna o contexto da requisição atual.
+     * @return Optional com o contexto, ou vazio fora de uma requisição autenticada por JWT.
+     */
+    public static Optional<TenantContext> current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((TenantContext) attributes.getAttribute(ATRIBUTO, RequestAttributes.SCOPE_REQUEST));
+    }
+
+
+    /**
+     * Retorna o pátio do token da requisição atual, desde que o token pertença ao usuário informado.
+     * @param usuarioId O ID do usuário autenticado (ex: adminLogado.getId()).
+     * @return Optional com o ID do pátio vindo do token.
+     */
+    public static Optional<UUID> pateoIdDoUsuario(UUID usuarioId) {
+        return current()
+                .filter(context -> context.usuarioId().equals(usuarioId))
+                .map(TenantContext::pateoId);
+    }
+
+}
@@ -0,0 +1,32 @@
+package br.com.mottu.fleet.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+
+/**
+ * Utilitário para o hash dos tokens opacos (Magic Link e Refresh Token) guardados no banco.
+ * O banco armazena apenas o SHA-256 (BINARY(32)) do valor entregue ao usuário; a busca é feita
+ * calculando o hash do valor recebido. Como os tokens são aleatórios, um hash sem salt é suficiente.
+ */
+public final class TokenHashing {
+
+    private TokenHashing() {}
+
+
+    /**
+     * Calcula o SHA-256 do valor do token, como gravado na coluna 'token_hash'.
+     * Equivalente ao UNHEX(SHA2(token, 256)) usado na migração dos dados existentes.
+     * @param valor O valor do token recebido do cliente.
+     * @return Os 32 bytes do hash.
+     */
+    public static byte[] sha256(String valor) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(valor.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível.", e);
+        }
+    }
+
+}
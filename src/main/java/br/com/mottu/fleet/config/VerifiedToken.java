@@ -0,0 +1,50 @@
+package br.com.mottu.fleet.config;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+
+/**
+ * Representa um token JWT cuja assinatura já foi verificada.
+ * Resultado de um único parse, expõe todas as claims sem precisar verificar a assinatura novamente.
+ *
+ * @param subject O "subject" do token (email do admin ou telefone do funcionário).
+ * @param claims Todas as claims do token.
+ * @param expiresAt Instante de expiração do token.
+ */
+public record VerifiedToken(
+    String subject,
+    Claims claims,
+    Instant expiresAt
+) {
+
+    /**
+     * Extrai uma claim específica do token.
+     * @param name O nome da claim.
+     * @param type O tipo esperado do valor.
+     * @return O valor da claim, ou null se ela não existir.
+     */
+    public <T> T claim(String name, Class<T> type) {
+        return claims.get(name, type);
+    }
+
+
+    /**
+     * Retorna o instante de emissão do token (claim "iat").
+     * @return O instante de emissão, ou null se o token não tiver a claim.
+     */
+    public Instant issuedAt() {
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
+    }
+
+
+    /**
+     * Verifica se o token já expirou.
+     * @return true se o instante de expiração já passou.
+     */
+    public boolean isExpired() {
+        return expiresAt.isBefore(Instant.now());
+    }
+
+}
@@ -1,5 +1,7 @@
 package br.com.mottu.fleet.domain.entity;
 
+import br.com.mottu.fleet.infrastructure.persistence.UuidV7;
+
 import jakarta.persistence.*;
 
 import org.hibernate.annotations.CreationTimestamp;
@@ -18,7 +20,7 @@ import java.util.UUID;
 public class AuthCode {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false, unique = true)
@@ -2,6 +2,7 @@ package br.com.mottu.fleet.domain.entity;
 
 import br.com.mottu.fleet.domain.enums.Cargo;
 import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.infrastructure.persistence.UuidV7;
 
 import jakarta.persistence.*;
 
@@ -29,7 +30,7 @@ import java.util.UUID;
 public class Funcionario implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false, unique = true)
@@ -55,7 +56,8 @@ public class Funcionario implements UserDetails {
     @Column(name = "foto_url")
     private String fotoUrl;
 
-    @Column(name = "ultimo_login")
+    // Gravado apenas pelo UltimoLoginBuffer (write-behind), nunca pelo JPA
+    @Column(name = "ultimo_login", insertable = false, updatable = false)
     private Instant ultimoLogin;
 
     @CreationTimestamp
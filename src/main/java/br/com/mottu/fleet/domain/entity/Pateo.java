@@ -1,6 +1,7 @@
 package br.com.mottu.fleet.domain.entity;
 
 import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.infrastructure.persistence.UuidV7;
 
 import jakarta.persistence.*;
 
@@ -22,7 +23,7 @@ import java.util.HashSet;
 public class Pateo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false)
@@ -1,5 +1,7 @@
 package br.com.mottu.fleet.domain.entity;
 
+import br.com.mottu.fleet.infrastructure.persistence.UuidV7;
+
 import jakarta.persistence.*;
 
 import org.hibernate.annotations.CreationTimestamp;
@@ -12,40 +14,65 @@ import java.util.UUID;
  * Entidade que representa um Refresh Token de longa duração.
  * É usado pelo app do funcionário para obter um novo Access Token (JWT)
  * quando o antigo expirar, permitindo uma "sessão permanente" do app de funcionário.
+ *
+ * Cada linha é uma "família": a sessão de um dispositivo. A rotação atualiza o valor do token
+ * na própria linha (incrementando a 'geracao'), e o valor entregue ao app carrega o 'familiaId'.
+ * Assim, um token antigo da família que reaparece é detectado como reuso e a família é revogada.
  */
 @Entity
 @Table(name = "refresh_token")
 public class RefreshToken {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
-    @Column(nullable = false, unique = true)
-    private String token;
+    // SHA-256 do valor entregue ao usuário (ver TokenHashing); o valor em si não é persistido
+    @Column(name = "token_hash", nullable = false, unique = true, columnDefinition = "BINARY(32)")
+    private byte[] tokenHash;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "funcionario_id", nullable = false)
     private Funcionario funcionario;
 
+    @Column(name = "familia_id", nullable = false, unique = true, updatable = false)
+    private UUID familiaId;
+
+    @Column(nullable = false)
+    private int geracao;
+
     @Column(name = "expira_em", nullable = false)
     private Instant expiraEm;
 
+    @Column(name = "rotacionado_em")
+    private Instant rotacionadoEm;
+
+    @Column(name = "revogado_em")
+    private Instant revogadoEm;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
     
 
     public UUID getId() { return id; }
-    public String getToken() { return token; }
+    public byte[] getTokenHash() { return tokenHash; }
     public Funcionario getFuncionario() { return funcionario; }
+    public UUID getFamiliaId() { return familiaId; }
+    public int getGeracao() { return geracao; }
     public Instant getExpiraEm() { return expiraEm; }
+    public Instant getRotacionadoEm() { return rotacionadoEm; }
+    public Instant getRevogadoEm() { return revogadoEm; }
     public Instant getCreatedAt() { return createdAt; }
 
     public void setId(UUID id) { this.id = id; }
-    public void setToken(String token) { this.token = token; }
+    public void setTokenHash(byte[] tokenHash) { this.tokenHash = tokenHash; }
     public void setFuncionario(Funcionario funcionario) { this.funcionario = funcionario; }
+    public void setFamiliaId(UUID familiaId) { this.familiaId = familiaId; }
+    public void setGeracao(int geracao) { this.geracao = geracao; }
     public void setExpiraEm(Instant expiraEm) { this.expiraEm = expiraEm; }
+    public void setRotacionadoEm(Instant rotacionadoEm) { this.rotacionadoEm = rotacionadoEm; }
+    public void setRevogadoEm(Instant revogadoEm) { this.revogadoEm = revogadoEm; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package br.com.mottu.fleet.domain.entity;
 
+import br.com.mottu.fleet.infrastructure.persistence.UuidV7;
+
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.util.UUID;
@@ -17,11 +19,12 @@ import org.hibernate.annotations.CreationTimestamp;
 public class TokenAcesso {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
-    @Column(nullable = false, unique = true)
-    private String token;
+    // SHA-256 do valor entregue ao usuário (ver TokenHashing); o valor em si não é persistido
+    @Column(name = "token_hash", nullable = false, unique = true, columnDefinition = "BINARY(32)")
+    private byte[] tokenHash;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "funcionario_id", nullable = false)
@@ -47,7 +50,7 @@ public class TokenAcesso {
     
 
     public UUID getId() { return id; }
-    public String getToken() { return token; }
+    public byte[] getTokenHash() { return tokenHash; }
     public Funcionario getFuncionario() { return funcionario; }
     public Instant getCriadoEm() { return criadoEm; }
     public Instant getExpiraEm() { return expiraEm; }
@@ -56,7 +59,7 @@ public class TokenAcesso {
     public Instant getUsadoEm() { return usadoEm; }
 
     public void setId(UUID id) { this.id = id; }
-    public void setToken(String token) { this.token = token; }
+    public void setTokenHash(byte[] tokenHash) { this.tokenHash = tokenHash; }
     public void setFuncionario(Funcionario funcionario) { this.funcionario = funcionario; }
     public void setCriadoEm(Instant criadoEm) { this.criadoEm = criadoEm; }
     public void setExpiraEm(Instant expiraEm) { this.expiraEm = expiraEm; }
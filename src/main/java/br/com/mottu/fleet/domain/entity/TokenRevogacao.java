@@ -0,0 +1,47 @@
+package br.com.mottu.fleet.domain.entity;
+
+import br.com.mottu.fleet.domain.enums.TipoUsuario;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+
+/**
+ * Entidade que representa a revogação dos tokens de um usuário (admin ou funcionário).
+ * Todo JWT do sujeito emitido antes de 'revogadoAntesDe' é considerado inválido.
+ * Existe no máximo um registro por sujeito; novas revogações apenas avançam a época.
+ */
+@Entity
+@Table(name = "token_revogacao")
+public class TokenRevogacao {
+
+    @Id
+    @Column(name = "sujeito_id")
+    private UUID sujeitoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoUsuario tipo;
+
+    @Column(name = "revogado_antes_de", nullable = false)
+    private Instant revogadoAntesDe;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private Instant atualizadoEm;
+
+    public TokenRevogacao() {}
+
+
+    public UUID getSujeitoId() { return sujeitoId; }
+    public TipoUsuario getTipo() { return tipo; }
+    public Instant getRevogadoAntesDe() { return revogadoAntesDe; }
+    public Instant getAtualizadoEm() { return atualizadoEm; }
+
+    public void setSujeitoId(UUID sujeitoId) { this.sujeitoId = sujeitoId; }
+    public void setTipo(TipoUsuario tipo) { this.tipo = tipo; }
+    public void setRevogadoAntesDe(Instant revogadoAntesDe) { this.revogadoAntesDe = revogadoAntesDe; }
+    public void setAtualizadoEm(Instant atualizadoEm) { this.atualizadoEm = atualizadoEm; }
+
+}
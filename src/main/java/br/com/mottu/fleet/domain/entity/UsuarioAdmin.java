@@ -2,10 +2,12 @@ package br.com.mottu.fleet.domain.entity;
 
 import br.com.mottu.fleet.domain.enums.Role;
 import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.infrastructure.persistence.UuidV7;
 
 import jakarta.persistence.*;
 
 import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,14 +21,18 @@ import java.util.UUID;
 /**
  * Entidade que representa um Usuário Administrador (SUPER_ADMIN ou PATEO_ADMIN).
  * Esta entidade implementa UserDetails para se integrar ao fluxo de autenticação
- * padrão do Spring Security (login com email e senha).
+ * padrão do Spring Security (login com email e senha), e CredentialsContainer para que o hash
+ * da senha seja apagado do principal depois do login, antes de ele ser gravado na sessão.
  */
 @Entity
 @Table(name = "usuario_admin")
-public class UsuarioAdmin implements UserDetails {
+public class UsuarioAdmin implements UserDetails, CredentialsContainer {
+
+    // O admin logado no painel é serializado na sessão (Spring Session JDBC): versão fixa entre deploys
+    private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false)
@@ -93,6 +99,18 @@ public class UsuarioAdmin implements UserDetails {
     }
 
 
+    /**
+     * Apaga o hash da senha do principal autenticado. Chamado pelo ProviderManager ao fim do login,
+     * quando a entidade já está desanexada (a consulta do login roda na própria transação do repositório),
+     * então nada é gravado no banco; assim o hash não é serializado na sessão (SPRING_SESSION_ATTRIBUTES).
+     * Fluxos que precisam da senha recarregam o admin do banco (ex: alterarSenha).
+     */
+    @Override
+    public void eraseCredentials() {
+        this.senha = null;
+    }
+
+
     // Métodos padrão do UserDetails, não são relevantes para o fluxo
     // mas são incializados para cumprir o contrato da interface
     @Override
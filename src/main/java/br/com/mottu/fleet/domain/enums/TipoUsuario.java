@@ -0,0 +1,10 @@
+package br.com.mottu.fleet.domain.enums;
+
+/**
+ * Define o tipo de usuário dono de um token JWT (claim "typ").
+ * Usado para resolver o principal na tabela correta sem tentativas em cascata.
+ */
+public enum TipoUsuario {
+    ADMIN, // UsuarioAdmin (SUPER_ADMIN ou PATEO_ADMIN), subject = email
+    FUNCIONARIO // Funcionario do pátio, subject = telefone
+}
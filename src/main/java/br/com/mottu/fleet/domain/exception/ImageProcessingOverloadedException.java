@@ -0,0 +1,11 @@
+package br.com.mottu.fleet.domain.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ImageProcessingOverloadedException extends RuntimeException {
+    public ImageProcessingOverloadedException(String message) {
+        super(message);
+    }
+}
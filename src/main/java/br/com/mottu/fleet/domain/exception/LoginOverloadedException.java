@@ -0,0 +1,12 @@
+package br.com.mottu.fleet.domain.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class LoginOverloadedException extends AuthenticationServiceException {
+    public LoginOverloadedException(String message) {
+        super(message);
+    }
+}
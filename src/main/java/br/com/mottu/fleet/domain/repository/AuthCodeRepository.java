@@ -1,6 +1,7 @@
 package br.com.mottu.fleet.domain.repository;
 
 import br.com.mottu.fleet.domain.entity.AuthCode;
+import br.com.mottu.fleet.domain.entity.Funcionario;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -8,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,12 +21,35 @@ public interface AuthCodeRepository extends JpaRepository<AuthCode, UUID> {
 
     /**
      * Busca um AuthCode pelo seu valor de 'code' único.
-     * @param code O código de troca (um UUID em String).
+     * @param code O código de troca ("<funcionarioId>.<segredo>", ou um UUID em String se emitido antes desse formato).
      * @return Um Optional contendo o AuthCode, se encontrado.
      */
     Optional<AuthCode> findByCode(String code);
 
 
+    /**
+     * Queima o AuthCode em um único UPDATE condicional (consumo atômico).
+     * Só afeta a linha se o código ainda não foi usado e não expirou.
+     * @param code O código de troca.
+     * @param agora O timestamp atual.
+     * @return 1 se o código foi consumido, 0 se não existe, já foi usado ou expirou.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AuthCode a SET a.usado = true " +
+           "WHERE a.code = :code AND a.usado = false AND a.expiraEm > :agora")
+    int consumirCodigo(@Param("code") String code, @Param("agora") Instant agora);
+
+
+    /**
+     * Busca o funcionário dono de um AuthCode.
+     * @param code O código de troca.
+     * @return Um Optional contendo o Funcionario.
+     */
+    @Query("SELECT a.funcionario FROM AuthCode a WHERE a.code = :code")
+    Optional<Funcionario> findFuncionarioByCode(@Param("code") String code);
+
+
     /**
      * Deleta em massa todos os AuthCodes associados a um funcionário.
      * Usado no fluxo de Hard Delete do Super Admin.
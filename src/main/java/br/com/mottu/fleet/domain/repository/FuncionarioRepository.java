@@ -1,12 +1,18 @@
 package br.com.mottu.fleet.domain.repository;
 
 import br.com.mottu.fleet.domain.entity.Funcionario;
+import br.com.mottu.fleet.domain.enums.Cargo;
+import br.com.mottu.fleet.domain.enums.Status;
+
+import org.springframework.data.domain.Limit;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.UUID;
 import java.util.Optional;
 import java.util.List;
@@ -59,4 +65,79 @@ public interface FuncionarioRepository extends JpaRepository<Funcionario, UUID>,
     @Query("SELECT f FROM Funcionario f JOIN FETCH f.pateo p WHERE p.id = :pateoId ORDER BY f.nome")
     List<Funcionario> findAllByPateoIdWithPateo(@Param("pateoId") UUID pateoId);
 
+
+    /**
+     * Busca os funcionários de um pátio, com um status, que não têm nenhum Magic Link válido
+     * (não usado e não expirado). Usado na geração de links em lote.
+     * @param pateoId O ID do pátio.
+     * @param status O status dos funcionários (normalmente ATIVO).
+     * @param agora O timestamp atual.
+     * @return Os funcionários sem link válido.
+     */
+    @Query("SELECT f FROM Funcionario f WHERE f.pateo.id = :pateoId AND f.status = :status " +
+           "AND NOT EXISTS (SELECT 1 FROM TokenAcesso t WHERE t.funcionario = f AND t.usado = false AND t.expiraEm > :agora)")
+    List<Funcionario> findAllSemLinkValido(@Param("pateoId") UUID pateoId,
+                                           @Param("status") Status status,
+                                           @Param("agora") Instant agora);
+
+
+    /**
+     * Busca, em uma única consulta, os e-mails e telefones que já estão em uso entre os informados.
+     * Usado na importação em lote para checar duplicidade de um lote inteiro de uma vez.
+     * @param emails Os e-mails do lote.
+     * @param telefones Os telefones do lote.
+     * @return O e-mail e o telefone de cada funcionário que conflita com o lote.
+     */
+    @Query("SELECT f.email AS email, f.telefone AS telefone FROM Funcionario f " +
+           "WHERE f.email IN :emails OR f.telefone IN :telefones")
+    List<ContatoView> findContatosExistentes(@Param("emails") Collection<String> emails,
+                                             @Param("telefones") Collection<String> telefones);
+
+
+    /**
+     * Busca uma página da listagem de funcionários de um pátio por cursor (keyset em nome, id),
+     * selecionando apenas as colunas exibidas na listagem.
+     * A página seguinte começa logo após o último (nome, id) da anterior; para a primeira página,
+     * use nome "" e o UUID zero. Diferente de OFFSET, o custo não cresce com a posição da página.
+     * @param pateoId O ID do pátio.
+     * @param status O status dos funcionários.
+     * @param cargo Filtro opcional por cargo (null para todos).
+     * @param nome O nome do último funcionário da página anterior.
+     * @param id O ID do último funcionário da página anterior.
+     * @param limite O tamanho da página.
+     * @return Os funcionários da página, ordenados por nome e id.
+     */
+    @Query("SELECT f.id AS id, f.nome AS nome, f.telefone AS telefone, f.email AS email, f.fotoUrl AS fotoUrl " +
+           "FROM Funcionario f WHERE f.pateo.id = :pateoId AND f.status = :status " +
+           "AND (:cargo IS NULL OR f.cargo = :cargo) " +
+           "AND (f.nome > :nome OR (f.nome = :nome AND f.id > :id)) " +
+           "ORDER BY f.nome, f.id")
+    List<ResumoView> findPaginaPorCursor(@Param("pateoId") UUID pateoId,
+                                         @Param("status") Status status,
+                                         @Param("cargo") Cargo cargo,
+                                         @Param("nome") String nome,
+                                         @Param("id") UUID id,
+                                         Limit limite);
+
+
+    /**
+     * Projeção com as colunas exibidas na listagem de funcionários.
+     */
+    interface ResumoView {
+        UUID getId();
+        String getNome();
+        String getTelefone();
+        String getEmail();
+        String getFotoUrl();
+    }
+
+
+    /**
+     * Projeção com o e-mail e o telefone de um funcionário.
+     */
+    interface ContatoView {
+        String getEmail();
+        String getTelefone();
+    }
+
 }
\ No newline at end of file
@@ -26,11 +26,12 @@ public interface PateoRepository extends JpaRepository<Pateo, UUID> {
 
 
     /**
-     * Busca todos os pátios filtrando por status.
+     * Busca todos os pátios filtrando por status, já com o admin responsável (exibido no painel).
      * @param status O Status (ATIVO, REMOVIDO, etc.).
      * @return Uma lista de Patios.
      */
-    List<Pateo> findAllByStatus(Status status);
+    @Query("SELECT p FROM Pateo p JOIN FETCH p.gerenciadoPor WHERE p.status = :status")
+    List<Pateo> findAllByStatus(@Param("status") Status status);
 
 
     /**
@@ -60,4 +61,33 @@ public interface PateoRepository extends JpaRepository<Pateo, UUID> {
      */
     Optional<Pateo> findFirstByGerenciadoPorId(UUID adminId);
 
+
+    /**
+     * Busca apenas os pares (admin, pátio) de todos os pátios com o status informado.
+     * Projeção leve usada para aquecer o índice de posse de pátios em memória.
+     * @param status O Status dos pátios.
+     * @return Lista de projeções com o ID do admin e o ID do pátio.
+     */
+    @Query("SELECT p.gerenciadoPor.id AS adminId, p.id AS pateoId FROM Pateo p WHERE p.status = :status ORDER BY p.createdAt")
+    List<PosseView> findAllPosseByStatus(@Param("status") Status status);
+
+
+    /**
+     * Busca apenas os IDs dos pátios de um admin com o status informado.
+     * @param adminId O UUID do UsuarioAdmin.
+     * @param status O Status dos pátios.
+     * @return Lista com os IDs dos pátios, do mais antigo ao mais novo.
+     */
+    @Query("SELECT p.id FROM Pateo p WHERE p.gerenciadoPor.id = :adminId AND p.status = :status ORDER BY p.createdAt")
+    List<UUID> findIdsByGerenciadoPorIdAndStatus(@Param("adminId") UUID adminId, @Param("status") Status status);
+
+
+    /**
+     * Projeção com o par (admin gerente, pátio).
+     */
+    interface PosseView {
+        UUID getAdminId();
+        UUID getPateoId();
+    }
+
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package br.com.mottu.fleet.domain.repository;
 
+import br.com.mottu.fleet.domain.entity.Funcionario;
 import br.com.mottu.fleet.domain.entity.RefreshToken;
 
 import org.springframework.data.jpa.repository.Modifying;
@@ -8,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,11 +20,73 @@ import java.util.UUID;
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
 
     /**
-     * Busca um RefreshToken pelo seu valor de 'token' único.
-     * @param token O token (um UUID em String).
+     * Busca um RefreshToken pelo hash do seu valor.
+     * @param tokenHash O SHA-256 do token (ver TokenHashing).
      * @return Um Optional contendo o RefreshToken, se encontrado.
      */
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
+
+
+    /**
+     * Busca a família (sessão de um dispositivo) de um RefreshToken.
+     * @param familiaId O ID da família, presente no valor do token entregue ao app.
+     * @return Um Optional contendo o RefreshToken, se encontrado.
+     */
+    Optional<RefreshToken> findByFamiliaId(UUID familiaId);
+
+
+    /**
+     * Verifica se uma família ainda existe e não foi revogada, sem carregar a entidade.
+     * @param familiaId O ID da família.
+     * @return true se a família estiver ativa.
+     */
+    boolean existsByFamiliaIdAndRevogadoEmIsNull(UUID familiaId);
+
+
+    /**
+     * Busca o funcionário dono de uma família de RefreshTokens.
+     * @param familiaId O ID da família.
+     * @return Um Optional contendo o Funcionario.
+     */
+    @Query("SELECT r.funcionario FROM RefreshToken r WHERE r.familiaId = :familiaId")
+    Optional<Funcionario> findFuncionarioByFamiliaId(@Param("familiaId") UUID familiaId);
+
+
+    /**
+     * Rotaciona o RefreshToken "in-place" em um único UPDATE condicional: troca o valor do token,
+     * renova a expiração e incrementa a geração da família.
+     * Só afeta a linha se o token informado for o atual da família, não revogado e não expirado.
+     *
+     * @param familiaId O ID da família.
+     * @param tokenHashAtual O SHA-256 do token apresentado pelo app.
+     * @param novoTokenHash O SHA-256 do novo valor do token.
+     * @param novaExpiracao A nova data de expiração.
+     * @param agora O timestamp atual.
+     * @return 1 se o token foi rotacionado, 0 caso contrário.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.tokenHash = :novoTokenHash, r.expiraEm = :novaExpiracao, " +
+           "r.geracao = r.geracao + 1, r.rotacionadoEm = :agora " +
+           "WHERE r.familiaId = :familiaId AND r.tokenHash = :tokenHashAtual " +
+           "AND r.revogadoEm IS NULL AND r.expiraEm > :agora")
+    int rotacionar(@Param("familiaId") UUID familiaId,
+                   @Param("tokenHashAtual") byte[] tokenHashAtual,
+                   @Param("novoTokenHash") byte[] novoTokenHash,
+                   @Param("novaExpiracao") Instant novaExpiracao,
+                   @Param("agora") Instant agora);
+
+
+    /**
+     * Revoga uma família inteira de RefreshTokens (ex: reuso de um token antigo detectado).
+     * @param familiaId O ID da família.
+     * @param agora O timestamp da revogação.
+     * @return O número de linhas atualizadas.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.revogadoEm = :agora WHERE r.familiaId = :familiaId AND r.revogadoEm IS NULL")
+    int revogarFamilia(@Param("familiaId") UUID familiaId, @Param("agora") Instant agora);
 
 
     /**
@@ -22,11 +22,42 @@ import java.util.List;
 public interface TokenAcessoRepository extends JpaRepository<TokenAcesso, UUID> {
 
     /**
-     * Busca um TokenAcesso pelo seu valor de 'token' (o UUID na URL).
-     * @param token O UUID em String do Magic Link.
+     * Busca um TokenAcesso pelo hash do seu valor (o "<funcionarioId>.<segredo>" na URL).
+     * @param tokenHash O SHA-256 do Magic Link (ver TokenHashing).
      * @return Um Optional contendo o TokenAcesso, se encontrado.
      */
-    Optional<TokenAcesso> findByToken(String token);
+    Optional<TokenAcesso> findByTokenHash(byte[] tokenHash);
+
+
+    /**
+     * Marca o Magic Link como usado em um único UPDATE condicional (consumo atômico).
+     * Só afeta a linha se o token não expirou e ainda não foi usado, ou se foi usado dentro da
+     * janela de tolerância (ex: preview de link do WhatsApp seguido do clique do usuário).
+     * O 'usadoEm' original é preservado, então a janela conta a partir do primeiro uso.
+     *
+     * @param tokenHash O SHA-256 do Magic Link.
+     * @param agora O timestamp atual.
+     * @param usadoDepoisDe Início da janela de tolerância para reuso (ex: agora - 5 minutos).
+     * @return 1 se o link foi consumido, 0 se não existe, expirou ou já foi usado fora da janela.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TokenAcesso t SET t.usado = true, t.usadoEm = COALESCE(t.usadoEm, :agora) " +
+           "WHERE t.tokenHash = :tokenHash " +
+           "AND t.expiraEm > :agora " +
+           "AND (t.usado = false OR t.usadoEm > :usadoDepoisDe)")
+    int consumirToken(@Param("tokenHash") byte[] tokenHash,
+                      @Param("agora") Instant agora,
+                      @Param("usadoDepoisDe") Instant usadoDepoisDe);
+
+
+    /**
+     * Busca apenas o ID do funcionário dono de um Magic Link, sem carregar a entidade.
+     * @param tokenHash O SHA-256 do Magic Link.
+     * @return Um Optional contendo o ID do funcionário.
+     */
+    @Query("SELECT t.funcionario.id FROM TokenAcesso t WHERE t.tokenHash = :tokenHash")
+    Optional<UUID> findFuncionarioIdByTokenHash(@Param("tokenHash") byte[] tokenHash);
 
 
     /**
@@ -62,12 +93,13 @@ public interface TokenAcessoRepository extends JpaRepository<TokenAcesso, UUID>
      * Busca todos os tokens de acesso válidos (não usados, não expirados) para
      * uma coleção de funcionários em uma única query.
      * Otimizado para evitar o problema N+1.
+     * Sem ORDER BY: com vários funcionários no IN, ordenar por criado_em exigiria um filesort.
+     * Quem chama escolhe o token mais recente de cada funcionário.
      */
     @Query("SELECT t FROM TokenAcesso t " +
            "WHERE t.funcionario IN :funcionarios " +
            "AND t.usado = false " +
-           "AND t.expiraEm > :agora " +
-           "ORDER BY t.criadoEm DESC")
+           "AND t.expiraEm > :agora")
     List<TokenAcesso> findAllValidTokensByFuncionarioList(
             @Param("funcionarios") Collection<Funcionario> funcionarios,
             @Param("agora") Instant agora
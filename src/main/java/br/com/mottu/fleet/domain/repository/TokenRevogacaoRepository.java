@@ -0,0 +1,25 @@
+package br.com.mottu.fleet.domain.repository;
+
+import br.com.mottu.fleet.domain.entity.TokenRevogacao;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+
+/**
+ * Repositório para a entidade TokenRevogacao.
+ */
+public interface TokenRevogacaoRepository extends JpaRepository<TokenRevogacao, UUID> {
+
+    /**
+     * Busca as revogações criadas ou alteradas depois de um instante.
+     * Usado na atualização incremental do registro de revogações em memória.
+     * @param atualizadoEm O instante de corte (exclusivo).
+     * @return Lista de revogações, da mais antiga para a mais nova.
+     */
+    List<TokenRevogacao> findAllByAtualizadoEmAfterOrderByAtualizadoEmAsc(Instant atualizadoEm);
+
+}
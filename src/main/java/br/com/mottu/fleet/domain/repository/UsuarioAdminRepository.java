@@ -5,6 +5,10 @@ import br.com.mottu.fleet.domain.enums.Role;
 import br.com.mottu.fleet.domain.enums.Status;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -44,5 +48,18 @@ public interface UsuarioAdminRepository extends JpaRepository<UsuarioAdmin, UUID
      * @return Uma Page de UsuarioAdmin.
      */
     Page<UsuarioAdmin> findAllByRoleAndStatus(Role role, Status status, Pageable pageable);
-    
+
+
+    /**
+     * Atualiza apenas o hash da senha de um admin, sem sobrescrever as demais colunas.
+     * Usado no re-hash da senha durante o login (mudança do custo do BCrypt).
+     * @param id O ID do admin.
+     * @param senha O novo hash da senha (com o prefixo do algoritmo, ex: {bcrypt}).
+     * @return O número de linhas atualizadas.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE UsuarioAdmin u SET u.senha = :senha WHERE u.id = :id")
+    int atualizarSenha(@Param("id") UUID id, @Param("senha") String senha);
+
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package br.com.mottu.fleet.domain.service;
+
+import br.com.mottu.fleet.application.dto.api.FuncionarioImportResponse;
+import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface FuncionarioImportService {
+    FuncionarioImportResponse importar(InputStream conteudo, Formato formato, UsuarioAdmin adminLogado) throws IOException;
+
+    enum Formato { CSV, JSON }
+}
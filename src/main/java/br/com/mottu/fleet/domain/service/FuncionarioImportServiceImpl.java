@@ -0,0 +1,489 @@
+package br.com.mottu.fleet.domain.service;
+
+import br.com.mottu.fleet.application.dto.api.FuncionarioCreateRequest;
+import br.com.mottu.fleet.application.dto.api.FuncionarioImportResponse;
+import br.com.mottu.fleet.application.dto.integration.FuncionarioSyncPayload;
+import br.com.mottu.fleet.config.TenantContext;
+import br.com.mottu.fleet.domain.entity.Funcionario;
+import br.com.mottu.fleet.domain.entity.Pateo;
+import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
+import br.com.mottu.fleet.domain.enums.Cargo;
+import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.domain.exception.BusinessException;
+import br.com.mottu.fleet.domain.repository.FuncionarioRepository;
+import br.com.mottu.fleet.domain.repository.PateoRepository;
+import br.com.mottu.fleet.infrastructure.cache.PateoOwnershipIndex;
+import br.com.mottu.fleet.infrastructure.publisher.InterServiceEventPublisher;
+import br.com.mottu.fleet.infrastructure.router.AsyncNotificationOrchestrator;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+
+/**
+ * Implementação da importação de funcionários em lote (abertura de pátio).
+ * O arquivo (CSV ou array JSON) é lido como stream, uma linha por vez, e processado em lotes de
+ * 'tamanho-lote' linhas. Para cada lote: uma única consulta IN verifica e-mails e telefones já em uso,
+ * os funcionários e seus Magic Links são gravados com saveAll (INSERTs agrupados pelo JDBC batching)
+ * e, após o commit, as notificações e os eventos de sincronização do lote são disparados de uma vez.
+ *
+ * Cada lote tem a sua própria transação: um lote com falha é reportado linha a linha como ERRO,
+ * sem desfazer os lotes já gravados. Reenviar o mesmo arquivo é seguro, pois as linhas já importadas
+ * são recusadas pela checagem de duplicidade.
+ */
+@Service
+public class FuncionarioImportServiceImpl implements FuncionarioImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(FuncionarioImportServiceImpl.class);
+
+    private static final String CRIADO = "CRIADO";
+    private static final String ERRO = "ERRO";
+
+    private final FuncionarioRepository funcionarioRepository;
+    private final PateoRepository pateoRepository;
+    private final MagicLinkService magicLinkService;
+    private final AsyncNotificationOrchestrator asyncOrchestrator;
+    private final InterServiceEventPublisher eventPublisher;
+    private final PateoOwnershipIndex pateoOwnershipIndex;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanhoLote;
+    private final int maxLinhas;
+
+    public FuncionarioImportServiceImpl(FuncionarioRepository funcionarioRepository,
+                                        PateoRepository pateoRepository,
+                                        MagicLinkService magicLinkService,
+                                        AsyncNotificationOrchestrator asyncOrchestrator,
+                                        InterServiceEventPublisher eventPublisher,
+                                        PateoOwnershipIndex pateoOwnershipIndex,
+                                        Validator validator,
+                                        ObjectMapper objectMapper,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${application.funcionario.import.tamanho-lote:100}") int tamanhoLote,
+                                        @Value("${application.funcionario.import.max-linhas:5000}") int maxLinhas) {
+        this.funcionarioRepository = funcionarioRepository;
+        this.pateoRepository = pateoRepository;
+        this.magicLinkService = magicLinkService;
+        this.asyncOrchestrator = asyncOrchestrator;
+        this.eventPublisher = eventPublisher;
+        this.pateoOwnershipIndex = pateoOwnershipIndex;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoLote = tamanhoLote;
+        this.maxLinhas = maxLinhas;
+    }
+
+
+    /**
+     * Importa os funcionários de um arquivo para o pátio do admin logado.
+     * Linhas inválidas ou duplicadas não interrompem a importação: são apenas reportadas.
+     * Se o arquivo ficar ilegível no meio (ex: JSON malformado) ou passar de 'max-linhas', o que já foi
+     * lido é importado e a leitura para, com uma linha de ERRO indicando o ponto de parada.
+     *
+     * @param conteudo O conteúdo do arquivo.
+     * @param formato O formato do arquivo (CSV ou JSON).
+     * @param adminLogado O admin de pátio autenticado.
+     * @return O relatório com o resultado de cada linha.
+     * @throws IOException Se o arquivo não puder ser aberto.
+     * @throws BusinessException Se o admin não estiver associado a um pátio ou o arquivo não tiver o formato esperado.
+     */
+    @Override
+    public FuncionarioImportResponse importar(InputStream conteudo, Formato formato, UsuarioAdmin adminLogado) throws IOException {
+        UUID pateoId = TenantContext.pateoIdDoUsuario(adminLogado.getId())
+                .or(() -> pateoOwnershipIndex.pateoAtivoDoAdmin(adminLogado.getId()))
+                .orElseThrow(() -> new BusinessException("Admin não está associado a nenhum pátio."));
+
+        List<FuncionarioImportResponse.Linha> relatorio = new ArrayList<>();
+        Set<String> emailsDoArquivo = new HashSet<>();
+        Set<String> telefonesDoArquivo = new HashSet<>();
+        List<LinhaLida> lote = new ArrayList<>(tamanhoLote);
+
+        try (Leitor leitor = formato == Formato.CSV ? new LeitorCsv(conteudo) : new LeitorJson(conteudo, objectMapper)) {
+            int lidas = 0;
+            while (true) {
+                LinhaLida linha;
+                try {
+                    linha = leitor.proxima();
+                } catch (IOException e) {
+                    relatorio.add(erro(leitor.posicao(), null,
+                            "Arquivo ilegível a partir desta linha; as linhas seguintes não foram importadas: " + e.getMessage()));
+                    break;
+                }
+                if (linha == null) {
+                    break;
+                }
+                if (++lidas > maxLinhas) {
+                    relatorio.add(erro(linha.numero(), null,
+                            "Limite de " + maxLinhas + " linhas por importação excedido; as linhas seguintes não foram importadas."));
+                    break;
+                }
+                lote.add(linha);
+                if (lote.size() == tamanhoLote) {
+                    relatorio.addAll(processarLote(lote, pateoId, emailsDoArquivo, telefonesDoArquivo));
+                    lote.clear();
+                }
+            }
+        }
+        if (!lote.isEmpty()) {
+            relatorio.addAll(processarLote(lote, pateoId, emailsDoArquivo, telefonesDoArquivo));
+        }
+
+        relatorio.sort((a, b) -> Integer.compare(a.linha(), b.linha()));
+        int criados = (int) relatorio.stream().filter(l -> CRIADO.equals(l.status())).count();
+        log.info("Importação de funcionários no pátio {}: {} criados, {} recusados.", pateoId, criados, relatorio.size() - criados);
+        return new FuncionarioImportResponse(relatorio.size(), criados, relatorio.size() - criados, relatorio);
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    /**
+     * Método auxiliar que valida e grava um lote de linhas em uma única transação.
+     * As validações que não dependem do banco (Bean Validation e duplicidade dentro do arquivo)
+     * são feitas antes de abrir a transação.
+     */
+    private List<FuncionarioImportResponse.Linha> processarLote(List<LinhaLida> lote, UUID pateoId,
+                                                                Set<String> emailsDoArquivo, Set<String> telefonesDoArquivo) {
+        List<FuncionarioImportResponse.Linha> resultado = new ArrayList<>(lote.size());
+        List<LinhaLida> candidatas = new ArrayList<>(lote.size());
+
+        for (LinhaLida linha : lote) {
+            if (linha.erroLeitura() != null) {
+                resultado.add(erro(linha.numero(), null, linha.erroLeitura()));
+                continue;
+            }
+            List<String> erros = new ArrayList<>();
+            for (ConstraintViolation<FuncionarioCreateRequest> violacao : validator.validate(linha.dados())) {
+                erros.add(violacao.getMessage());
+            }
+            if (erros.isEmpty()) {
+                if (!emailsDoArquivo.add(chave(linha.dados().getEmail()))) {
+                    erros.add("E-mail repetido no arquivo.");
+                }
+                if (!telefonesDoArquivo.add(linha.dados().getTelefone())) {
+                    erros.add("Telefone repetido no arquivo.");
+                }
+            }
+            if (erros.isEmpty()) {
+                candidatas.add(linha);
+            } else {
+                resultado.add(new FuncionarioImportResponse.Linha(linha.numero(), linha.dados().getEmail(), ERRO, null, erros));
+            }
+        }
+
+        if (candidatas.isEmpty()) {
+            return resultado;
+        }
+        try {
+            resultado.addAll(transactionTemplate.execute(status -> gravarLote(candidatas, pateoId)));
+        } catch (RuntimeException e) {
+            log.error("Falha ao gravar lote de {} funcionários importados: {}", candidatas.size(), e.getMessage(), e);
+            for (LinhaLida linha : candidatas) {
+                resultado.add(new FuncionarioImportResponse.Linha(linha.numero(), linha.dados().getEmail(), ERRO, null,
+                        List.of("Falha ao gravar o lote desta linha. Tente importá-la novamente.")));
+            }
+        }
+        return resultado;
+    }
+
+
+    /**
+     * Método auxiliar (executado dentro da transação do lote) que recusa os contatos já cadastrados,
+     * grava os demais funcionários e seus Magic Links e agenda os efeitos colaterais do lote para após o commit.
+     */
+    private List<FuncionarioImportResponse.Linha> gravarLote(List<LinhaLida> candidatas, UUID pateoId) {
+        List<String> emails = candidatas.stream().map(l -> l.dados().getEmail()).toList();
+        List<String> telefones = candidatas.stream().map(l -> l.dados().getTelefone()).toList();
+        Set<String> emailsEmUso = new HashSet<>();
+        Set<String> telefonesEmUso = new HashSet<>();
+        for (FuncionarioRepository.ContatoView contato : funcionarioRepository.findContatosExistentes(emails, telefones)) {
+            emailsEmUso.add(chave(contato.getEmail()));
+            telefonesEmUso.add(contato.getTelefone());
+        }
+
+        Pateo pateo = pateoRepository.getReferenceById(pateoId);
+        List<FuncionarioImportResponse.Linha> resultado = new ArrayList<>(candidatas.size());
+        List<LinhaLida> linhasNovas = new ArrayList<>(candidatas.size());
+        List<Funcionario> funcionarios = new ArrayList<>(candidatas.size());
+
+        for (LinhaLida linha : candidatas) {
+            FuncionarioCreateRequest dados = linha.dados();
+            List<String> erros = new ArrayList<>();
+            if (emailsEmUso.contains(chave(dados.getEmail()))) {
+                erros.add("O e-mail fornecido já está em uso.");
+            }
+            if (telefonesEmUso.contains(dados.getTelefone())) {
+                erros.add("O telefone fornecido já está em uso.");
+            }
+            if (!erros.isEmpty()) {
+                resultado.add(new FuncionarioImportResponse.Linha(linha.numero(), dados.getEmail(), ERRO, null, erros));
+                continue;
+            }
+
+            Funcionario funcionario = new Funcionario();
+            funcionario.setNome(dados.getNome());
+            funcionario.setTelefone(dados.getTelefone());
+            funcionario.setEmail(dados.getEmail());
+            funcionario.setPateo(pateo);
+            funcionario.setCargo(Cargo.valueOf(dados.getCargo()));
+            funcionario.setStatus(Status.ATIVO);
+            funcionario.setCodigo("FUNC-" + dados.getTelefone());
+            funcionarios.add(funcionario);
+            linhasNovas.add(linha);
+        }
+
+        if (funcionarios.isEmpty()) {
+            return resultado;
+        }
+
+        List<Funcionario> salvos = funcionarioRepository.saveAll(funcionarios);
+        Map<UUID, String> links = magicLinkService.gerarLinks(salvos);
+        List<FuncionarioSyncPayload> payloads = new ArrayList<>(salvos.size());
+        for (int i = 0; i < salvos.size(); i++) {
+            Funcionario salvo = salvos.get(i);
+            LinhaLida linha = linhasNovas.get(i);
+            resultado.add(new FuncionarioImportResponse.Linha(linha.numero(), salvo.getEmail(), CRIADO, salvo.getId(), List.of()));
+            payloads.add(new FuncionarioSyncPayload(salvo));
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // 1: Dispara as notificações dos Magic Links do lote (WhatsApp + Fallback)
+                asyncOrchestrator.dispararNotificacoesEmLote(links);
+
+                // 2: Publica os eventos de sincronização do lote para a API de C# em um único envio
+                eventPublisher.publishEvents(payloads, "FUNCIONARIO_CRIADO");
+            }
+        });
+        return resultado;
+    }
+
+
+    private static FuncionarioImportResponse.Linha erro(int numero, String email, String mensagem) {
+        return new FuncionarioImportResponse.Linha(numero, email, ERRO, null, List.of(mensagem));
+    }
+
+
+    /**
+     * Método auxiliar que normaliza o e-mail para comparação (a collation do MySQL não diferencia maiúsculas).
+     */
+    private static String chave(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+
+    /**
+     * Uma linha lida do arquivo: os dados convertidos ou o motivo de não ter sido possível convertê-los.
+     */
+    private record LinhaLida(int numero, FuncionarioCreateRequest dados, String erroLeitura) {}
+
+
+    /**
+     * Lê o arquivo uma linha (ou elemento) por vez, sem carregá-lo inteiro em memória.
+     */
+    private interface Leitor extends Closeable {
+        /** @return A próxima linha, ou null no fim do arquivo. */
+        LinhaLida proxima() throws IOException;
+
+        /** @return A posição atual da leitura, para reportar falhas. */
+        int posicao();
+    }
+
+
+    /**
+     * Leitor de CSV com cabeçalho (nome, telefone, email, cargo, em qualquer ordem).
+     * Aceita ',' ou ';' como separador (detectado pelo cabeçalho) e campos entre aspas, com "" para aspas literais.
+     * Campos entre aspas não podem conter quebras de linha.
+     */
+    private static final class LeitorCsv implements Leitor {
+
+        private static final List<String> COLUNAS = List.of("nome", "telefone", "email", "cargo");
+
+        private final BufferedReader reader;
+        private final char separador;
+        private final Map<String, Integer> indices = new HashMap<>();
+        private int numero = 1;
+
+        LeitorCsv(InputStream conteudo) throws IOException {
+            this.reader = new BufferedReader(new InputStreamReader(conteudo, StandardCharsets.UTF_8));
+            String cabecalho = reader.readLine();
+            if (cabecalho == null) {
+                throw new BusinessException("O arquivo CSV está vazio.");
+            }
+            if (cabecalho.startsWith("\uFEFF")) {
+                cabecalho = cabecalho.substring(1);
+            }
+            this.separador = cabecalho.indexOf(';') >= 0 && cabecalho.indexOf(',') < 0 ? ';' : ',';
+            List<String> colunas = separar(cabecalho);
+            for (int i = 0; i < colunas.size(); i++) {
+                indices.put(colunas.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (String coluna : COLUNAS) {
+                if (!indices.containsKey(coluna)) {
+                    throw new BusinessException("Cabeçalho do CSV sem a coluna obrigatória '" + coluna + "'. Esperado: " + String.join(",", COLUNAS));
+                }
+            }
+        }
+
+        @Override
+        public LinhaLida proxima() throws IOException {
+            String texto;
+            do {
+                texto = reader.readLine();
+                numero++;
+                if (texto == null) {
+                    return null;
+                }
+            } while (texto.isBlank());
+
+            List<String> campos;
+            try {
+                campos = separar(texto);
+            } catch (IllegalArgumentException e) {
+                return new LinhaLida(numero, null, e.getMessage());
+            }
+            FuncionarioCreateRequest dados = new FuncionarioCreateRequest();
+            dados.setNome(campo(campos, "nome"));
+            dados.setTelefone(campo(campos, "telefone"));
+            dados.setEmail(campo(campos, "email"));
+            dados.setCargo(campo(campos, "cargo"));
+            return new LinhaLida(numero, dados, null);
+        }
+
+        @Override
+        public int posicao() {
+            return numero;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        private String campo(List<String> campos, String coluna) {
+            int indice = indices.get(coluna);
+            if (indice >= campos.size()) {
+                return null;
+            }
+            String valor = campos.get(indice).trim();
+            return valor.isEmpty() ? null : valor;
+        }
+
+        private List<String> separar(String texto) {
+            List<String> campos = new ArrayList<>();
+            StringBuilder atual = new StringBuilder();
+            boolean entreAspas = false;
+            for (int i = 0; i < texto.length(); i++) {
+                char c = texto.charAt(i);
+                if (entreAspas) {
+                    if (c == '"' && i + 1 < texto.length() && texto.charAt(i + 1) == '"') {
+                        atual.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        entreAspas = false;
+                    } else {
+                        atual.append(c);
+                    }
+                } else if (c == '"') {
+                    entreAspas = true;
+                } else if (c == separador) {
+                    campos.add(atual.toString());
+                    atual.setLength(0);
+                } else {
+                    atual.append(c);
+                }
+            }
+            if (entreAspas) {
+                throw new IllegalArgumentException("Aspas não fechadas na linha.");
+            }
+            campos.add(atual.toString());
+            return campos;
+        }
+    }
+
+
+    /**
+     * Leitor de um array JSON de objetos no formato do FuncionarioCreateRequest.
+     * Usa o streaming do Jackson: apenas o elemento atual fica em memória.
+     */
+    private static final class LeitorJson implements Leitor {
+
+        private final JsonParser parser;
+        private final ObjectMapper objectMapper;
+        private int numero = 0;
+
+        LeitorJson(InputStream conteudo, ObjectMapper objectMapper) throws IOException {
+            this.objectMapper = objectMapper;
+            this.parser = objectMapper.getFactory().createParser(conteudo);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                parser.close();
+                throw new BusinessException("O JSON deve ser um array de funcionários.");
+            }
+        }
+
+        @Override
+        public LinhaLida proxima() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            // Lê o elemento inteiro antes de converter, para que um campo de tipo errado não desalinhe o parser.
+            // O número só avança depois da leitura, para que posicao() aponte o elemento ilegível
+            JsonNode elemento = parser.readValueAsTree();
+            numero++;
+            if (elemento == null || !elemento.isObject()) {
+                return new LinhaLida(numero, null, "O elemento deve ser um objeto JSON.");
+            }
+            try {
+                return new LinhaLida(numero, objectMapper.treeToValue(elemento, FuncionarioCreateRequest.class), null);
+            } catch (JsonProcessingException e) {
+                return new LinhaLida(numero, null, "Elemento inválido: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public int posicao() {
+            return numero + 1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+}
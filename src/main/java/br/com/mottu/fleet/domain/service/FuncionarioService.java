@@ -6,6 +6,7 @@ import br.com.mottu.fleet.domain.entity.Funcionario;
 import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
 import br.com.mottu.fleet.domain.enums.Cargo;
 import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.domain.repository.FuncionarioRepository;
 
 import java.io.IOException;
 import java.util.List;
@@ -15,11 +16,17 @@ import org.springframework.web.multipart.MultipartFile;
 
 public interface FuncionarioService {
     record FuncionarioCriado(Funcionario funcionario, String magicLink) {}
+    record Pagina(List<FuncionarioRepository.ResumoView> itens, String proximoCursor) {}
 
     Funcionario criar(FuncionarioCreateRequest request, MultipartFile foto, UsuarioAdmin adminLogado) throws IOException;
     List<Funcionario> listarPorAdminEfiltros(UsuarioAdmin adminLogado, Status status, Cargo cargo);
+    Pagina listarPagina(UsuarioAdmin adminLogado, Status status, Cargo cargo, String cursor, int limite);
+    Pagina listarPagina(UUID pateoId, Status status, Cargo cargo, String cursor, int limite);
+    UUID getPateoIdDoAdmin(UsuarioAdmin adminLogado);
     Funcionario atualizar(UUID id, FuncionarioUpdateRequest request, UsuarioAdmin adminLogado);
     Funcionario atualizarFoto(UUID id, MultipartFile foto, UsuarioAdmin adminLogado) throws IOException;
+    StorageService.TicketUpload solicitarUploadFoto(UUID id, String contentType, UsuarioAdmin adminLogado);
+    Funcionario confirmarUploadFoto(UUID id, String blobName, UsuarioAdmin adminLogado);
     void desativar(UUID id, UsuarioAdmin adminLogado);
     void reativar(UUID id, UsuarioAdmin adminLogado);
 }
@@ -3,26 +3,37 @@ package br.com.mottu.fleet.domain.service;
 import br.com.mottu.fleet.application.dto.api.FuncionarioCreateRequest;
 import br.com.mottu.fleet.application.dto.api.FuncionarioUpdateRequest;
 import br.com.mottu.fleet.application.dto.integration.FuncionarioSyncPayload;
+import br.com.mottu.fleet.config.PrincipalResolver;
+import br.com.mottu.fleet.config.TenantContext;
 import br.com.mottu.fleet.domain.entity.Funcionario;
 import br.com.mottu.fleet.domain.entity.Pateo;
 import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
 import br.com.mottu.fleet.domain.enums.Cargo;
 import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.domain.enums.TipoUsuario;
 import br.com.mottu.fleet.domain.exception.BusinessException;
 import br.com.mottu.fleet.domain.exception.ResourceNotFoundException;
 import br.com.mottu.fleet.domain.repository.FuncionarioRepository;
 import br.com.mottu.fleet.domain.repository.PateoRepository;
 import br.com.mottu.fleet.domain.repository.specification.FuncionarioSpecification;
+import br.com.mottu.fleet.infrastructure.cache.PateoOwnershipIndex;
+import br.com.mottu.fleet.infrastructure.cache.TokenRevocationRegistry;
 import br.com.mottu.fleet.infrastructure.router.AsyncNotificationOrchestrator;
 import br.com.mottu.fleet.infrastructure.publisher.InterServiceEventPublisher;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
 import java.io.IOException;
@@ -36,32 +47,54 @@ import java.io.IOException;
 @Service
 public class FuncionarioServiceImpl implements FuncionarioService {
 
+    private static final UUID CURSOR_INICIAL = new UUID(0L, 0L);
+
     private final FuncionarioRepository funcionarioRepository;
     private final PateoRepository pateoRepository;
     private final MagicLinkService magicLinkService;
     private final StorageService storageService;
+    private final ImagemService imagemService;
     private final AsyncNotificationOrchestrator asyncOrchestrator;
     private final InterServiceEventPublisher eventPublisher;
+    private final PrincipalResolver principalResolver;
+    private final PateoOwnershipIndex pateoOwnershipIndex;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int limiteMaximoPagina;
 
     public FuncionarioServiceImpl(FuncionarioRepository funcionarioRepository,
                                   PateoRepository pateoRepository,
                                   MagicLinkService magicLinkService,
                                   StorageService storageService,
+                                  ImagemService imagemService,
                                   AsyncNotificationOrchestrator asyncOrchestrator,
-                                  InterServiceEventPublisher eventPublisher) {
+                                  InterServiceEventPublisher eventPublisher,
+                                  PrincipalResolver principalResolver,
+                                  PateoOwnershipIndex pateoOwnershipIndex,
+                                  TokenRevocationRegistry tokenRevocationRegistry,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${application.funcionario.pagina.limite-maximo:200}") int limiteMaximoPagina) {
         this.funcionarioRepository = funcionarioRepository;
         this.pateoRepository = pateoRepository;
         this.magicLinkService = magicLinkService;
         this.storageService = storageService;
+        this.imagemService = imagemService;
         this.asyncOrchestrator = asyncOrchestrator;
         this.eventPublisher = eventPublisher;
+        this.principalResolver = principalResolver;
+        this.pateoOwnershipIndex = pateoOwnershipIndex;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.limiteMaximoPagina = limiteMaximoPagina;
     }
 
 
     /**
-     * Cria um novo funcionário, faz upload de foto (se fornecida), e agenda as
+     * Cria um novo funcionário, grava a foto e suas variantes (se fornecida), e agenda as
      * notificações assíncronas (Magic Link e Sincronização de C#) para
      * dispararem somente após o commit da transação.
+     * O upload da foto acontece antes da transação, para que a conexão com o banco não fique
+     * presa durante o envio ao storage; se a gravação falhar, a foto enviada é removida.
      *
      * @param request DTO com os dados do novo funcionário.
      * @param foto Arquivo de foto opcional.
@@ -71,9 +104,8 @@ public class FuncionarioServiceImpl implements FuncionarioService {
      * @throws BusinessException Se o e-mail ou telefone já estiverem em uso.
      */
     @Override
-    @Transactional
     public Funcionario criar(FuncionarioCreateRequest request, MultipartFile foto, UsuarioAdmin adminLogado) throws IOException {
-        Pateo pateo = getPateoDoAdmin(adminLogado);
+        UUID pateoId = getPateoIdDoAdmin(adminLogado);
 
         // Apesar da validação pela DTO adicionar um fail-fast pra não poluir a fila do C#
         if (funcionarioRepository.existsByEmail(request.getEmail())) {
@@ -85,35 +117,16 @@ public class FuncionarioServiceImpl implements FuncionarioService {
 
         String fotoUrl = null;
         if (foto != null && !foto.isEmpty()) {
-            fotoUrl = storageService.upload("fotos", foto);
+            fotoUrl = imagemService.gravarComVariantes("fotos", foto);
         }
 
-        Funcionario novoFuncionario = new Funcionario();
-        novoFuncionario.setNome(request.getNome());
-        novoFuncionario.setTelefone(request.getTelefone());
-        novoFuncionario.setEmail(request.getEmail());
-        novoFuncionario.setFotoUrl(fotoUrl);
-        novoFuncionario.setPateo(pateo);
-        novoFuncionario.setCargo(Cargo.valueOf(request.getCargo()));
-        novoFuncionario.setStatus(Status.ATIVO);
-        novoFuncionario.setCodigo("FUNC-" + request.getTelefone());
-
-        Funcionario funcionarioSalvo = funcionarioRepository.save(novoFuncionario);
-        String link = magicLinkService.gerarLink(funcionarioSalvo);
-        
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                // 1: Dispara a notificação do Magic Link (WhatsApp + Fallback)
-                asyncOrchestrator.dispararNotificacaoPosCriacao(funcionarioSalvo.getId(), link);
-                
-                // 2: Dispara o evento de sincronização para a API de C#
-                FuncionarioSyncPayload payload = new FuncionarioSyncPayload(funcionarioSalvo);
-                eventPublisher.publishEvent(payload, "FUNCIONARIO_CRIADO");
-            }
-        });
-        
-        return funcionarioSalvo;
+        try {
+            String fotoUrlFinal = fotoUrl;
+            return transactionTemplate.execute(status -> gravarNovoFuncionario(request, fotoUrlFinal, pateoId));
+        } catch (RuntimeException e) {
+            imagemService.remover("fotos", fotoUrl);
+            throw e;
+        }
     }
 
 
@@ -136,6 +149,70 @@ public class FuncionarioServiceImpl implements FuncionarioService {
     }
 
 
+    /**
+     * Lista uma página dos funcionários do pátio do admin logado, ordenados por nome, usando paginação
+     * por cursor (keyset). Apenas as colunas da listagem são lidas do banco.
+     * @param adminLogado O admin de pátio autenticado.
+     * @param status Filtro opcional por status. Se nulo, busca apenas ATIVOS.
+     * @param cargo Filtro opcional por cargo.
+     * @param cursor O cursor devolvido pela página anterior, ou nulo para a primeira página.
+     * @param limite O tamanho da página (limitado a 'limite-maximo').
+     * @return Os funcionários da página e o cursor da próxima (nulo se esta for a última).
+     * @throws BusinessException Se o cursor for inválido.
+     */
+    @Override
+    public Pagina listarPagina(UsuarioAdmin adminLogado, Status status, Cargo cargo, String cursor, int limite) {
+        return listarPagina(getPateoIdDoAdmin(adminLogado), status, cargo, cursor, limite);
+    }
+
+
+    /**
+     * Lista uma página dos funcionários de um pátio já resolvido (ver getPateoIdDoAdmin).
+     * Usado pela exportação, que lê as páginas seguintes fora da thread da requisição.
+     * @param pateoId O ID do pátio, obtido com getPateoIdDoAdmin na thread da requisição.
+     * @return Os funcionários da página e o cursor da próxima (nulo se esta for a última).
+     * @throws BusinessException Se o cursor for inválido.
+     */
+    @Override
+    public Pagina listarPagina(UUID pateoId, Status status, Cargo cargo, String cursor, int limite) {
+        Status statusFiltrar = (status == null) ? Status.ATIVO : status;
+        int tamanho = Math.max(1, Math.min(limite, limiteMaximoPagina));
+
+        String ultimoNome = "";
+        UUID ultimoId = CURSOR_INICIAL;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] posicao = decodificarCursor(cursor);
+            ultimoId = UUID.fromString(posicao[0]);
+            ultimoNome = posicao[1];
+        }
+
+        // Busca um item a mais para saber se existe uma próxima página sem precisar de COUNT
+        List<FuncionarioRepository.ResumoView> itens = funcionarioRepository.findPaginaPorCursor(
+                pateoId, statusFiltrar, cargo, ultimoNome, ultimoId, Limit.of(tamanho + 1));
+        if (itens.size() <= tamanho) {
+            return new Pagina(itens, null);
+        }
+        List<FuncionarioRepository.ResumoView> pagina = itens.subList(0, tamanho);
+        FuncionarioRepository.ResumoView ultimo = pagina.get(tamanho - 1);
+        return new Pagina(pagina, codificarCursor(ultimo.getId(), ultimo.getNome()));
+    }
+
+
+    /**
+     * Resolve o ID do pátio do admin logado: do token (TenantContext) ou, na falta dele, do índice em memória.
+     * Deve ser chamado na thread da requisição, onde o TenantContext está preenchido.
+     * @param adminLogado O admin de pátio autenticado.
+     * @return O ID do pátio.
+     * @throws BusinessException se o admin não estiver associado a nenhum pátio.
+     */
+    @Override
+    public UUID getPateoIdDoAdmin(UsuarioAdmin adminLogado) {
+        return TenantContext.pateoIdDoUsuario(adminLogado.getId())
+                .or(() -> pateoOwnershipIndex.pateoAtivoDoAdmin(adminLogado.getId()))
+                .orElseThrow(() -> new BusinessException("Admin não está associado a nenhum pátio."));
+    }
+
+
     /**
      * Atualiza os dados de um funcionário e dispara um evento de sincronização.
      * @param id O UUID do funcionário a ser atualizado.
@@ -160,6 +237,12 @@ public class FuncionarioServiceImpl implements FuncionarioService {
         funcionario.setStatus(Status.valueOf(request.getStatus()));
 
         Funcionario funcionarioAtualizado = funcionarioRepository.save(funcionario);
+        principalResolver.invalidar(TipoUsuario.FUNCIONARIO, funcionarioAtualizado.getId());
+
+        // Suspensão corta imediatamente os tokens já emitidos
+        if (funcionarioAtualizado.getStatus() != Status.ATIVO) {
+            tokenRevocationRegistry.revogar(TipoUsuario.FUNCIONARIO, funcionarioAtualizado.getId());
+        }
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
@@ -175,6 +258,7 @@ public class FuncionarioServiceImpl implements FuncionarioService {
 
     /**
      * Atualiza a foto de um funcionário, faz o upload, e dispara um evento de sincronização.
+     * O upload é feito fora da transação; apenas a troca da URL é transacional.
      * @param id O UUID do funcionário.
      * @param foto O novo arquivo de imagem.
      * @param adminLogado O admin de pátio autenticado.
@@ -182,35 +266,58 @@ public class FuncionarioServiceImpl implements FuncionarioService {
      * @throws IOException Se houver um erro no upload do arquivo.
      */
     @Override
-    @Transactional
     public Funcionario atualizarFoto(UUID id, MultipartFile foto, UsuarioAdmin adminLogado) throws IOException {
-        Pateo pateoDoAdmin = getPateoDoAdmin(adminLogado);
-        Funcionario funcionario = findFuncionarioByIdAndCheckPateo(id, pateoDoAdmin.getId());
+        UUID pateoId = getPateoIdDoAdmin(adminLogado);
+        findFuncionarioByIdAndCheckPateo(id, pateoId);
 
         if (foto == null || foto.isEmpty()) {
             throw new BusinessException("O arquivo da foto não pode ser vazio.");
         }
 
-        // Chama o serviço de infraestrutura para fazer o upload
-        String fotoUrl = storageService.upload("fotos", foto);
+        // Gera as variantes (original sem metadados, média e miniatura) e faz o upload de cada uma
+        String fotoUrl = imagemService.gravarComVariantes("fotos", foto);
+        return aplicarNovaFoto(id, pateoId, fotoUrl);
+    }
 
-        funcionario.setFotoUrl(fotoUrl);
-        Funcionario funcionarioAtualizadoFoto = funcionarioRepository.save(funcionario);
 
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                FuncionarioSyncPayload payload = new FuncionarioSyncPayload(funcionarioAtualizadoFoto);
-                eventPublisher.publishEvent(payload, "FUNCIONARIO_ATUALIZADO_FOTO");
-            }
-        });
+    /**
+     * Primeira fase do upload direto da foto: devolve uma URL de escrita de curta duração
+     * para o app enviar a imagem direto ao storage, sem passar pela API.
+     * @param id O UUID do funcionário.
+     * @param contentType O tipo de mídia da imagem que será enviada.
+     * @param adminLogado O admin de pátio autenticado.
+     * @return O ticket de upload.
+     * @throws BusinessException Se o tipo de arquivo não for uma imagem aceita.
+     */
+    @Override
+    public StorageService.TicketUpload solicitarUploadFoto(UUID id, String contentType, UsuarioAdmin adminLogado) {
+        findFuncionarioByIdAndCheckPateo(id, getPateoIdDoAdmin(adminLogado));
+        return storageService.gerarTicketUpload("fotos", id.toString(), contentType);
+    }
+
 
-        return funcionarioAtualizadoFoto;
+    /**
+     * Segunda fase do upload direto da foto: verifica o arquivo enviado ao storage, gera as variantes
+     * da imagem e, em uma transação curta, troca a URL da foto e dispara o evento de sincronização.
+     * @param id O UUID do funcionário.
+     * @param blobName O nome do blob recebido no ticket.
+     * @param adminLogado O admin de pátio autenticado.
+     * @return A entidade Funcionario atualizada com a nova URL da foto.
+     * @throws BusinessException Se o arquivo não existir, não for deste funcionário ou for recusado.
+     */
+    @Override
+    public Funcionario confirmarUploadFoto(UUID id, String blobName, UsuarioAdmin adminLogado) {
+        UUID pateoId = getPateoIdDoAdmin(adminLogado);
+        findFuncionarioByIdAndCheckPateo(id, pateoId);
+
+        StorageService.UploadConfirmado upload = storageService.confirmarUpload("fotos", id.toString(), blobName);
+        String fotoUrl = imagemService.gerarVariantesDeUpload("fotos", upload);
+        return aplicarNovaFoto(id, pateoId, fotoUrl);
     }
 
 
     /**
-     * Realiza o "soft delete" de um funcionário e dispara um evento de sincronização.
+     * Realiza o "soft delete" de um funcionário, revoga seus tokens e dispara um evento de sincronização.
      * @param id O UUID do funcionário a ser desativado.
      * @param adminLogado O admin de pátio autenticado.
      */
@@ -222,6 +329,8 @@ public class FuncionarioServiceImpl implements FuncionarioService {
 
         funcionario.setStatus(Status.REMOVIDO);
         Funcionario funcionarioDesativado = funcionarioRepository.save(funcionario);
+        principalResolver.invalidar(TipoUsuario.FUNCIONARIO, funcionarioDesativado.getId());
+        tokenRevocationRegistry.revogar(TipoUsuario.FUNCIONARIO, funcionarioDesativado.getId());
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
@@ -250,6 +359,7 @@ public class FuncionarioServiceImpl implements FuncionarioService {
 
         funcionario.setStatus(Status.ATIVO);
         Funcionario funcionarioReativado = funcionarioRepository.save(funcionario);
+        principalResolver.invalidar(TipoUsuario.FUNCIONARIO, funcionarioReativado.getId());
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
@@ -263,13 +373,100 @@ public class FuncionarioServiceImpl implements FuncionarioService {
     
     // --- Métodos Auxiliares ---
 
+    /**
+     * Método auxiliar (executado na transação do cadastro) que grava o novo funcionário, gera o Magic Link
+     * e agenda as notificações e a sincronização para após o commit.
+     */
+    private Funcionario gravarNovoFuncionario(FuncionarioCreateRequest request, String fotoUrl, UUID pateoId) {
+        Funcionario novoFuncionario = new Funcionario();
+        novoFuncionario.setNome(request.getNome());
+        novoFuncionario.setTelefone(request.getTelefone());
+        novoFuncionario.setEmail(request.getEmail());
+        novoFuncionario.setFotoUrl(fotoUrl);
+        novoFuncionario.setPateo(pateoRepository.getReferenceById(pateoId));
+        novoFuncionario.setCargo(Cargo.valueOf(request.getCargo()));
+        novoFuncionario.setStatus(Status.ATIVO);
+        novoFuncionario.setCodigo("FUNC-" + request.getTelefone());
+
+        Funcionario funcionarioSalvo = funcionarioRepository.save(novoFuncionario);
+        String link = magicLinkService.gerarLink(funcionarioSalvo);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // 1: Dispara a notificação do Magic Link (WhatsApp + Fallback)
+                asyncOrchestrator.dispararNotificacaoPosCriacao(funcionarioSalvo.getId(), link);
+
+                // 2: Dispara o evento de sincronização para a API de C#
+                FuncionarioSyncPayload payload = new FuncionarioSyncPayload(funcionarioSalvo);
+                eventPublisher.publishEvent(payload, "FUNCIONARIO_CRIADO");
+            }
+        });
+
+        return funcionarioSalvo;
+    }
+
+
+    /**
+     * Método auxiliar que, em uma transação curta, troca a URL da foto do funcionário
+     * e agenda o evento de sincronização para após o commit.
+     */
+    private Funcionario aplicarNovaFoto(UUID id, UUID pateoId, String fotoUrl) {
+        return transactionTemplate.execute(status -> {
+            Funcionario funcionario = findFuncionarioByIdAndCheckPateo(id, pateoId);
+            funcionario.setFotoUrl(fotoUrl);
+            Funcionario funcionarioAtualizadoFoto = funcionarioRepository.save(funcionario);
+
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    FuncionarioSyncPayload payload = new FuncionarioSyncPayload(funcionarioAtualizadoFoto);
+                    eventPublisher.publishEvent(payload, "FUNCIONARIO_ATUALIZADO_FOTO");
+                }
+            });
+
+            return funcionarioAtualizadoFoto;
+        });
+    }
+
+
     /**
      * Método auxiliar privado para buscar o Pátio associado ao admin logado.
      * Garante que o admin de pátio só possa atuar dentro do seu próprio pátio.
+     * O ID vem do token (TenantContext) ou, na falta dele, do índice em memória;
+     * a referência retornada não dispara consulta ao banco.
      */
     private Pateo getPateoDoAdmin(UsuarioAdmin adminLogado) {
-        return pateoRepository.findFirstByGerenciadoPorId(adminLogado.getId())
-                .orElseThrow(() -> new BusinessException("Admin não está associado a nenhum pátio."));
+        return pateoRepository.getReferenceById(getPateoIdDoAdmin(adminLogado));
+    }
+
+
+    /**
+     * Método auxiliar que gera o cursor opaco de uma página: Base64 URL-safe de "id:nome"
+     * do último funcionário (o UUID tem tamanho fixo, então o nome pode conter ':').
+     */
+    private static String codificarCursor(UUID id, String nome) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((id + ":" + nome).getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * Método auxiliar que abre um cursor gerado por codificarCursor.
+     * @return [id, nome] do último funcionário da página anterior.
+     */
+    private static String[] decodificarCursor(String cursor) {
+        try {
+            String posicao = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = posicao.split(":", 2);
+            if (partes.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            UUID.fromString(partes[0]);
+            return partes;
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Cursor de paginação inválido.");
+        }
     }
 
 
@@ -0,0 +1,61 @@
+package br.com.mottu.fleet.domain.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+public interface ImagemService {
+
+    /**
+     * Variantes gravadas para cada imagem, lado a lado no contêiner: "<base>_<sufixo>.<extensão>".
+     */
+    enum Variante {
+        ORIGINAL("original"),
+        MEDIA("media"),
+        MINIATURA("miniatura");
+
+        private final String sufixo;
+
+        Variante(String sufixo) {
+            this.sufixo = sufixo;
+        }
+
+        public String sufixo() {
+            return sufixo;
+        }
+    }
+
+    /**
+     * Processa uma imagem enviada por formulário e grava suas variantes.
+     * @return A URL da variante ORIGINAL (a que é gravada no banco).
+     */
+    String gravarComVariantes(String containerName, MultipartFile arquivo) throws IOException;
+
+    /**
+     * Processa uma imagem que já está no storage (upload direto confirmado), grava suas variantes e remove o arquivo confirmado.
+     * @return A URL da variante ORIGINAL (a que é gravada no banco).
+     */
+    String gerarVariantesDeUpload(String containerName, StorageService.UploadConfirmado upload);
+
+    /**
+     * Remove a imagem gravada na URL informada e, se houver, as suas variantes.
+     */
+    void remover(String containerName, String urlOriginal);
+
+
+    /**
+     * Deriva a URL de uma variante a partir da URL ORIGINAL gravada no banco.
+     * @return A URL da variante, ou null se a imagem não foi gravada com variantes (ex: fotos antigas).
+     */
+    static String urlVariante(String urlOriginal, Variante variante) {
+        if (urlOriginal == null) {
+            return null;
+        }
+        String marcador = "_" + Variante.ORIGINAL.sufixo() + ".";
+        int posicao = urlOriginal.lastIndexOf(marcador);
+        if (posicao < 0 || urlOriginal.indexOf('/', posicao) >= 0) {
+            return null;
+        }
+        return urlOriginal.substring(0, posicao) + "_" + variante.sufixo() + "." + urlOriginal.substring(posicao + marcador.length());
+    }
+}
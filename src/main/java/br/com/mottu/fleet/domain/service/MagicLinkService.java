@@ -1,16 +1,22 @@
 package br.com.mottu.fleet.domain.service;
 
+import br.com.mottu.fleet.application.dto.api.MagicLinkLoteResponse;
 import br.com.mottu.fleet.application.dto.api.TokenResponse;
 import br.com.mottu.fleet.domain.entity.AuthCode;
 import br.com.mottu.fleet.domain.entity.Funcionario;
 import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface MagicLinkService {
     String gerarLink(Funcionario funcionario);
+    Map<UUID, String> gerarLinks(Collection<Funcionario> funcionarios);
     AuthCode validarMagicLinkEGerarAuthCode(String valorToken);
     String regenerarLink(UUID funcionarioId, UsuarioAdmin adminLogado);
+    MagicLinkLoteResponse regenerarLinksEmLote(List<UUID> funcionarioIds, UsuarioAdmin adminLogado);
     String gerarLink(UUID funcionarioId);
     TokenResponse trocarAuthCodePorTokens(String authCode);
     TokenResponse renovarTokens(String refreshToken);  
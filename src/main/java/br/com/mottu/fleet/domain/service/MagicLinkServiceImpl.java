@@ -1,9 +1,9 @@
 package br.com.mottu.fleet.domain.service;
 
+import br.com.mottu.fleet.application.dto.api.MagicLinkLoteResponse;
 import br.com.mottu.fleet.application.dto.api.TokenResponse;
 import br.com.mottu.fleet.domain.entity.AuthCode;
 import br.com.mottu.fleet.domain.entity.Funcionario;
-import br.com.mottu.fleet.domain.entity.Pateo;
 import br.com.mottu.fleet.domain.entity.RefreshToken;
 import br.com.mottu.fleet.domain.entity.TokenAcesso;
 import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
@@ -12,10 +12,20 @@ import br.com.mottu.fleet.domain.exception.BusinessException;
 import br.com.mottu.fleet.domain.exception.ResourceNotFoundException;
 import br.com.mottu.fleet.domain.repository.AuthCodeRepository;
 import br.com.mottu.fleet.domain.repository.FuncionarioRepository;
-import br.com.mottu.fleet.domain.repository.PateoRepository;
 import br.com.mottu.fleet.domain.repository.RefreshTokenRepository;
 import br.com.mottu.fleet.domain.repository.TokenAcessoRepository;
+import br.com.mottu.fleet.config.AuthCodeCodec;
 import br.com.mottu.fleet.config.JwtService;
+import br.com.mottu.fleet.config.TokenHashing;
+import br.com.mottu.fleet.infrastructure.cache.PateoOwnershipIndex;
+import br.com.mottu.fleet.infrastructure.persistence.UltimoLoginBuffer;
+import br.com.mottu.fleet.infrastructure.router.AsyncNotificationOrchestrator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -23,9 +33,21 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 /**
@@ -36,31 +58,55 @@ import java.util.UUID;
 @Service
 public class MagicLinkServiceImpl implements MagicLinkService {
 
+    private static final Logger log = LoggerFactory.getLogger(MagicLinkServiceImpl.class);
+
     private final TokenAcessoRepository tokenAcessoRepository;
     private final FuncionarioRepository funcionarioRepository;
-    private final PateoRepository pateoRepository;
+    private final PateoOwnershipIndex pateoOwnershipIndex;
     private final NotificationService notificationService;
     private final AuthCodeRepository authCodeRepository;
     private final JwtService jwtService;
     private final RefreshTokenRepository refreshTokenRepository;
+    private final AuthCodeCodec authCodeCodec;
+    private final AsyncNotificationOrchestrator asyncNotificationOrchestrator;
+    private final UltimoLoginBuffer ultimoLoginBuffer;
     private final String baseUrl;
+    private final int tamanhoMaximoLote;
+    private final Duration graceRefresh;
+    private final Cache<String, RotacaoRecente> rotacoesRecentes;
 
     public MagicLinkServiceImpl(TokenAcessoRepository tokenAcessoRepository,
                                 FuncionarioRepository funcionarioRepository,
-                                PateoRepository pateoRepository,
+                                PateoOwnershipIndex pateoOwnershipIndex,
                                 NotificationService notificationService,
                                 AuthCodeRepository authCodeRepository,
                                 JwtService jwtService,
                                 RefreshTokenRepository refreshTokenRepository,
-                                @Value("${application.base-url}") String baseUrl) {
+                                AuthCodeCodec authCodeCodec,
+                                AsyncNotificationOrchestrator asyncNotificationOrchestrator,
+                                UltimoLoginBuffer ultimoLoginBuffer,
+                                @Value("${application.base-url}") String baseUrl,
+                                @Value("${application.magic-link.lote-maximo:500}") int tamanhoMaximoLote,
+                                @Value("${application.security.refresh-token.grace-segundos:10}") long graceSegundos,
+                                @Value("${application.security.refresh-token.grace-cache-size:10000}") long graceCacheSize) {
         this.tokenAcessoRepository = tokenAcessoRepository;
         this.funcionarioRepository = funcionarioRepository;
-        this.pateoRepository = pateoRepository;
+        this.pateoOwnershipIndex = pateoOwnershipIndex;
         this.notificationService = notificationService;
         this.authCodeRepository = authCodeRepository;
         this.jwtService = jwtService;
         this.refreshTokenRepository = refreshTokenRepository;
+        this.authCodeCodec = authCodeCodec;
+        this.asyncNotificationOrchestrator = asyncNotificationOrchestrator;
+        this.ultimoLoginBuffer = ultimoLoginBuffer;
         this.baseUrl = baseUrl;
+        this.tamanhoMaximoLote = tamanhoMaximoLote;
+        this.graceRefresh = Duration.ofSeconds(graceSegundos);
+        // Par emitido por cada rotação recente, indexado pelo hash do Refresh Token que foi rotacionado
+        this.rotacoesRecentes = Caffeine.newBuilder()
+                .maximumSize(graceCacheSize)
+                .expireAfterWrite(graceRefresh)
+                .build();
     }
     
 
@@ -73,23 +119,38 @@ public class MagicLinkServiceImpl implements MagicLinkService {
      */
     @Override
     public String gerarLink(Funcionario funcionario) {
-        String valorToken = UUID.randomUUID().toString();
-
-        TokenAcesso token = new TokenAcesso();
-        token.setToken(valorToken);
-        token.setFuncionario(funcionario);
-        token.setExpiraEm(Instant.now().plus(24, ChronoUnit.HOURS));
-        token.setUsado(false);
+        String valorToken = novoValorComDono(funcionario.getId());
+        tokenAcessoRepository.save(novoTokenAcesso(funcionario, valorToken, Instant.now()));
+        return montarLink(valorToken);
+    }
 
-        tokenAcessoRepository.save(token);
 
-        return baseUrl + "/auth/validar-token?valor=" + valorToken;
+    /**
+     * Cria um Magic Link para cada funcionário informado, gravando todos os tokens com um único saveAll
+     * (INSERTs agrupados pelo hibernate.jdbc.batch_size). Não envia notificações.
+     *
+     * @param funcionarios Os funcionários (já persistidos).
+     * @return A URL do Magic Link de cada funcionário, por ID, na ordem recebida.
+     */
+    @Override
+    public Map<UUID, String> gerarLinks(Collection<Funcionario> funcionarios) {
+        Instant agora = Instant.now();
+        Map<UUID, String> linksPorFuncionario = new LinkedHashMap<>();
+        List<TokenAcesso> tokens = new ArrayList<>(funcionarios.size());
+        for (Funcionario funcionario : funcionarios) {
+            String valorToken = novoValorComDono(funcionario.getId());
+            tokens.add(novoTokenAcesso(funcionario, valorToken, agora));
+            linksPorFuncionario.put(funcionario.getId(), montarLink(valorToken));
+        }
+        tokenAcessoRepository.saveAll(tokens);
+        return linksPorFuncionario;
     }
 
 
     /**
      * Valida um token de Magic Link (TokenAcesso). Se for válido, o token é invalidado (marcado como usado)
      * e um código de autorização de curta duração (AuthCode) é gerado para o funcionário.
+     * No modo stateless, o AuthCode não é gravado: o código é um blob cifrado (ver AuthCodeCodec).
      *
      * @param valorToken O valor do token de uso único recebido na URL do Magic Link.
      * @return A entidade AuthCode recém-criada, contendo o código de troca.
@@ -100,35 +161,35 @@ public class MagicLinkServiceImpl implements MagicLinkService {
     @Transactional
     public AuthCode validarMagicLinkEGerarAuthCode(String valorToken) {
 
-        // 1. Busca e valida o Magic Link
-        TokenAcesso tokenAcesso = tokenAcessoRepository.findByToken(valorToken)
-                .orElseThrow(() -> new ResourceNotFoundException("Magic link inválido ou não encontrado."));
+        Instant agora = Instant.now();
+        byte[] tokenHash = TokenHashing.sha256(valorToken);
 
-        // 2. Valida se expirou (pelo tempo de criação)
-        if (tokenAcesso.getExpiraEm().isBefore(Instant.now())) {
-            throw new BusinessException("Este magic link expirou.");
+        // 1. Consome o Magic Link em um único UPDATE condicional.
+        // Requisições concorrentes (preview do WhatsApp, duplo clique) não passam pelo mesmo read-modify-write.
+        int consumidos = tokenAcessoRepository.consumirToken(tokenHash, agora, agora.minus(5, ChronoUnit.MINUTES));
+        if (consumidos == 0) {
+            throw motivoMagicLinkRecusado(tokenHash, agora);
         }
 
-        if (tokenAcesso.isUsado()) {
-            Instant usadoEm = tokenAcesso.getUsadoEm();
-            Instant agora = Instant.now();
-
-            if (usadoEm != null && usadoEm.plus(5, ChronoUnit.MINUTES).isBefore(agora)) {
-                throw new BusinessException("Este magic link já foi utilizado.");
-            }
+        // O hash cobre o valor inteiro, então o dono embutido no valor é o mesmo gravado na linha consumida.
+        // Links emitidos antes do formato "<funcionarioId>.<segredo>" ainda buscam o dono no banco.
+        UUID funcionarioId = donoDoValor(valorToken);
+        if (funcionarioId == null) {
+            funcionarioId = tokenAcessoRepository.findFuncionarioIdByTokenHash(tokenHash)
+                    .orElseThrow(() -> new ResourceNotFoundException("Magic link inválido ou não encontrado."));
         }
 
-        // 3. Invalida o Magic Link
-        tokenAcesso.setUsado(true);
-        tokenAcesso.setUsadoEm(Instant.now());
-        tokenAcessoRepository.save(tokenAcesso);
-
-        // 3. Cria o código de troca de 2 minutos (AuthCode)
+        // 2. Cria o código de troca de 2 minutos (AuthCode)
         AuthCode authCode = new AuthCode();
-        authCode.setFuncionario(tokenAcesso.getFuncionario());
-        authCode.setCode(UUID.randomUUID().toString());
-        authCode.setExpiraEm(Instant.now().plus(120, ChronoUnit.SECONDS)); // 2 minutos de validade
+        authCode.setFuncionario(funcionarioRepository.getReferenceById(funcionarioId));
+        authCode.setExpiraEm(Instant.now().plus(authCodeCodec.getValidade()));
 
+        if (authCodeCodec.isStateless()) {
+            authCode.setCode(authCodeCodec.emitir(funcionarioId, authCode.getExpiraEm()));
+            return authCode;
+        }
+
+        authCode.setCode(novoValorComDono(funcionarioId));
         return authCodeRepository.save(authCode);
     }
 
@@ -156,10 +217,10 @@ public class MagicLinkServiceImpl implements MagicLinkService {
         }
 
         // Regra 2: Validação de segurança (Admin só pode gerar link para seu próprio pátio)        
-        Pateo pateoDoAdmin = pateoRepository.findFirstByGerenciadoPorId(adminLogado.getId())
+        UUID pateoDoAdminId = pateoOwnershipIndex.pateoAtivoDoAdmin(adminLogado.getId())
                 .orElseThrow(() -> new BusinessException("Admin não está associado a nenhum pátio."));
 
-        if (!pateoDoAdmin.getId().equals(funcionario.getPateo().getId())) {
+        if (!pateoDoAdminId.equals(funcionario.getPateo().getId())) {
             throw new SecurityException("Acesso negado: este funcionário não pertence ao seu pátio.");
         }
 
@@ -178,6 +239,70 @@ public class MagicLinkServiceImpl implements MagicLinkService {
     }
 
 
+    /**
+     * Gera novos Magic Links para vários funcionários do pátio do admin em uma única transação
+     * (ex: onboarding de um turno inteiro ou após a expiração de todos os links).
+     * Os tokens são gravados com saveAll, que o Hibernate envia em INSERTs agrupados
+     * (hibernate.jdbc.batch_size), e as notificações seguem em um único lote assíncrono após o commit.
+     *
+     * @param funcionarioIds Os IDs dos funcionários. Se nulo ou vazio, gera para todos os funcionários
+     *                       ativos do pátio que não têm um link válido.
+     * @param adminLogado O UsuarioAdmin autenticado que está realizando a operação.
+     * @return Os links gerados e os IDs ignorados (não encontrados, removidos ou de outro pátio).
+     * @throws BusinessException se o admin não tiver pátio ou a lista exceder o tamanho máximo do lote.
+     */
+    @Override
+    @Transactional
+    public MagicLinkLoteResponse regenerarLinksEmLote(List<UUID> funcionarioIds, UsuarioAdmin adminLogado) {
+        UUID pateoDoAdminId = pateoOwnershipIndex.pateoAtivoDoAdmin(adminLogado.getId())
+                .orElseThrow(() -> new BusinessException("Admin não está associado a nenhum pátio."));
+        Instant agora = Instant.now();
+
+        List<Funcionario> funcionarios;
+        List<UUID> ignorados = new ArrayList<>();
+        if (funcionarioIds == null || funcionarioIds.isEmpty()) {
+            funcionarios = funcionarioRepository.findAllSemLinkValido(pateoDoAdminId, Status.ATIVO, agora);
+        } else {
+            Set<UUID> distintos = new LinkedHashSet<>(funcionarioIds);
+            if (distintos.size() > tamanhoMaximoLote) {
+                throw new BusinessException("É possível gerar no máximo " + tamanhoMaximoLote + " links por requisição.");
+            }
+            Map<UUID, Funcionario> encontrados = funcionarioRepository.findAllById(distintos).stream()
+                    .collect(Collectors.toMap(Funcionario::getId, Function.identity()));
+
+            funcionarios = new ArrayList<>();
+            for (UUID id : distintos) {
+                Funcionario funcionario = encontrados.get(id);
+                // Mesmas regras do regenerarLink, mas sem interromper o lote inteiro por um ID inválido
+                if (funcionario == null || funcionario.getStatus() == Status.REMOVIDO
+                        || !pateoDoAdminId.equals(funcionario.getPateo().getId())) {
+                    ignorados.add(id);
+                } else {
+                    funcionarios.add(funcionario);
+                }
+            }
+        }
+
+        Map<UUID, String> linksPorFuncionario = gerarLinks(funcionarios);
+
+        if (!linksPorFuncionario.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    asyncNotificationOrchestrator.dispararNotificacoesEmLote(linksPorFuncionario);
+                }
+            });
+        }
+        log.info("{} Magic Links gerados em lote para o pátio {} ({} IDs ignorados).",
+                linksPorFuncionario.size(), pateoDoAdminId, ignorados.size());
+
+        List<MagicLinkLoteResponse.Item> links = linksPorFuncionario.entrySet().stream()
+                .map(entry -> new MagicLinkLoteResponse.Item(entry.getKey(), entry.getValue()))
+                .toList();
+        return new MagicLinkLoteResponse(links, ignorados);
+    }
+
+
     /**
      * Gera um novo Magic Link para um funcionário (usado pelo Super Admin).
      * Este método é para uso interno (testes do painel), NÃO realiza validações
@@ -206,72 +331,294 @@ public class MagicLinkServiceImpl implements MagicLinkService {
     @Override
     @Transactional
     public TokenResponse trocarAuthCodePorTokens(String code) {
-        // 1. Busca e valida o código de troca
-        AuthCode authCode = authCodeRepository.findByCode(code)
-                .orElseThrow(() -> new BusinessException("Código de autorização inválido."));
-
-        if (authCode.isUsado()) {
-            throw new BusinessException("Código de autorização já foi utilizado.");
-        }
-        if (authCode.getExpiraEm().isBefore(Instant.now())) {
-            throw new BusinessException("Código de autorização expirou.");
+        // 1 e 2. Queima o AuthCode e carrega o funcionário dono do código
+        Funcionario funcionario = resgatarAuthCode(code);
+        if (!funcionario.isEnabled()) {
+            throw new BusinessException("Funcionário inativo. Procure o administrador do pátio.");
         }
 
-        // 2. Invalida (queima) o AuthCode
-        authCode.setUsado(true);
-        authCodeRepository.save(authCode);
-
-        Funcionario funcionario = authCode.getFuncionario();
-
         // 3. Gera o Access Token (JWT)
         String accessToken = jwtService.generateToken(funcionario);
 
-        // 4. Gera e salva o Refresh Token de longa duração
+        // 4. Gera e salva o Refresh Token de longa duração (início de uma nova família)
+        UUID familiaId = UUID.randomUUID();
         RefreshToken refreshToken = new RefreshToken();
         refreshToken.setFuncionario(funcionario);
-        refreshToken.setToken(UUID.randomUUID().toString());
+        refreshToken.setFamiliaId(familiaId);
+        String valorRefreshToken = novoValorRefreshToken(familiaId);
+        refreshToken.setTokenHash(TokenHashing.sha256(valorRefreshToken));
         refreshToken.setExpiraEm(Instant.now().plus(30, ChronoUnit.DAYS)); // 30 dias
         refreshTokenRepository.save(refreshToken);
 
-        return new TokenResponse(accessToken, refreshToken.getToken());
+        // 5. Registra o login (gravado em lote pelo buffer, fora desta transação)
+        ultimoLoginBuffer.registrar(funcionario.getId(), Instant.now());
+
+        return new TokenResponse(accessToken, valorRefreshToken);
     }
 
 
     /**
      * Valida um Refresh Token. Se válido, gera um novo Access Token (JWT)
-     * e rotaciona o Refresh Token (cria um novo e invalida o antigo).
+     * e rotaciona o Refresh Token "in-place" (novo valor na mesma linha da família).
+     * Se um token antigo da família reaparecer (reuso), a família inteira é revogada.
+     *
+     * A transação não sofre rollback em BusinessException para que a revogação da família
+     * seja gravada mesmo quando a renovação é recusada.
+     *
+     * Janela de tolerância (application.security.refresh-token.grace-segundos): por alguns segundos após
+     * uma rotação, o token recém-rotacionado devolve o mesmo par já emitido, sem novas escritas no banco
+     * (apenas uma leitura confirma que a família não foi revogada ou excluída nesse meio tempo).
+     * Isso absorve retentativas concorrentes de um mesmo dispositivo (ex: rede instável no início do turno)
+     * sem que elas sejam tratadas como reuso. O cache é local ao nó, como o de replay do AuthCodeCodec.
      *
      * @param token O valor do Refresh Token enviado pelo cliente.
      * @return Um novo par de tokens (Access e Refresh).
-     * @throws BusinessException se o Refresh Token for inválido ou expirado.
+     * @throws BusinessException se o Refresh Token for inválido, expirado, revogado ou reutilizado.
      */
     @Override
-    @Transactional
+    @Transactional(noRollbackFor = BusinessException.class)
     public TokenResponse renovarTokens(String token) {
+        Instant agora = Instant.now();
+        byte[] tokenHash = TokenHashing.sha256(token);
+        String chaveGrace = Base64.getEncoder().encodeToString(tokenHash);
+        TokenResponse parRecente = parDaRotacaoRecente(chaveGrace);
+        if (parRecente != null) {
+            return parRecente;
+        }
+        UUID familiaId = familiaDoRefreshToken(token, tokenHash);
+
+        // 1. Rotaciona o refresh token em um único UPDATE condicional
+        String novoToken = novoValorRefreshToken(familiaId);
+        int rotacionados = refreshTokenRepository.rotacionar(
+                familiaId, tokenHash, TokenHashing.sha256(novoToken), agora.plus(30, ChronoUnit.DAYS), agora);
+        if (rotacionados == 0) {
+            // Uma requisição concorrente pode ter acabado de rotacionar este mesmo token
+            parRecente = parDaRotacaoRecente(chaveGrace);
+            if (parRecente != null) {
+                return parRecente;
+            }
+            throw motivoRefreshTokenRecusado(familiaId, tokenHash, agora);
+        }
 
-        // 1. Busca e valida o refresh token
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(token)
+        Funcionario funcionario = refreshTokenRepository.findFuncionarioByFamiliaId(familiaId)
                 .orElseThrow(() -> new BusinessException("Refresh Token inválido."));
-
-        if (refreshToken.getExpiraEm().isBefore(Instant.now())) {
-            refreshTokenRepository.delete(refreshToken); // Limpa o token expirado
-            throw new BusinessException("Refresh Token expirou. Por favor, faça login novamente.");
+        if (!funcionario.isEnabled()) {
+            refreshTokenRepository.revogarFamilia(familiaId, agora);
+            throw new BusinessException("Funcionário inativo. Procure o administrador do pátio.");
         }
 
-        Funcionario funcionario = refreshToken.getFuncionario();
-
         // 2. Gera o novo Access Token (JWT)
         String novoAccessToken = jwtService.generateToken(funcionario);
+        TokenResponse novoPar = new TokenResponse(novoAccessToken, novoToken);
+        ultimoLoginBuffer.registrar(funcionario.getId(), agora);
+
+        // 3. Só após o commit o par pode ser reaproveitado pelas retentativas
+        if (!graceRefresh.isZero()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rotacoesRecentes.put(chaveGrace, new RotacaoRecente(familiaId, novoPar));
+                }
+            });
+        }
+        return novoPar;
+    }
+
 
-        // 3. ROTACIONA O REFRESH TOKEN (por segurança)
-        // Invalida o token antigo e cria um novo.
-        refreshTokenRepository.delete(refreshToken);
-        RefreshToken novoRefreshToken = new RefreshToken();
-        novoRefreshToken.setFuncionario(funcionario);
-        novoRefreshToken.setToken(UUID.randomUUID().toString());
-        novoRefreshToken.setExpiraEm(Instant.now().plus(30, ChronoUnit.DAYS));
-        refreshTokenRepository.save(novoRefreshToken);
+    // --- Métodos Auxiliares ---
 
-        return new TokenResponse(novoAccessToken, novoRefreshToken.getToken());
+    /**
+     * Método auxiliar que monta um TokenAcesso de 24 horas. Apenas o hash do valor é gravado.
+     */
+    private TokenAcesso novoTokenAcesso(Funcionario funcionario, String valorToken, Instant agora) {
+        TokenAcesso token = new TokenAcesso();
+        token.setTokenHash(TokenHashing.sha256(valorToken));
+        token.setFuncionario(funcionario);
+        token.setExpiraEm(agora.plus(24, ChronoUnit.HOURS));
+        token.setUsado(false);
+        return token;
     }
-}
\ No newline at end of file
+
+
+    private String montarLink(String valorToken) {
+        return baseUrl + "/auth/validar-token?valor=" + valorToken;
+    }
+
+
+    /**
+     * Método auxiliar que descobre por que o UPDATE condicional do Magic Link não afetou nenhuma linha.
+     * Só é executado no caminho de falha, para devolver a mensagem de erro correta.
+     */
+    private RuntimeException motivoMagicLinkRecusado(byte[] tokenHash, Instant agora) {
+        TokenAcesso tokenAcesso = tokenAcessoRepository.findByTokenHash(tokenHash).orElse(null);
+        if (tokenAcesso == null) {
+            return new ResourceNotFoundException("Magic link inválido ou não encontrado.");
+        }
+        if (!tokenAcesso.getExpiraEm().isAfter(agora)) {
+            return new BusinessException("Este magic link expirou.");
+        }
+        return new BusinessException("Este magic link já foi utilizado.");
+    }
+
+
+    /**
+     * Método auxiliar que queima um AuthCode e retorna o funcionário dono dele.
+     * Códigos do banco são "<funcionarioId>.<segredo>" (ou UUIDs simples, se emitidos antes desse formato);
+     * os demais são blobs stateless, cujo alfabeto Base64 URL-safe não tem '.'. O formato (e não o modo
+     * configurado) decide o caminho, para que códigos emitidos antes de uma troca de modo continuem válidos.
+     */
+    private Funcionario resgatarAuthCode(String code) {
+        if (!ehCodigoDoBanco(code)) {
+            UUID funcionarioId = authCodeCodec.resgatar(code);
+            return funcionarioRepository.findById(funcionarioId)
+                    .orElseThrow(() -> new BusinessException("Código de autorização inválido."));
+        }
+
+        // UPDATE condicional: só um dos pedidos concorrentes vence
+        int consumidos = authCodeRepository.consumirCodigo(code, Instant.now());
+        if (consumidos == 0) {
+            throw motivoAuthCodeRecusado(code);
+        }
+        UUID funcionarioId = donoDoValor(code);
+        if (funcionarioId == null) {
+            return authCodeRepository.findFuncionarioByCode(code)
+                    .orElseThrow(() -> new BusinessException("Código de autorização inválido."));
+        }
+        return funcionarioRepository.findById(funcionarioId)
+                .orElseThrow(() -> new BusinessException("Código de autorização inválido."));
+    }
+
+
+    private boolean ehCodigoDoBanco(String code) {
+        if (code.indexOf('.') >= 0) {
+            return true;
+        }
+        try {
+            UUID.fromString(code);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+
+    /**
+     * Método auxiliar que monta o valor de um Magic Link ou AuthCode do banco: "<funcionarioId>.<segredo aleatório>".
+     * Assim, o UPDATE condicional que consome o valor já identifica o dono, como a família nos Refresh Tokens.
+     */
+    private String novoValorComDono(UUID funcionarioId) {
+        return funcionarioId + "." + UUID.randomUUID();
+    }
+
+
+    /**
+     * Método auxiliar que extrai o funcionário embutido em um valor "<funcionarioId>.<segredo>".
+     * Só é confiável depois que o UPDATE condicional pelo valor completo afetou uma linha.
+     * @return O ID do funcionário, ou null se o valor não está nesse formato (emitido antes dele).
+     */
+    private UUID donoDoValor(String valor) {
+        int separador = valor.indexOf('.');
+        if (separador < 0) {
+            return null;
+        }
+        try {
+            return UUID.fromString(valor.substring(0, separador));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Método auxiliar que descobre por que o UPDATE condicional do AuthCode não afetou nenhuma linha.
+     */
+    private RuntimeException motivoAuthCodeRecusado(String code) {
+        AuthCode authCode = authCodeRepository.findByCode(code).orElse(null);
+        if (authCode == null) {
+            return new BusinessException("Código de autorização inválido.");
+        }
+        if (authCode.isUsado()) {
+            return new BusinessException("Código de autorização já foi utilizado.");
+        }
+        return new BusinessException("Código de autorização expirou.");
+    }
+
+
+    /**
+     * Método auxiliar que monta o valor de um Refresh Token: "<familiaId>.<segredo aleatório>".
+     */
+    private String novoValorRefreshToken(UUID familiaId) {
+        return familiaId + "." + UUID.randomUUID();
+    }
+
+
+    /**
+     * Método auxiliar que extrai a família de um Refresh Token.
+     * Tokens emitidos antes das famílias (um UUID simples) são resolvidos pelo valor no banco.
+     */
+    private UUID familiaDoRefreshToken(String token, byte[] tokenHash) {
+        int separador = token.indexOf('.');
+        if (separador < 0) {
+            return refreshTokenRepository.findByTokenHash(tokenHash)
+                    .map(RefreshToken::getFamiliaId)
+                    .orElseThrow(() -> new BusinessException("Refresh Token inválido."));
+        }
+        try {
+            return UUID.fromString(token.substring(0, separador));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Refresh Token inválido.");
+        }
+    }
+
+
+    /**
+     * Método auxiliar que devolve o par emitido pela rotação recente de um token, se ainda estiver no cache.
+     * A família é consultada antes de reaproveitar o par: uma revogação (ex: reuso detectado por outra requisição)
+     * ou a exclusão do funcionário feita depois da rotação encerra a sessão também dentro da janela de tolerância.
+     */
+    private TokenResponse parDaRotacaoRecente(String chaveGrace) {
+        RotacaoRecente rotacao = rotacoesRecentes.getIfPresent(chaveGrace);
+        if (rotacao == null) {
+            return null;
+        }
+        if (!refreshTokenRepository.existsByFamiliaIdAndRevogadoEmIsNull(rotacao.familiaId())) {
+            rotacoesRecentes.invalidate(chaveGrace);
+            throw new BusinessException("Sessão encerrada. Por favor, faça login novamente.");
+        }
+        return rotacao.par();
+    }
+
+
+    /**
+     * Método auxiliar que descobre por que a rotação não afetou nenhuma linha.
+     * Se a família existe, está ativa e o token apresentado não é o atual, trata como reuso
+     * (token vazado ou replay) e revoga a família inteira, exceto dentro da janela de tolerância
+     * logo após uma rotação.
+     */
+    private BusinessException motivoRefreshTokenRecusado(UUID familiaId, byte[] tokenHash, Instant agora) {
+        RefreshToken familia = refreshTokenRepository.findByFamiliaId(familiaId).orElse(null);
+        if (familia == null) {
+            return new BusinessException("Refresh Token inválido.");
+        }
+        if (familia.getRevogadoEm() != null) {
+            return new BusinessException("Sessão encerrada. Por favor, faça login novamente.");
+        }
+        if (!Arrays.equals(familia.getTokenHash(), tokenHash)) {
+            if (familia.getRotacionadoEm() != null && familia.getRotacionadoEm().isAfter(agora.minus(graceRefresh))) {
+                // Rotação concorrente ainda não publicada no cache (ou feita em outro nó): não revoga
+                return new BusinessException("Refresh Token renovado há instantes. Tente novamente.");
+            }
+            refreshTokenRepository.revogarFamilia(familiaId, agora);
+            log.warn("Reuso de Refresh Token detectado na família {} (geração atual {}). Família revogada.",
+                    familiaId, familia.getGeracao());
+            return new BusinessException("Sessão encerrada. Por favor, faça login novamente.");
+        }
+        return new BusinessException("Refresh Token expirou. Por favor, faça login novamente.");
+    }
+
+
+    /**
+     * O par emitido por uma rotação recente e a família rotacionada, para checar a revogação antes de reaproveitá-lo.
+     */
+    private record RotacaoRecente(UUID familiaId, TokenResponse par) {}
+}
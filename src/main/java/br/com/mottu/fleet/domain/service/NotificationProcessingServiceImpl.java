@@ -6,9 +6,10 @@ import br.com.mottu.fleet.domain.repository.TokenAcessoRepository;
 import br.com.mottu.fleet.infrastructure.router.NotificationServiceRouter;
 import br.com.mottu.fleet.infrastructure.websocket.WebSocketNotificationService;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,18 +26,18 @@ public class NotificationProcessingServiceImpl implements NotificationProcessing
     private static final Logger log = LoggerFactory.getLogger(NotificationProcessingServiceImpl.class);
 
     private final TokenAcessoRepository tokenAcessoRepository;
-    private final String baseUrl;
+    private final MagicLinkService magicLinkService;
     private final NotificationServiceRouter notificationRouter;
     private final WebSocketNotificationService webSocketService;
 
     public NotificationProcessingServiceImpl(TokenAcessoRepository tokenAcessoRepository,
+                                           MagicLinkService magicLinkService,
                                            NotificationServiceRouter notificationRouter,
-                                           WebSocketNotificationService webSocketService,
-                                           @Value("${application.base-url}") String baseUrl) {
+                                           WebSocketNotificationService webSocketService) {
         this.tokenAcessoRepository = tokenAcessoRepository;
+        this.magicLinkService = magicLinkService;
         this.notificationRouter = notificationRouter;
         this.webSocketService = webSocketService;
-        this.baseUrl = baseUrl;
     }
 
 
@@ -104,14 +105,21 @@ public class NotificationProcessingServiceImpl implements NotificationProcessing
 
     /**
      * Método auxiliar privado para executar a lógica de envio de e-mail.
+     * Como o banco guarda apenas o hash do Magic Link, o link do WhatsApp não pode ser reconstruído:
+     * um novo link é gerado e enviado por e-mail após o commit.
      * @param tokenAcesso O TokenAcesso já carregado com o funcionário.
      */
     private void enviarEmailDeFallback(TokenAcesso tokenAcesso) {
         Funcionario funcionario = tokenAcesso.getFuncionario(); 
-        String magicLinkUrl = baseUrl + "/auth/validar-token?valor=" + tokenAcesso.getToken();
+        String magicLinkUrl = magicLinkService.gerarLink(funcionario);
         
         log.info("Enviando e-mail de fallback para: {}", funcionario.getEmail());
-        notificationRouter.getService("sendGridEmailNotificationServiceImpl")
-            .enviarMagicLink(funcionario, magicLinkUrl);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                notificationRouter.getService("sendGridEmailNotificationServiceImpl")
+                    .enviarMagicLink(funcionario, magicLinkUrl);
+            }
+        });
     }
 }    
\ No newline at end of file
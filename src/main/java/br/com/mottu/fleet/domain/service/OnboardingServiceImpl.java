@@ -4,6 +4,7 @@ import br.com.mottu.fleet.domain.entity.Pateo;
 import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
 import br.com.mottu.fleet.application.dto.web.OnboardingRequest;
 import br.com.mottu.fleet.application.dto.integration.PateoSyncPayload;
+import br.com.mottu.fleet.infrastructure.cache.PateoOwnershipIndex;
 import br.com.mottu.fleet.infrastructure.publisher.InterServiceEventPublisher;
 
 import org.springframework.stereotype.Service;
@@ -24,13 +25,16 @@ public class OnboardingServiceImpl implements OnboardingService {
     private final UsuarioAdminService usuarioAdminService;
     private final PateoService pateoService;
     private final InterServiceEventPublisher eventPublisher;
+    private final PateoOwnershipIndex pateoOwnershipIndex;
 
     public OnboardingServiceImpl(UsuarioAdminService usuarioAdminService, 
                                  PateoService pateoService,
-                                 InterServiceEventPublisher eventPublisher) {
+                                 InterServiceEventPublisher eventPublisher,
+                                 PateoOwnershipIndex pateoOwnershipIndex) {
         this.usuarioAdminService = usuarioAdminService;
         this.pateoService = pateoService;
         this.eventPublisher = eventPublisher;
+        this.pateoOwnershipIndex = pateoOwnershipIndex;
     }
 
 
@@ -47,6 +51,7 @@ public class OnboardingServiceImpl implements OnboardingService {
     public void executar(OnboardingRequest request) {
         UsuarioAdmin adminSalvo = usuarioAdminService.criarAdminDePateo(request);
         Pateo pateoSalvo = pateoService.criarPateo(request, adminSalvo);
+        pateoOwnershipIndex.invalidar(adminSalvo.getId());
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
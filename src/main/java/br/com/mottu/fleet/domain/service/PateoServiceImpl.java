@@ -4,6 +4,7 @@ import br.com.mottu.fleet.application.dto.web.FuncionarioViewModel;
 import br.com.mottu.fleet.application.dto.web.OnboardingRequest;
 import br.com.mottu.fleet.application.dto.web.PateoViewModel;
 import br.com.mottu.fleet.application.dto.integration.PateoSyncPayload;
+import br.com.mottu.fleet.config.TenantContext;
 import br.com.mottu.fleet.domain.entity.Pateo;
 import br.com.mottu.fleet.domain.entity.TokenAcesso;
 import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
@@ -13,16 +14,20 @@ import br.com.mottu.fleet.domain.exception.BusinessException;
 import br.com.mottu.fleet.domain.exception.ResourceNotFoundException;
 import br.com.mottu.fleet.domain.repository.PateoRepository;
 import br.com.mottu.fleet.domain.repository.TokenAcessoRepository;
+import br.com.mottu.fleet.infrastructure.cache.PateoOwnershipIndex;
 import br.com.mottu.fleet.infrastructure.publisher.InterServiceEventPublisher;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -41,20 +46,23 @@ public class PateoServiceImpl implements PateoService {
 
     private final PateoRepository pateoRepository;
     private final TokenAcessoRepository tokenAcessoRepository;
-    private final String baseUrl;
-    private final StorageService storageService;
+    private final ImagemService imagemService;
     private final InterServiceEventPublisher eventPublisher;
+    private final PateoOwnershipIndex pateoOwnershipIndex;
+    private final TransactionTemplate transactionTemplate;
     
     public PateoServiceImpl(PateoRepository pateoRepository,
                             TokenAcessoRepository tokenAcessoRepository,
-                            StorageService storageService,
-                            @Value("${application.base-url}") String baseUrl,
-                            InterServiceEventPublisher eventPublisher) {
+                            ImagemService imagemService,
+                            InterServiceEventPublisher eventPublisher,
+                            PateoOwnershipIndex pateoOwnershipIndex,
+                            PlatformTransactionManager transactionManager) {
         this.pateoRepository = pateoRepository;
         this.tokenAcessoRepository = tokenAcessoRepository;
-        this.baseUrl = baseUrl;
-        this.storageService = storageService;
+        this.imagemService = imagemService;
         this.eventPublisher = eventPublisher;
+        this.pateoOwnershipIndex = pateoOwnershipIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
 
@@ -102,10 +110,7 @@ public class PateoServiceImpl implements PateoService {
     @Override
     public Pateo buscarDetalhesDoPateo(UUID pateoId, UsuarioAdmin adminLogado) {
         // Valida se o pátio pertence ao admin que está fazendo a requisição
-        Pateo pateoDoAdmin = getPateoDoAdmin(adminLogado);
-        if (!pateoDoAdmin.getId().equals(pateoId)) {
-            throw new SecurityException("Acesso negado: este pátio não pertence a você.");
-        }
+        verificarPosseDoPateo(pateoId, adminLogado);
 
         // Usa a query otimizada para buscar o pátio e suas zonas em uma única consulta
         return pateoRepository.findPateoWithZonasById(pateoId)
@@ -136,15 +141,15 @@ public class PateoServiceImpl implements PateoService {
             .collect(Collectors.toMap(
                 token -> token.getFuncionario().getId(), // Chave: ID do Funcionario
                 token -> token,                         // Valor: O objeto TokenAcesso
-                (primeiro, segundo) -> primeiro          // Em caso de duplicata, fica com o primeiro
+                (a, b) -> a.getCriadoEm().isAfter(b.getCriadoEm()) ? a : b // Em caso de duplicata, fica com o mais recente
             ));
 
         // 4. Monta os ViewModels
         List<FuncionarioViewModel> funcionariosComLink = pateo.getFuncionarios().stream()
                 .map(funcionario -> {
-                    Optional<String> linkUrl = Optional.ofNullable(tokenMap.get(funcionario.getId()))
-                            .map(this::buildMagicLinkUrl);
-                    return new FuncionarioViewModel(funcionario, linkUrl);
+                    Optional<OffsetDateTime> linkValidoAte = Optional.ofNullable(tokenMap.get(funcionario.getId()))
+                            .map(token -> token.getExpiraEm().atZone(ZoneId.systemDefault()).toOffsetDateTime());
+                    return new FuncionarioViewModel(funcionario, linkValidoAte);
                 }).toList();
 
         List<Zona> zonaList = new ArrayList<>(pateo.getZonas());
@@ -167,6 +172,8 @@ public class PateoServiceImpl implements PateoService {
     /**
      * Atualiza a planta baixa de um pátio.
      * Esta operação é chamada pelo Super Admin.
+     * A imagem é gravada com suas variantes (original sem metadados, média e miniatura) fora da transação;
+     * apenas a troca da URL e das dimensões é transacional.
      * @param pateoId O ID do pátio a ser atualizado.
      * @param arquivoPlanta O novo arquivo de imagem.
      * @return O Pátio com a URL da planta atualizada.
@@ -175,7 +182,6 @@ public class PateoServiceImpl implements PateoService {
      * @throws ResourceNotFoundException Se o pátio não for encontrado.
      */
     @Override
-    @Transactional
     public Pateo atualizarPlantaBaixa(UUID pateoId, MultipartFile arquivoPlanta, Integer largura, Integer altura) throws IOException {
 
         if (arquivoPlanta == null || arquivoPlanta.isEmpty()) {
@@ -185,47 +191,50 @@ public class PateoServiceImpl implements PateoService {
             throw new BusinessException("As dimensões (largura e altura) são obrigatórias e devem ser maiores que zero.");
         }
 
-        Pateo pateo = pateoRepository.findById(pateoId)
-            .orElseThrow(() -> new ResourceNotFoundException("Pátio com ID " + pateoId + " não encontrado."));
+        if (!pateoRepository.existsById(pateoId)) {
+            throw new ResourceNotFoundException("Pátio com ID " + pateoId + " não encontrado.");
+        }
 
-        String novaPlantaUrl = storageService.upload("plantas", arquivoPlanta);
+        String novaPlantaUrl = imagemService.gravarComVariantes("plantas", arquivoPlanta);
 
-        pateo.setPlantaBaixaUrl(novaPlantaUrl);
-        pateo.setPlantaLargura(largura);
-        pateo.setPlantaAltura(altura);
-        
-        Pateo pateoAtualizado = pateoRepository.save(pateo);
-
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                PateoSyncPayload payload = new PateoSyncPayload(pateoAtualizado);
-                eventPublisher.publishEvent(payload, "PATEO_ATUALIZADO");
-            }
-        });
+        return transactionTemplate.execute(status -> {
+            Pateo pateo = pateoRepository.findById(pateoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Pátio com ID " + pateoId + " não encontrado."));
+
+            pateo.setPlantaBaixaUrl(novaPlantaUrl);
+            pateo.setPlantaLargura(largura);
+            pateo.setPlantaAltura(altura);
+
+            Pateo pateoAtualizado = pateoRepository.save(pateo);
 
-        return pateoAtualizado;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    PateoSyncPayload payload = new PateoSyncPayload(pateoAtualizado);
+                    eventPublisher.publishEvent(payload, "PATEO_ATUALIZADO");
+                }
+            });
+
+            return pateoAtualizado;
+        });
     }
 
 
     // Métodos Auxiliares
 
     /**
-     * Método auxiliar para buscar o Pátio ATIVO associado a um admin logado.
+     * Método auxiliar que valida se o pátio é um pátio ATIVO do admin logado.
+     * Compara primeiro com o pátio do token (TenantContext) e depois com o índice em memória.
      * Centraliza a regra de negócio de que um admin deve ter um pátio ativo.
      */
-    private Pateo getPateoDoAdmin(UsuarioAdmin adminLogado) {
-        return pateoRepository.findAllByGerenciadoPorId(adminLogado.getId())
-                .stream()
-                .filter(pateo -> pateo.getStatus() == Status.ATIVO) 
-                .findFirst()
-                .orElseThrow(() -> new BusinessException("Admin não está associado a nenhum pátio ativo."));
-    }
-
-    /**
-     * Constrói a URL do Magic Link a partir do token de acesso.
-     */
-    private String buildMagicLinkUrl(TokenAcesso token) {
-        return baseUrl + "/auth/validar-token?valor=" + token.getToken();
+    private void verificarPosseDoPateo(UUID pateoId, UsuarioAdmin adminLogado) {
+        if (TenantContext.pateoIdDoUsuario(adminLogado.getId()).filter(pateoId::equals).isPresent()
+                || pateoOwnershipIndex.gerencia(adminLogado.getId(), pateoId)) {
+            return;
+        }
+        if (pateoOwnershipIndex.pateoAtivoDoAdmin(adminLogado.getId()).isEmpty()) {
+            throw new BusinessException("Admin não está associado a nenhum pátio ativo.");
+        }
+        throw new SecurityException("Acesso negado: este pátio não pertence a você.");
     }
 }
\ No newline at end of file
@@ -3,10 +3,27 @@ package br.com.mottu.fleet.domain.service;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface StorageService {
 
+    /**
+     * Autorização para o cliente enviar um arquivo direto ao storage (upload em duas fases):
+     * o cliente faz um PUT do arquivo em 'urlUpload' (com o header x-ms-blob-type: BlockBlob e o
+     * Content-Type informado) e depois confirma o upload informando o 'blobName'.
+     */
+    record TicketUpload(String blobName, String urlUpload, String contentType, long tamanhoMaximo, Instant expiraEm) {}
+
+    /**
+     * Upload direto já validado: a cópia do arquivo sob um nome do servidor, que o cliente não consegue mais alterar.
+     * O 'etag' identifica exatamente o conteúdo validado, para leituras condicionais (If-Match).
+     */
+    record UploadConfirmado(String blobName, String url, String etag, long tamanho) {}
+
     /**
      * Método genérico para upload. Recebe os dados brutos do arquivo.
      * @return A URL pública do arquivo após o upload.
@@ -32,4 +49,66 @@ public interface StorageService {
     }
 
     String gerarUrlAcessoTemporario(String containerName, String blobName);
+
+
+    /**
+     * Gera uma URL SAS de escrita, de curta duração, para o cliente enviar uma imagem direto ao storage.
+     * O nome do blob começa com o prefixo informado (ex: o ID da entidade), para que a confirmação
+     * possa verificar que o blob pertence àquela entidade.
+     * @param containerName O nome do contêiner.
+     * @param prefixo O prefixo do nome do blob.
+     * @param contentType O tipo de mídia da imagem (ex: "image/png").
+     * @return O ticket com o nome do blob e a URL de upload.
+     */
+    TicketUpload gerarTicketUpload(String containerName, String prefixo, String contentType);
+
+
+    /**
+     * Confirma um upload direto: verifica se o nome do blob foi gerado para o prefixo informado,
+     * se o blob existe e se o tamanho e o Content-Type gravados são aceitos. Um blob recusado é removido.
+     * O blob aceito é copiado para um nome do servidor; o blob recebido é removido.
+     * @param containerName O nome do contêiner.
+     * @param prefixo O prefixo usado ao gerar o ticket.
+     * @param blobName O nome do blob informado no ticket.
+     * @return O blob confirmado, com a URL no mesmo formato devolvido pelo upload.
+     */
+    UploadConfirmado confirmarUpload(String containerName, String prefixo, String blobName);
+
+
+    /**
+     * Lê o conteúdo de um upload confirmado (ex: para gerar as variantes da imagem).
+     * A leitura é limitada ao tamanho máximo de upload e condicionada ao ETag confirmado (If-Match).
+     * @param containerName O nome do contêiner.
+     * @param blobName O nome do blob.
+     * @param etag O ETag do conteúdo confirmado.
+     * @return Os bytes do blob.
+     */
+    byte[] baixar(String containerName, String blobName, String etag);
+
+
+    /**
+     * Remove um blob, se ele existir (ex: arquivo enviado para um cadastro que falhou).
+     */
+    void remover(String containerName, String blobName);
+
+
+    /**
+     * Converte, de uma vez, as URLs gravadas no banco (fotos, plantas) nas URLs que o cliente pode acessar.
+     * Em "dev" os contêineres são públicos e as URLs voltam como estão; fora de "dev" cada uma vira uma URL SAS
+     * temporária. URLs nulas ou em branco são ignoradas.
+     * @return A URL acessível de cada URL gravada informada.
+     */
+    Map<String, String> gerarUrlsAcessoTemporario(String containerName, Collection<String> urlsArmazenadas);
+
+
+    /**
+     * Método de conveniência para converter uma única URL gravada no banco.
+     * @return A URL acessível, ou a própria URL se ela for nula ou em branco.
+     */
+    default String gerarUrlAcessivel(String containerName, String urlArmazenada) {
+        if (urlArmazenada == null || urlArmazenada.isBlank()) {
+            return urlArmazenada;
+        }
+        return gerarUrlsAcessoTemporario(containerName, List.of(urlArmazenada)).get(urlArmazenada);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package br.com.mottu.fleet.domain.service;
 
+import br.com.mottu.fleet.config.PrincipalResolver;
 import br.com.mottu.fleet.domain.entity.Funcionario;
 import br.com.mottu.fleet.domain.entity.Pateo;
 import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
@@ -11,6 +12,7 @@ import br.com.mottu.fleet.domain.repository.RefreshTokenRepository;
 import br.com.mottu.fleet.domain.repository.TokenAcessoRepository;
 import br.com.mottu.fleet.domain.enums.Role;
 import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.domain.enums.TipoUsuario;
 import br.com.mottu.fleet.domain.exception.BusinessException;
 import br.com.mottu.fleet.domain.exception.EmailAlreadyExistsException;
 import br.com.mottu.fleet.domain.exception.ResourceNotFoundException;
@@ -18,6 +20,8 @@ import br.com.mottu.fleet.application.dto.api.PasswordChangeRequest;
 import br.com.mottu.fleet.application.dto.web.OnboardingRequest;
 import br.com.mottu.fleet.application.dto.web.UsuarioAdminUpdateRequest;
 import br.com.mottu.fleet.application.dto.web.AdminComPateoViewModel;
+import br.com.mottu.fleet.infrastructure.cache.PateoOwnershipIndex;
+import br.com.mottu.fleet.infrastructure.cache.TokenRevocationRegistry;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -45,6 +49,9 @@ public class UsuarioAdminServiceImpl implements UsuarioAdminService {
     private final TokenAcessoRepository tokenAcessoRepository;
     private final AuthCodeRepository authCodeRepository;
     private final RefreshTokenRepository refreshTokenRepository;
+    private final PrincipalResolver principalResolver;
+    private final PateoOwnershipIndex pateoOwnershipIndex;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
 
     public UsuarioAdminServiceImpl(UsuarioAdminRepository usuarioAdminRepository,
                                    PateoRepository pateoRepository,
@@ -52,7 +59,10 @@ public class UsuarioAdminServiceImpl implements UsuarioAdminService {
                                    FuncionarioRepository funcionarioRepository,
                                    TokenAcessoRepository tokenAcessoRepository,
                                    AuthCodeRepository authCodeRepository,
-                                   RefreshTokenRepository refreshTokenRepository) {
+                                   RefreshTokenRepository refreshTokenRepository,
+                                   PrincipalResolver principalResolver,
+                                   PateoOwnershipIndex pateoOwnershipIndex,
+                                   TokenRevocationRegistry tokenRevocationRegistry) {
         this.usuarioAdminRepository = usuarioAdminRepository;
         this.pateoRepository = pateoRepository;
         this.passwordEncoder = passwordEncoder;
@@ -60,6 +70,9 @@ public class UsuarioAdminServiceImpl implements UsuarioAdminService {
         this.tokenAcessoRepository = tokenAcessoRepository;
         this.authCodeRepository = authCodeRepository;
         this.refreshTokenRepository = refreshTokenRepository;
+        this.principalResolver = principalResolver;
+        this.pateoOwnershipIndex = pateoOwnershipIndex;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
     }
     
 
@@ -87,6 +100,7 @@ public class UsuarioAdminServiceImpl implements UsuarioAdminService {
     /**
      * Realiza o "soft delete" de um administrador e de todos os pátios associados a ele.
      * Regra de Negócio: A desativação de um admin implica na desativação em cascata de suas unidades.
+     * Todos os JWTs já emitidos para o admin são revogados.
      * @param id O UUID do administrador a ser desativado.
      * @throws ResourceNotFoundException se o usuário não for encontrado.
      */
@@ -96,11 +110,14 @@ public class UsuarioAdminServiceImpl implements UsuarioAdminService {
         UsuarioAdmin admin = findAdminById(id);
         admin.setStatus(Status.REMOVIDO);
         usuarioAdminRepository.save(admin);
+        principalResolver.invalidar(TipoUsuario.ADMIN, id);
+        tokenRevocationRegistry.revogar(TipoUsuario.ADMIN, id);
 
         pateoRepository.findAllByGerenciadoPorId(id).forEach(pateo -> {
             pateo.setStatus(Status.REMOVIDO);
             pateoRepository.save(pateo);
         });
+        pateoOwnershipIndex.invalidar(id);
     }
 
 
@@ -134,6 +151,7 @@ public class UsuarioAdminServiceImpl implements UsuarioAdminService {
             adminExistente.setSenha(passwordEncoder.encode(request.getNewPassword()));
         }
         usuarioAdminRepository.save(adminExistente);
+        principalResolver.invalidar(TipoUsuario.ADMIN, adminExistente.getId());
     }
 
 
@@ -165,6 +183,7 @@ public class UsuarioAdminServiceImpl implements UsuarioAdminService {
 
     /**
      * Altera a senha de um administrador de pátio já autenticado.
+     * O admin é recarregado do banco, pois o principal da API é montado a partir das claims do JWT e não carrega a senha.
      * @param adminLogado O objeto UserDetails do administrador logado.
      * @param request DTO contendo a senha atual e a nova senha.
      * @throws BusinessException se a senha atual estiver incorreta.
@@ -172,11 +191,13 @@ public class UsuarioAdminServiceImpl implements UsuarioAdminService {
     @Override
     @Transactional
     public void alterarSenha(UsuarioAdmin adminLogado, PasswordChangeRequest request) {
-        if (!passwordEncoder.matches(request.currentPassword(), adminLogado.getPassword())) {
+        UsuarioAdmin admin = findAdminById(adminLogado.getId());
+        if (!passwordEncoder.matches(request.currentPassword(), admin.getPassword())) {
             throw new BusinessException("A senha atual está incorreta.");
         }
-        adminLogado.setSenha(passwordEncoder.encode(request.newPassword()));
-        usuarioAdminRepository.save(adminLogado);
+        admin.setSenha(passwordEncoder.encode(request.newPassword()));
+        usuarioAdminRepository.save(admin);
+        principalResolver.invalidar(TipoUsuario.ADMIN, admin.getId());
     }
 
     /**
@@ -192,11 +213,13 @@ public class UsuarioAdminServiceImpl implements UsuarioAdminService {
         UsuarioAdmin admin = findAdminById(id);
         admin.setStatus(Status.ATIVO);
         usuarioAdminRepository.save(admin);
+        principalResolver.invalidar(TipoUsuario.ADMIN, id);
 
         pateoRepository.findAllByGerenciadoPorId(id).forEach(pateo -> {
             pateo.setStatus(Status.ATIVO);
             pateoRepository.save(pateo);
         });
+        pateoOwnershipIndex.invalidar(id);
     }
 
 
@@ -219,6 +242,8 @@ public class UsuarioAdminServiceImpl implements UsuarioAdminService {
 
         // 2. Agora o Hard Delete
         funcionarioRepository.deleteById(id);
+        principalResolver.invalidar(TipoUsuario.FUNCIONARIO, id);
+        tokenRevocationRegistry.revogar(TipoUsuario.FUNCIONARIO, id);
     }
 
 
@@ -2,6 +2,7 @@ package br.com.mottu.fleet.domain.service;
 
 import br.com.mottu.fleet.application.dto.api.ZonaRequest;
 import br.com.mottu.fleet.application.dto.integration.ZonaSyncPayload;
+import br.com.mottu.fleet.config.TenantContext;
 import br.com.mottu.fleet.domain.entity.Pateo;
 import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
 import br.com.mottu.fleet.domain.entity.Zona;
@@ -9,6 +10,7 @@ import br.com.mottu.fleet.domain.exception.BusinessException;
 import br.com.mottu.fleet.domain.exception.ResourceNotFoundException;
 import br.com.mottu.fleet.domain.repository.PateoRepository;
 import br.com.mottu.fleet.domain.repository.ZonaRepository;
+import br.com.mottu.fleet.infrastructure.cache.PateoOwnershipIndex;
 import br.com.mottu.fleet.infrastructure.publisher.InterServiceEventPublisher;
 
 import org.springframework.transaction.support.TransactionSynchronization;
@@ -34,14 +36,17 @@ public class ZonaServiceImpl implements ZonaService {
     private final ZonaRepository zonaRepository;
     private final PateoRepository pateoRepository;
     private final InterServiceEventPublisher eventPublisher;
+    private final PateoOwnershipIndex pateoOwnershipIndex;
     private final WKTReader wktReader = new WKTReader();
 
     public ZonaServiceImpl(ZonaRepository zonaRepository, 
                            PateoRepository pateoRepository,
-                           InterServiceEventPublisher eventPublisher) {
+                           InterServiceEventPublisher eventPublisher,
+                           PateoOwnershipIndex pateoOwnershipIndex) {
         this.zonaRepository = zonaRepository;
         this.pateoRepository = pateoRepository;
         this.eventPublisher = eventPublisher;
+        this.pateoOwnershipIndex = pateoOwnershipIndex;
     }
 
 
@@ -169,8 +174,15 @@ public class ZonaServiceImpl implements ZonaService {
     /**
      * Método que busca um pátio e verifica se ele é gerenciado pelo admin logado.
      * Centraliza a principal regra de segurança de acesso.
+     * O caminho comum é uma comparação com o pátio do token (TenantContext) ou com o índice em memória;
+     * o banco só é consultado para diferenciar "pátio inexistente" (404) de "pátio de outro admin" (403).
      */
     private Pateo findPateoAndVerifyOwnership(UUID pateoId, UsuarioAdmin adminLogado) {
+        if (TenantContext.pateoIdDoUsuario(adminLogado.getId()).filter(pateoId::equals).isPresent()
+                || pateoOwnershipIndex.gerencia(adminLogado.getId(), pateoId)) {
+            return pateoRepository.getReferenceById(pateoId);
+        }
+
         Pateo pateo = pateoRepository.findById(pateoId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pátio com ID " + pateoId + " não encontrado."));
 
@@ -0,0 +1,91 @@
+package br.com.mottu.fleet.infrastructure.cache;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Filtro de Bloom thread-safe para UUIDs.
+ * Responde "com certeza não está" ou "talvez esteja" em tempo constante e sem alocação,
+ * servindo como pré-filtro barato antes de consultas em estruturas maiores.
+ * Não suporta remoção; para "esvaziar" o filtro, construa um novo.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final int numeroDeBits;
+    private final int numeroDeHashes;
+
+    /**
+     * @param capacidadeEsperada Quantidade de elementos esperada.
+     * @param taxaFalsoPositivo Taxa de falso positivo desejada para a capacidade esperada (ex: 0.01).
+     */
+    public BloomFilter(int capacidadeEsperada, double taxaFalsoPositivo) {
+        if (capacidadeEsperada <= 0 || taxaFalsoPositivo <= 0 || taxaFalsoPositivo >= 1) {
+            throw new IllegalArgumentException("Capacidade deve ser positiva e a taxa de falso positivo deve estar entre 0 e 1.");
+        }
+        long m = (long) Math.ceil(-capacidadeEsperada * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        this.numeroDeBits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+        this.numeroDeHashes = Math.max(1, (int) Math.round((double) numeroDeBits / capacidadeEsperada * Math.log(2)));
+        this.bits = new AtomicLongArray((numeroDeBits + 63) / 64);
+    }
+
+
+    /**
+     * Adiciona um UUID ao filtro.
+     * @param valor O UUID a ser adicionado.
+     */
+    public void put(UUID valor) {
+        long h1 = mix(valor.getMostSignificantBits() ^ valor.getLeastSignificantBits());
+        long h2 = mix(valor.getLeastSignificantBits() + 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < numeroDeHashes; i++) {
+            int indice = indice(h1 + i * h2);
+            int palavra = indice >>> 6;
+            long mascara = 1L << indice;
+            long atual;
+            do {
+                atual = bits.get(palavra);
+                if ((atual & mascara) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(palavra, atual, atual | mascara));
+        }
+    }
+
+
+    /**
+     * Verifica se um UUID pode estar no filtro.
+     * @param valor O UUID a ser verificado.
+     * @return false se o UUID com certeza não foi adicionado; true se talvez tenha sido.
+     */
+    public boolean mightContain(UUID valor) {
+        long h1 = mix(valor.getMostSignificantBits() ^ valor.getLeastSignificantBits());
+        long h2 = mix(valor.getLeastSignificantBits() + 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < numeroDeHashes; i++) {
+            int indice = indice(h1 + i * h2);
+            if ((bits.get(indice >>> 6) & (1L << indice)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Método auxiliar que mapeia um hash de 64 bits para uma posição do vetor de bits.
+     */
+    private int indice(long hash) {
+        return (int) Math.floorMod(hash, (long) numeroDeBits);
+    }
+
+
+    /**
+     * Método auxiliar de espalhamento (finalizador do SplitMix64).
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,158 @@
+package br.com.mottu.fleet.infrastructure.cache;
+
+import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.domain.repository.PateoRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Índice em memória que responde "quais pátios ATIVOS este admin gerencia?" sem ir ao banco.
+ * É aquecido na inicialização, recarregado periodicamente (para convergir entre instâncias)
+ * e invalidado pelos serviços após o commit de qualquer mudança de posse ou status.
+ * Admins ausentes do índice são carregados do banco sob demanda.
+ *
+ * Cada invalidação incrementa a geração do admin. Uma leitura do banco (recarga completa ou sob demanda)
+ * só é gravada no índice se a geração não mudou desde antes da consulta: assim, uma leitura feita antes
+ * do commit de uma mudança não recoloca a posse antiga depois que a invalidação a removeu.
+ */
+@Component
+public class PateoOwnershipIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PateoOwnershipIndex.class);
+
+    private final PateoRepository pateoRepository;
+    private final Map<UUID, List<UUID>> pateosPorAdmin = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> geracoes = new ConcurrentHashMap<>();
+
+    public PateoOwnershipIndex(PateoRepository pateoRepository) {
+        this.pateoRepository = pateoRepository;
+    }
+
+
+    /**
+     * Carrega o índice completo na inicialização da aplicação e, depois, em intervalos regulares.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${application.cache.pateo-ownership.refresh-ms:300000}",
+               initialDelayString = "${application.cache.pateo-ownership.refresh-ms:300000}")
+    public void recarregar() {
+        Map<UUID, Long> geracoesAntes = Map.copyOf(geracoes);
+        Map<UUID, List<UUID>> novoIndice = new HashMap<>();
+        for (PateoRepository.PosseView posse : pateoRepository.findAllPosseByStatus(Status.ATIVO)) {
+            novoIndice.computeIfAbsent(posse.getAdminId(), id -> new ArrayList<>()).add(posse.getPateoId());
+        }
+
+        // Admins que deixaram de ter pátios ativos também precisam sair do índice (remover é sempre seguro:
+        // no pior caso, o admin é recarregado do banco na próxima consulta)
+        pateosPorAdmin.keySet().retainAll(novoIndice.keySet());
+        novoIndice.forEach((adminId, pateoIds) ->
+                gravarSeAtual(adminId, List.copyOf(pateoIds), geracoesAntes.getOrDefault(adminId, 0L), true));
+        log.debug("Índice de posse de pátios recarregado: {} admins.", novoIndice.size());
+    }
+
+
+    /**
+     * Retorna o pátio ativo gerenciado por um admin (o mais antigo, se houver mais de um).
+     * @param adminId O UUID do UsuarioAdmin.
+     * @return Optional com o ID do pátio, ou vazio se o admin não gerenciar nenhum pátio ativo.
+     */
+    public Optional<UUID> pateoAtivoDoAdmin(UUID adminId) {
+        return pateosDoAdmin(adminId).stream().findFirst();
+    }
+
+
+    /**
+     * Verifica se um admin gerencia um determinado pátio ativo.
+     * @param adminId O UUID do UsuarioAdmin.
+     * @param pateoId O UUID do pátio.
+     * @return true se o pátio estiver ativo e pertencer ao admin.
+     */
+    public boolean gerencia(UUID adminId, UUID pateoId) {
+        return pateosDoAdmin(adminId).contains(pateoId);
+    }
+
+
+    /**
+     * Remove um admin do índice após o commit da transação atual (ou imediatamente, se não houver transação).
+     * A próxima consulta recarrega os pátios desse admin do banco.
+     * @param adminId O UUID do UsuarioAdmin cujos pátios mudaram.
+     */
+    public void invalidar(UUID adminId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remover(adminId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remover(adminId);
+            }
+        });
+    }
+
+
+    /**
+     * Método auxiliar que lê o índice, carregando o admin do banco em caso de ausência.
+     */
+    private List<UUID> pateosDoAdmin(UUID adminId) {
+        List<UUID> pateoIds = pateosPorAdmin.get(adminId);
+        if (pateoIds != null) {
+            return pateoIds;
+        }
+        // A consulta fica fora do computeIfAbsent para não segurar o lock do mapa durante o I/O
+        long geracaoAntes = geracao(adminId);
+        List<UUID> carregados = List.copyOf(pateoRepository.findIdsByGerenciadoPorIdAndStatus(adminId, Status.ATIVO));
+        List<UUID> gravados = gravarSeAtual(adminId, carregados, geracaoAntes, false);
+        // Se uma invalidação chegou durante a consulta, responde com o que foi lido, sem guardar no índice
+        return gravados != null ? gravados : carregados;
+    }
+
+
+    /**
+     * Método auxiliar que grava os pátios lidos do banco apenas se o admin não foi invalidado desde a leitura.
+     * A comparação e a gravação são atômicas por admin (compute); como remover() incrementa a geração antes
+     * de remover a entrada, uma gravação feita com a geração antiga é sempre seguida pela remoção.
+     * @param substituir Se false, mantém uma entrada já presente (carga sob demanda concorrente).
+     * @return A entrada do índice após a operação (null se nada foi gravado).
+     */
+    private List<UUID> gravarSeAtual(UUID adminId, List<UUID> pateoIds, long geracaoAntes, boolean substituir) {
+        return pateosPorAdmin.compute(adminId, (id, atual) -> {
+            if (geracao(id) != geracaoAntes) {
+                return atual;
+            }
+            return atual == null || substituir ? pateoIds : atual;
+        });
+    }
+
+
+    /**
+     * Método auxiliar que invalida um admin: incrementa a geração e só então remove a entrada.
+     */
+    private void remover(UUID adminId) {
+        geracoes.merge(adminId, 1L, Long::sum);
+        pateosPorAdmin.remove(adminId);
+    }
+
+
+    private long geracao(UUID adminId) {
+        return geracoes.getOrDefault(adminId, 0L);
+    }
+
+}
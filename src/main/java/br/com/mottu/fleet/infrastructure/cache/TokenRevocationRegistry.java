@@ -0,0 +1,160 @@
+package br.com.mottu.fleet.infrastructure.cache;
+
+import br.com.mottu.fleet.domain.entity.TokenRevogacao;
+import br.com.mottu.fleet.domain.enums.TipoUsuario;
+import br.com.mottu.fleet.domain.repository.TokenRevogacaoRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Registro de revogação de tokens por sujeito (admin ou funcionário).
+ * Cada revogação grava no banco uma "época": todo JWT do sujeito emitido antes dela é inválido.
+ * As épocas são espelhadas em memória (filtro de Bloom + mapa), para que o JwtAuthenticationFilter
+ * verifique a revogação em O(1) e sem acesso ao banco, e atualizadas de forma incremental a partir
+ * da tabela token_revogacao (para propagar revogações feitas por outras instâncias).
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationRegistry.class);
+
+    // Margem de segurança da leitura incremental: cobre transações que commitam depois do seu 'atualizado_em'
+    private static final Duration MARGEM_LEITURA = Duration.ofSeconds(30);
+    private static final double TAXA_FALSO_POSITIVO = 0.01;
+
+    private final TokenRevogacaoRepository tokenRevogacaoRepository;
+    private final int capacidadeEsperada;
+    private final Map<UUID, Instant> revogacoes = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloomFilter;
+    private volatile Instant ultimaAtualizacao = Instant.EPOCH;
+
+    public TokenRevocationRegistry(TokenRevogacaoRepository tokenRevogacaoRepository,
+                                   @Value("${application.security.revogacao.capacidade-esperada:100000}") int capacidadeEsperada) {
+        this.tokenRevogacaoRepository = tokenRevogacaoRepository;
+        this.capacidadeEsperada = capacidadeEsperada;
+        this.bloomFilter = new BloomFilter(capacidadeEsperada, TAXA_FALSO_POSITIVO);
+    }
+
+
+    /**
+     * Verifica se um token foi revogado.
+     * @param sujeitoId O ID do usuário dono do token (claim "id").
+     * @param emitidoEm O instante de emissão do token (claim "iat").
+     * @return true se o token foi emitido antes da época de revogação do sujeito.
+     */
+    public boolean isRevogado(UUID sujeitoId, Instant emitidoEm) {
+        // Caminho rápido: a grande maioria dos sujeitos nunca foi revogada
+        if (!bloomFilter.mightContain(sujeitoId)) {
+            return false;
+        }
+        Instant revogadoAntesDe = revogacoes.get(sujeitoId);
+        return revogadoAntesDe != null && emitidoEm.isBefore(revogadoAntesDe);
+    }
+
+
+    /**
+     * Revoga todos os tokens já emitidos para um sujeito.
+     * A gravação participa da transação atual; o espelho em memória é atualizado após o commit.
+     * A época é arredondada para o próximo segundo, pois a claim "iat" do JWT tem precisão de segundos.
+     * @param tipo O tipo do usuário.
+     * @param sujeitoId O ID do usuário.
+     */
+    public void revogar(TipoUsuario tipo, UUID sujeitoId) {
+        Instant agora = Instant.now();
+        Instant revogadoAntesDe = agora.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+
+        TokenRevogacao revogacao = tokenRevogacaoRepository.findById(sujeitoId).orElseGet(TokenRevogacao::new);
+        revogacao.setSujeitoId(sujeitoId);
+        revogacao.setTipo(tipo);
+        revogacao.setRevogadoAntesDe(revogadoAntesDe);
+        revogacao.setAtualizadoEm(agora);
+        tokenRevogacaoRepository.save(revogacao);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            aplicar(sujeitoId, revogadoAntesDe);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                aplicar(sujeitoId, revogadoAntesDe);
+            }
+        });
+    }
+
+
+    /**
+     * Reconstrói o registro completo a partir do banco na inicialização e, depois, periodicamente.
+     * A reconstrução também renova o filtro de Bloom, que não suporta remoções.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${application.security.revogacao.recarga-completa-ms:3600000}",
+               initialDelayString = "${application.security.revogacao.recarga-completa-ms:3600000}")
+    public void recarregarTudo() {
+        List<TokenRevogacao> todas = tokenRevogacaoRepository.findAll();
+
+        BloomFilter novoFiltro = new BloomFilter(Math.max(capacidadeEsperada, todas.size() * 2), TAXA_FALSO_POSITIVO);
+        todas.forEach(revogacao -> novoFiltro.put(revogacao.getSujeitoId()));
+        bloomFilter = novoFiltro;
+
+        // Revogações aplicadas localmente durante a troca do filtro não podem se perder
+        revogacoes.keySet().forEach(novoFiltro::put);
+        todas.forEach(this::aplicar);
+        log.info("Registro de revogação de tokens carregado: {} sujeitos revogados.", revogacoes.size());
+    }
+
+
+    /**
+     * Busca no banco apenas as revogações novas ou alteradas desde a última leitura.
+     */
+    @Scheduled(fixedDelayString = "${application.security.revogacao.atualizacao-ms:5000}")
+    public void atualizarIncremental() {
+        List<TokenRevogacao> novas = tokenRevogacaoRepository
+                .findAllByAtualizadoEmAfterOrderByAtualizadoEmAsc(ultimaAtualizacao.minus(MARGEM_LEITURA));
+        novas.forEach(this::aplicar);
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    /**
+     * Método auxiliar que aplica uma revogação lida do banco.
+     */
+    private void aplicar(TokenRevogacao revogacao) {
+        aplicar(revogacao.getSujeitoId(), revogacao.getRevogadoAntesDe());
+        if (revogacao.getAtualizadoEm().isAfter(ultimaAtualizacao)) {
+            ultimaAtualizacao = revogacao.getAtualizadoEm();
+        }
+    }
+
+
+    /**
+     * Método auxiliar que aplica uma revogação em memória, mantendo sempre a época mais recente.
+     * O filtro de Bloom é marcado antes do mapa (para nunca esconder uma entrada existente)
+     * e novamente depois (para o caso de o filtro ter sido trocado por uma recarga no meio do caminho).
+     */
+    private void aplicar(UUID sujeitoId, Instant revogadoAntesDe) {
+        bloomFilter.put(sujeitoId);
+        revogacoes.merge(sujeitoId, revogadoAntesDe, (atual, nova) -> nova.isAfter(atual) ? nova : atual);
+        bloomFilter.put(sujeitoId);
+    }
+
+}
@@ -0,0 +1,210 @@
+package br.com.mottu.fleet.infrastructure.job;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+
+/**
+ * Job agendado que remove os tokens de autenticação que não servem mais:
+ * Magic Links (token_acesso), códigos de troca (auth_code) e Refresh Tokens expirados ou revogados.
+ * Sem ele, essas tabelas (e seus índices únicos) crescem a cada ciclo de login.
+ *
+ * A remoção é feita em lotes pequenos (DELETE ... LIMIT n) com pausas entre eles, para não segurar
+ * locks nem gerar picos de replicação. Um lock nomeado do MySQL (GET_LOCK) garante que apenas um
+ * nó do cluster executa o purge por vez; os demais simplesmente pulam a execução.
+ */
+@Component
+public class TokenPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenPurgeJob.class);
+
+    private static final String NOME_LOCK = "fleet_token_purge";
+
+    /**
+     * Tabela e condição de remoção. O parâmetro da condição é o instante de corte (agora - retenção).
+     * As condições usam colunas indexadas (ver V11) para que cada lote seja um range scan.
+     */
+    private record Regra(String tabela, String condicao) {}
+
+    private static final List<Regra> REGRAS = List.of(
+            new Regra("token_acesso", "expira_em < ?"),
+            new Regra("auth_code", "expira_em < ?"),
+            new Regra("refresh_token", "expira_em < ?"),
+            new Regra("refresh_token", "revogado_em < ?")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean habilitado;
+    private final int tamanhoLote;
+    private final long pausaMs;
+    private final Duration retencao;
+    private final Duration duracaoMaxima;
+
+    public TokenPurgeJob(JdbcTemplate jdbcTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${application.purge.habilitado:true}") boolean habilitado,
+                         @Value("${application.purge.tamanho-lote:1000}") int tamanhoLote,
+                         @Value("${application.purge.pausa-ms:200}") long pausaMs,
+                         @Value("${application.purge.retencao-horas:24}") long retencaoHoras,
+                         @Value("${application.purge.duracao-maxima-ms:120000}") long duracaoMaximaMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.habilitado = habilitado;
+        this.tamanhoLote = tamanhoLote;
+        this.pausaMs = pausaMs;
+        this.retencao = Duration.ofHours(retencaoHoras);
+        this.duracaoMaxima = Duration.ofMillis(duracaoMaximaMs);
+    }
+
+
+    /**
+     * Executa o purge de todas as tabelas de tokens, se este nó conseguir o lock.
+     * Todos os comandos rodam na mesma conexão, pois o GET_LOCK do MySQL pertence à sessão.
+     */
+    @Scheduled(fixedDelayString = "${application.purge.intervalo-ms:900000}",
+               initialDelayString = "${application.purge.atraso-inicial-ms:60000}")
+    public void purgar() {
+        if (!habilitado) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if (!adquirirLock(connection)) {
+                log.debug("Purge de tokens em execução em outro nó. Pulando.");
+                return null;
+            }
+            boolean autoCommitOriginal = connection.getAutoCommit();
+            try {
+                // Cada lote é commitado individualmente
+                connection.setAutoCommit(true);
+                executarRegras(connection);
+            } finally {
+                connection.setAutoCommit(autoCommitOriginal);
+                liberarLock(connection);
+            }
+            return null;
+        });
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    /**
+     * Método auxiliar que aplica cada regra de remoção, respeitando a duração máxima da execução.
+     */
+    private void executarRegras(Connection connection) throws SQLException {
+        Instant corte = Instant.now().minus(retencao).truncatedTo(ChronoUnit.SECONDS);
+        Instant prazo = Instant.now().plus(duracaoMaxima);
+
+        for (Regra regra : REGRAS) {
+            long inicio = System.nanoTime();
+            long removidas = purgarTabela(connection, regra, corte, prazo);
+            long duracaoNanos = System.nanoTime() - inicio;
+
+            Timer.builder("fleet.purge.duracao")
+                    .description("Duração do purge de tokens por tabela")
+                    .tag("tabela", regra.tabela())
+                    .register(meterRegistry)
+                    .record(Duration.ofNanos(duracaoNanos));
+            Counter.builder("fleet.purge.linhas")
+                    .description("Linhas removidas pelo purge de tokens")
+                    .tag("tabela", regra.tabela())
+                    .register(meterRegistry)
+                    .increment(removidas);
+            log.info("Purge de {} ({}): {} linhas removidas em {} ms.",
+                    regra.tabela(), regra.condicao(), removidas, Duration.ofNanos(duracaoNanos).toMillis());
+
+            if (Instant.now().isAfter(prazo)) {
+                log.warn("Purge de tokens interrompido após {} ms; continua na próxima execução.", duracaoMaxima.toMillis());
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Método auxiliar que remove as linhas de uma regra em lotes de 'tamanhoLote', com pausa entre eles.
+     * @return O total de linhas removidas.
+     */
+    private long purgarTabela(Connection connection, Regra regra, Instant corte, Instant prazo) throws SQLException {
+        String sql = "DELETE FROM " + regra.tabela() + " WHERE " + regra.condicao() + " LIMIT ?";
+        long total = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setTimestamp(1, Timestamp.from(corte));
+            statement.setInt(2, tamanhoLote);
+            while (true) {
+                int removidas = statement.executeUpdate();
+                total += removidas;
+                if (removidas < tamanhoLote || Instant.now().isAfter(prazo)) {
+                    return total;
+                }
+                if (!pausar()) {
+                    return total;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Método auxiliar que tenta obter o lock nomeado sem esperar (timeout 0).
+     */
+    private boolean adquirirLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+            statement.setString(1, NOME_LOCK);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+
+    private void liberarLock(Connection connection) {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, NOME_LOCK);
+            statement.executeQuery().close();
+        } catch (SQLException e) {
+            // O MySQL libera o lock de qualquer forma quando a conexão é fechada
+            log.warn("Não foi possível liberar o lock do purge de tokens: {}", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Método auxiliar que pausa entre os lotes.
+     * @return false se a thread foi interrompida (ex: shutdown da aplicação).
+     */
+    private boolean pausar() {
+        if (pausaMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package br.com.mottu.fleet.infrastructure.listener;
 
 import br.com.mottu.fleet.domain.repository.FuncionarioRepository;
+import br.com.mottu.fleet.domain.service.MagicLinkService;
 import br.com.mottu.fleet.infrastructure.router.NotificationServiceRouter;
 import br.com.mottu.fleet.domain.repository.TokenAcessoRepository;
 
@@ -39,19 +40,19 @@ public class EmailFailureListener {
     private final FuncionarioRepository funcionarioRepository;
     private final NotificationServiceRouter notificationRouter;
     private final TokenAcessoRepository tokenAcessoRepository;
-    private final String baseUrl;
+    private final MagicLinkService magicLinkService;
 
     public EmailFailureListener(ObjectMapper objectMapper, 
                                 FuncionarioRepository funcionarioRepository, 
                                 NotificationServiceRouter notificationRouter,
                                 TokenAcessoRepository tokenAcessoRepository,
-                                @Value("${application.base-url}") String baseUrl,
+                                MagicLinkService magicLinkService,
                                 @Value("${spring.jms.servicebus.connection-string}") String connectionString) {
         this.objectMapper = objectMapper;
         this.funcionarioRepository = funcionarioRepository;
         this.notificationRouter = notificationRouter;
         this.tokenAcessoRepository = tokenAcessoRepository;
-        this.baseUrl = baseUrl;
+        this.magicLinkService = magicLinkService;
 
         this.processorClient = new ServiceBusClientBuilder()
                 .connectionString(connectionString)
@@ -115,9 +116,10 @@ public class EmailFailureListener {
                         // Busca o último Magic Link válido para o funcionário
                         tokenAcessoRepository.findFirstByFuncionarioAndUsadoIsFalseAndExpiraEmAfterOrderByCriadoEmDesc(funcionario, Instant.now())
                             .ifPresentOrElse(
-                                // Se encontrou um link válido, aciona o último recurso com o link
+                                // Se encontrou um link válido, aciona o último recurso com um link novo
+                                // (o banco guarda apenas o hash, então o link original não pode ser reconstruído)
                                 token -> {
-                                    String magicLinkReal = baseUrl + "/auth/validar-token?valor=" + token.getToken();
+                                    String magicLinkReal = magicLinkService.gerarLink(funcionario);
                                     log.info("Funcionário {} encontrado. Acionando serviço de último recurso com o link real.", funcionario.getNome());
                                     notificationRouter.getService("lastResortNotificationServiceImpl")
                                         .enviarMagicLink(funcionario, magicLinkReal);
@@ -0,0 +1,153 @@
+package br.com.mottu.fleet.infrastructure.persistence;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Buffer "write-behind" da coluna funcionario.ultimo_login.
+ * Os logins (troca de AuthCode e renovação de tokens) apenas registram o instante em um mapa concorrente,
+ * sem escrever no banco. Vários logins do mesmo funcionário entre dois flushes viram uma única entrada
+ * (fica o mais recente). Periodicamente, as entradas são gravadas em lotes, cada lote com um único
+ * UPDATE ... CASE, e o que estiver pendente também é gravado no shutdown da aplicação.
+ *
+ * Se o nó cair sem shutdown, perde-se no máximo um intervalo de logins, o que é aceitável para um dado
+ * de relatório. A coluna não é gravada pelo JPA (ver Funcionario.ultimoLogin), para que uma edição do
+ * funcionário não sobrescreva o valor gravado aqui.
+ */
+@Component
+public class UltimoLoginBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(UltimoLoginBuffer.class);
+
+    private final Map<UUID, Instant> pendentes = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final int tamanhoLote;
+    private final Counter gravados;
+    private final Timer duracaoFlush;
+
+    public UltimoLoginBuffer(JdbcTemplate jdbcTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${application.ultimo-login.tamanho-lote:500}") int tamanhoLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tamanhoLote = tamanhoLote;
+        this.gravados = Counter.builder("fleet.ultimo-login.gravados")
+                .description("Funcionários com ultimo_login gravado pelo buffer")
+                .register(meterRegistry);
+        this.duracaoFlush = Timer.builder("fleet.ultimo-login.flush")
+                .description("Duração de cada flush do buffer de ultimo_login")
+                .register(meterRegistry);
+        Gauge.builder("fleet.ultimo-login.pendentes", pendentes, Map::size)
+                .description("Funcionários com login ainda não gravado no banco")
+                .register(meterRegistry);
+    }
+
+
+    /**
+     * Registra um login. Não acessa o banco.
+     * @param funcionarioId O ID do funcionário.
+     * @param quando O instante do login.
+     */
+    public void registrar(UUID funcionarioId, Instant quando) {
+        pendentes.merge(funcionarioId, quando, (atual, novo) -> novo.isAfter(atual) ? novo : atual);
+    }
+
+
+    /**
+     * Grava no banco todos os logins pendentes.
+     * Em caso de falha, as entradas voltam para o buffer e são tentadas no próximo flush.
+     */
+    @Scheduled(fixedDelayString = "${application.ultimo-login.intervalo-ms:30000}",
+               initialDelayString = "${application.ultimo-login.intervalo-ms:30000}")
+    public synchronized void flush() {
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        duracaoFlush.record(() -> {
+            List<Map.Entry<UUID, Instant>> lote = new ArrayList<>(tamanhoLote);
+            for (UUID funcionarioId : List.copyOf(pendentes.keySet())) {
+                // remove() devolve o valor mais recente; um login registrado depois disso cria uma nova entrada
+                Instant quando = pendentes.remove(funcionarioId);
+                if (quando != null) {
+                    lote.add(Map.entry(funcionarioId, quando));
+                }
+                if (lote.size() == tamanhoLote) {
+                    gravarLote(lote);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                gravarLote(lote);
+            }
+        });
+    }
+
+
+    @PreDestroy
+    public void encerrar() {
+        flush();
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    /**
+     * Método auxiliar que grava um lote com um único UPDATE:
+     * SET ultimo_login = CASE id WHEN ? THEN ? ... END WHERE id IN (...).
+     * O GREATEST impede que um valor mais antigo (ex: vindo de outro nó) sobrescreva um mais novo.
+     */
+    private void gravarLote(List<Map.Entry<UUID, Instant>> lote) {
+        StringBuilder sql = new StringBuilder(
+                "UPDATE funcionario SET ultimo_login = GREATEST(COALESCE(ultimo_login, TIMESTAMP '1970-01-01 00:00:01'), CASE id");
+        List<Object> parametros = new ArrayList<>(lote.size() * 3);
+        for (Map.Entry<UUID, Instant> entrada : lote) {
+            sql.append(" WHEN ? THEN ?");
+            parametros.add(bytes(entrada.getKey()));
+            parametros.add(Timestamp.from(entrada.getValue()));
+        }
+        sql.append(" END) WHERE id IN (").append(String.join(", ", Collections.nCopies(lote.size(), "?"))).append(')');
+        for (Map.Entry<UUID, Instant> entrada : lote) {
+            parametros.add(bytes(entrada.getKey()));
+        }
+
+        try {
+            jdbcTemplate.update(sql.toString(), parametros.toArray());
+            gravados.increment(lote.size());
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar ultimo_login de {} funcionários; nova tentativa no próximo flush: {}",
+                    lote.size(), e.getMessage());
+            lote.forEach(entrada -> registrar(entrada.getKey(), entrada.getValue()));
+        }
+    }
+
+
+    private static byte[] bytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+}
@@ -0,0 +1,20 @@
+package br.com.mottu.fleet.infrastructure.persistence;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Marca o identificador de uma entidade para ser gerado como UUID versão 7 (ordenado pelo tempo).
+ * Substitui o @GeneratedValue(strategy = GenerationType.UUID), que gera UUIDs v4 aleatórios.
+ * Ver UuidV7Generator.
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface UuidV7 {
+}
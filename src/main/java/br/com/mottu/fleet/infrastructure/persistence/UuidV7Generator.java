@@ -0,0 +1,65 @@
+package br.com.mottu.fleet.infrastructure.persistence;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Gerador de identificadores UUID versão 7 (RFC 9562) para o Hibernate.
+ *
+ * Os 48 bits mais significativos são o timestamp Unix em milissegundos, seguidos de um contador
+ * de 12 bits (rand_a) que garante ordem crescente dentro do mesmo milissegundo, e 62 bits aleatórios.
+ * Como o MySQL compara BINARY(16) byte a byte, novas linhas entram sempre no fim da chave primária
+ * (clustered index do InnoDB), em vez de em páginas aleatórias como acontece com UUIDs v4.
+ */
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // (timestamp em ms << 12) | contador, do último UUID gerado nesta JVM
+    private static final AtomicLong ULTIMO = new AtomicLong();
+
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return novoUuid();
+    }
+
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+
+    /**
+     * Gera um novo UUID v7, monotônico dentro da JVM.
+     * Se o contador de 12 bits estourar no mesmo milissegundo, o timestamp avança 1 ms
+     * (permitido pela RFC) em vez de repetir valores.
+     * @return O UUID gerado.
+     */
+    public static UUID novoUuid() {
+        long agora = System.currentTimeMillis();
+        long anterior;
+        long proximo;
+        do {
+            anterior = ULTIMO.get();
+            proximo = agora > (anterior >>> 12) ? agora << 12 : anterior + 1;
+        } while (!ULTIMO.compareAndSet(anterior, proximo));
+
+        long timestamp = proximo >>> 12;
+        long contador = proximo & 0xFFFL;
+
+        long mostSigBits = (timestamp << 16) | 0x7000L | contador;
+        long leastSigBits = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+}
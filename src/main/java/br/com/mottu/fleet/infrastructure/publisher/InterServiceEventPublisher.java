@@ -9,6 +9,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 public class InterServiceEventPublisher {
 
@@ -53,4 +55,40 @@ public class InterServiceEventPublisher {
             log.error("Falha ao serializar ou enviar mensagem de sincronização ({}): {}", eventType, e.getMessage(), e);
         }
     }
+
+
+    /**
+     * Publica vários eventos do mesmo tipo (ex: funcionários importados em lote) com o mínimo de envios:
+     * as mensagens são agrupadas em ServiceBusMessageBatch, respeitando o tamanho máximo de cada lote.
+     * Cada payload continua sendo uma mensagem própria, no mesmo formato do publishEvent.
+     *
+     * @param payloads Os DTOs de estado.
+     * @param eventType O tipo de evento (ex: "FUNCIONARIO_CRIADO").
+     */
+    @Async
+    public void publishEvents(List<?> payloads, String eventType) {
+        log.info("Publicando {} eventos de sincronização {} em lote para a fila '{}'", payloads.size(), eventType, QUEUE_NAME);
+        try {
+            ServiceBusMessageBatch lote = senderClient.createMessageBatch();
+            for (Object payload : payloads) {
+                ServiceBusMessage message = new ServiceBusMessage(objectMapper.writeValueAsString(new InterServiceMessage(eventType, payload)));
+                message.setContentType("application/json");
+                if (!lote.tryAddMessage(message)) {
+                    // Lote cheio: envia e começa outro com a mensagem atual
+                    senderClient.sendMessages(lote);
+                    lote = senderClient.createMessageBatch();
+                    if (!lote.tryAddMessage(message)) {
+                        throw new IllegalStateException("Mensagem de " + eventType + " maior que o tamanho máximo de um lote.");
+                    }
+                }
+            }
+            if (lote.getCount() > 0) {
+                senderClient.sendMessages(lote);
+            }
+            log.info("{} mensagens de {} enviadas com sucesso.", payloads.size(), eventType);
+
+        } catch (Exception e) {
+            log.error("Falha ao serializar ou enviar mensagens de sincronização em lote ({}): {}", eventType, e.getMessage(), e);
+        }
+    }
 }
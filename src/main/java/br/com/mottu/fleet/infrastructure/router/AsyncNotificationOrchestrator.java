@@ -1,11 +1,13 @@
 package br.com.mottu.fleet.infrastructure.router;
 
+import br.com.mottu.fleet.domain.entity.Funcionario;
 import br.com.mottu.fleet.domain.repository.FuncionarioRepository;
 import br.com.mottu.fleet.domain.service.NotificationService;
 
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
 import java.util.UUID;
 
 import org.slf4j.Logger;
@@ -56,4 +58,27 @@ public class AsyncNotificationOrchestrator {
         });
         
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Dispara o envio de vários Magic Links gerados em lote.
+     * Os funcionários são carregados em uma única consulta; uma falha no envio de um
+     * não interrompe os demais.
+     * @param linksPorFuncionario O Magic Link de cada funcionário, por ID.
+     */
+    @Async
+    public void dispararNotificacoesEmLote(Map<UUID, String> linksPorFuncionario) {
+        log.info("Iniciando envio assíncrono de {} Magic Links em lote.", linksPorFuncionario.size());
+
+        int enviados = 0;
+        for (Funcionario funcionario : funcionarioRepository.findAllById(linksPorFuncionario.keySet())) {
+            try {
+                notificationService.enviarMagicLink(funcionario, linksPorFuncionario.get(funcionario.getId()));
+                enviados++;
+            } catch (Exception e) {
+                log.error("Erro durante o envio assíncrono da notificação para o funcionário ID {}", funcionario.getId(), e);
+            }
+        }
+        log.info("Envio em lote concluído: {} de {} notificações disparadas.", enviados, linksPorFuncionario.size());
+    }
+}
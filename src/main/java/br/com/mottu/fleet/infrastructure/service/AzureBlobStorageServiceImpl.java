@@ -1,5 +1,6 @@
 package br.com.mottu.fleet.infrastructure.service;
 
+import br.com.mottu.fleet.domain.exception.BusinessException;
 import br.com.mottu.fleet.domain.exception.StorageException;
 import br.com.mottu.fleet.domain.service.StorageService;
 
@@ -7,12 +8,25 @@ import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
+import com.azure.core.util.Context;
+import com.azure.core.util.polling.PollResponse;
+import com.azure.storage.blob.models.BlobBeginCopySourceRequestConditions;
+import com.azure.storage.blob.models.BlobCopyInfo;
 import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.models.BlobProperties;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.BlobRequestConditions;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.models.CopyStatusType;
 import com.azure.storage.blob.models.PublicAccessType;
+import com.azure.storage.blob.options.BlobBeginCopyOptions;
 import com.azure.storage.blob.options.BlobParallelUploadOptions;
 import com.azure.storage.blob.sas.BlobSasPermission;
 import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import jakarta.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -20,10 +34,21 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +59,11 @@ import org.slf4j.LoggerFactory;
  * Esta classe é profile-aware:
  * - Em "dev", usa o emulador do Azure Blob Storage (Azurite), cria contêineres públicos e ajusta as URLs para localhost.
  * - Em "prod", conecta ao Azure real, cria contêineres privados e expõe a lógica para gerar URLs SAS.
+ *
+ * As URLs SAS de leitura ficam em cache por (contêiner, blob) e são reaproveitadas enquanto restar mais de
+ * 'restante-minimo' da validade. A expiração é alinhada a janelas fixas de tempo: dentro da mesma janela,
+ * qualquer nó gera exatamente a mesma assinatura para o mesmo blob, então a URL fica estável e o navegador
+ * consegue reaproveitar a imagem do seu cache HTTP.
  */
 @Service
 @Primary
@@ -45,18 +75,59 @@ public class AzureBlobStorageServiceImpl implements StorageService {
     private BlobServiceClient blobServiceClient;
 
     private static final List<String> ALLOWED_IMAGE_TYPES = List.of("image/jpeg", "image/png", "image/gif");
+    private static final Map<String, String> EXTENSOES = Map.of("image/jpeg", ".jpg", "image/png", ".png", "image/gif", ".gif");
+    private static final Duration TIMEOUT_COPIA = Duration.ofSeconds(30);
+
+    /**
+     * URL SAS já assinada e o instante em que ela expira.
+     */
+    private record UrlAssinada(String url, Instant expiraEm) {}
+
+    private final Cache<String, UrlAssinada> urlsAssinadas;
+    private final Duration validadeSas;
+    private final Duration janelaSas;
+    private final Duration restanteMinimoSas;
+    private final Duration validadeUpload;
+    private final long tamanhoMaximoUpload;
+    private final Set<String> conteineresVerificados = ConcurrentHashMap.newKeySet();
+    private final Clock clock;
 
     @Value("${spring.profiles.active:prod}")
     private String activeProfile;
 
     /**
-     * Construtor que injeta a string de conexão.
-     * O valor injetado virá de 'application-dev.properties' (Azurite) ou
+     * Construtor que injeta a string de conexão e a política das URLs SAS.
+     * O valor da conexão virá de 'application-dev.properties' (Azurite) ou
      * 'application.properties' (Azure real).
      * @param connectionString A string de conexão do storage.
+     * @param validadeMinutos Validade mínima de uma URL SAS recém-gerada.
+     * @param janelaMinutos Tamanho da janela à qual a expiração é alinhada.
+     * @param restanteMinimoMinutos Validade restante abaixo da qual a URL em cache é assinada de novo.
+     * @param tamanhoCache Número máximo de URLs SAS em cache.
+     * @param validadeUploadMinutos Validade da URL SAS de escrita do upload direto.
+     * @param tamanhoMaximoUpload Tamanho máximo (bytes) aceito na confirmação do upload direto.
+     * @param clock O relógio usado para calcular a validade das URLs SAS.
      */
-    public AzureBlobStorageServiceImpl(@Value("${azure.storage.connection-string}") String connectionString) {
+    public AzureBlobStorageServiceImpl(@Value("${azure.storage.connection-string}") String connectionString,
+                                       @Value("${application.storage.sas.validade-minutos:15}") long validadeMinutos,
+                                       @Value("${application.storage.sas.janela-minutos:5}") long janelaMinutos,
+                                       @Value("${application.storage.sas.restante-minimo-minutos:2}") long restanteMinimoMinutos,
+                                       @Value("${application.storage.sas.cache-size:20000}") long tamanhoCache,
+                                       @Value("${application.storage.upload.validade-minutos:2}") long validadeUploadMinutos,
+                                       @Value("${application.storage.upload.tamanho-maximo-bytes:5242880}") long tamanhoMaximoUpload,
+                                       Clock clock) {
         this.connectionString = connectionString;
+        this.validadeSas = Duration.ofMinutes(validadeMinutos);
+        this.janelaSas = Duration.ofMinutes(Math.max(1, janelaMinutos));
+        this.restanteMinimoSas = Duration.ofMinutes(restanteMinimoMinutos);
+        this.validadeUpload = Duration.ofMinutes(validadeUploadMinutos);
+        this.tamanhoMaximoUpload = tamanhoMaximoUpload;
+        this.clock = clock;
+        // Nenhuma URL vive mais que validade + janela, então o cache não precisa guardar além disso
+        this.urlsAssinadas = Caffeine.newBuilder()
+                .maximumSize(tamanhoCache)
+                .expireAfterWrite(validadeSas.plus(janelaSas))
+                .build();
     }
 
 
@@ -145,34 +216,263 @@ public class AzureBlobStorageServiceImpl implements StorageService {
 
     /**
      * Gera uma URL de acesso temporário (SAS Token) para um blob privado. (Prod)
+     * Reaproveita a URL em cache enquanto ela ainda tiver validade suficiente.
      * @param containerName O nome do contêiner.
      * @param blobName O nome do arquivo (ex: "foto-uuid.png").
-     * @return Uma URL completa com um token de acesso válido por 5 minutos.
+     * @return Uma URL completa com um token de acesso válido por pelo menos 'restante-minimo'.
      */
     @Override
     public String gerarUrlAcessoTemporario(String containerName, String blobName) {
+        Instant agora = clock.instant();
+        return urlAssinada(containerName, blobName, agora, expiracaoAlinhada(agora));
+    }
+
+
+    /**
+     * Gera as URLs acessíveis de várias URLs gravadas no banco de uma vez.
+     * A expiração é calculada uma única vez para o lote e cada blob repetido é assinado uma única vez;
+     * apenas os blobs sem URL válida em cache são assinados.
+     * @param containerName O nome do contêiner.
+     * @param urlsArmazenadas As URLs gravadas no banco (ex: Funcionario.fotoUrl).
+     * @return A URL acessível de cada URL gravada (nulas e em branco são ignoradas).
+     */
+    @Override
+    public Map<String, String> gerarUrlsAcessoTemporario(String containerName, Collection<String> urlsArmazenadas) {
+        Map<String, String> resultado = new LinkedHashMap<>();
+        Instant agora = clock.instant();
+        Instant expiraEm = expiracaoAlinhada(agora);
+
+        for (String urlArmazenada : urlsArmazenadas) {
+            if (urlArmazenada == null || urlArmazenada.isBlank() || resultado.containsKey(urlArmazenada)) {
+                continue;
+            }
+            if ("dev".equals(activeProfile)) {
+                // Em dev os contêineres são públicos e a URL gravada já aponta para localhost
+                resultado.put(urlArmazenada, urlArmazenada);
+                continue;
+            }
+            String blobName = urlArmazenada.substring(urlArmazenada.lastIndexOf("/") + 1);
+            resultado.put(urlArmazenada, urlAssinada(containerName, blobName, agora, expiraEm));
+        }
+        return resultado;
+    }
+
+
+    /**
+     * Gera o ticket de upload direto: uma URL SAS que permite apenas criar o blob indicado (sem sobrescrever),
+     * válida por 'application.storage.upload.validade-minutos'. Os bytes não passam pela aplicação.
+     * @param containerName O nome do contêiner (ex: "fotos").
+     * @param prefixo O prefixo do nome do blob (ex: o ID do funcionário).
+     * @param contentType O tipo de mídia da imagem.
+     * @return O ticket de upload.
+     * @throws BusinessException Se o tipo de arquivo não for uma imagem aceita.
+     */
+    @Override
+    public TicketUpload gerarTicketUpload(String containerName, String prefixo, String contentType) {
+        String extensao = contentType == null ? null : EXTENSOES.get(contentType);
+        if (extensao == null) {
+            throw new BusinessException("Tipo de arquivo inválido. Apenas imagens (jpeg, png, gif) são permitidas.");
+        }
+
+        String blobName = prefixo + "_" + UUID.randomUUID() + extensao;
+        BlobClient blobClient = getOrCreateContainer(containerName).getBlobClient(blobName);
+
+        Instant expiraEm = clock.instant().plus(validadeUpload);
+        // Apenas "create": o blob não pode ser sobrescrito pela mesma SAS depois de enviado
+        BlobSasPermission permission = new BlobSasPermission().setCreatePermission(true);
+        BlobServiceSasSignatureValues sasValues = new BlobServiceSasSignatureValues(OffsetDateTime.ofInstant(expiraEm, ZoneOffset.UTC), permission);
+
+        String urlUpload = blobClient.getBlobUrl() + "?" + blobClient.generateSas(sasValues);
+        if ("dev".equals(activeProfile)) {
+            urlUpload = urlUpload.replace("azurite", "localhost");
+        }
+        return new TicketUpload(blobName, urlUpload, contentType, tamanhoMaximoUpload, expiraEm);
+    }
+
+
+    /**
+     * Confirma um upload direto, validando o nome, a existência, o tamanho e o Content-Type do blob.
+     * A SAS de escrita não limita o que o cliente envia, então a validação é feita aqui; um blob
+     * recusado é removido para não ficar órfão no contêiner.
+     *
+     * O blob aceito é copiado para um nome do servidor (que nenhuma SAS de escrita cobre), com a cópia
+     * condicionada ao ETag lido na validação: se o cliente trocar o arquivo depois da verificação, a cópia
+     * falha. O blob recebido é então removido, e a URL devolvida aponta sempre para a cópia validada.
+     * @param containerName O nome do contêiner.
+     * @param prefixo O prefixo usado ao gerar o ticket.
+     * @param blobName O nome do blob informado no ticket.
+     * @return O blob confirmado (cópia do servidor).
+     * @throws BusinessException Se o blob não pertencer ao prefixo, não existir, for recusado ou alterado durante a confirmação.
+     * @throws StorageException Se o storage não puder ser consultado.
+     */
+    @Override
+    public UploadConfirmado confirmarUpload(String containerName, String prefixo, String blobName) {
+        if (blobName == null || !Pattern.matches(Pattern.quote(prefixo + "_") + "[0-9a-f-]{36}\\.(jpg|png|gif)", blobName)) {
+            throw new BusinessException("Arquivo de upload inválido para este registro.");
+        }
+
+        BlobClient blobClient = blobServiceClient.getBlobContainerClient(containerName).getBlobClient(blobName);
+        BlobProperties propriedades;
+        try {
+            propriedades = blobClient.getProperties();
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() == 404) {
+                throw new BusinessException("Arquivo não encontrado no storage. Conclua o upload antes de confirmar.");
+            }
+            throw new StorageException("Falha ao verificar o arquivo no storage.", e);
+        }
+
+        if (!ALLOWED_IMAGE_TYPES.contains(propriedades.getContentType())
+                || propriedades.getBlobSize() <= 0 || propriedades.getBlobSize() > tamanhoMaximoUpload) {
+            log.warn("Upload direto recusado: blob '{}' com Content-Type {} e {} bytes.",
+                    blobName, propriedades.getContentType(), propriedades.getBlobSize());
+            remover(containerName, blobName);
+            throw new BusinessException("Arquivo recusado. Apenas imagens (jpeg, png, gif) de até " + tamanhoMaximoUpload + " bytes são permitidas.");
+        }
+
+        String nomeConfirmado = UUID.randomUUID() + blobName.substring(blobName.lastIndexOf('.'));
+        BlobClient confirmado = blobServiceClient.getBlobContainerClient(containerName).getBlobClient(nomeConfirmado);
+        String etagConfirmado = copiarSeInalterado(blobClient, confirmado, propriedades.getETag());
+        remover(containerName, blobName);
+
+        String url = confirmado.getBlobUrl();
+        if ("dev".equals(activeProfile)) {
+            url = url.replace("azurite", "localhost");
+        }
+        return new UploadConfirmado(nomeConfirmado, url, etagConfirmado, propriedades.getBlobSize());
+    }
+
+
+    /**
+     * Lê o conteúdo de um upload confirmado. O download pede só o intervalo [0, tamanho-maximo + 1) e
+     * exige que o blob ainda tenha o ETag confirmado, então nunca traz para a heap mais que o limite
+     * de upload nem um conteúdo diferente do validado.
+     * @param containerName O nome do contêiner.
+     * @param blobName O nome do blob.
+     * @param etag O ETag do conteúdo confirmado.
+     * @return Os bytes do blob.
+     * @throws BusinessException Se o blob mudou desde a confirmação ou excede o tamanho máximo.
+     * @throws StorageException Se o download falhar.
+     */
+    @Override
+    public byte[] baixar(String containerName, String blobName, String etag) {
+        BlobClient blobClient = blobServiceClient.getBlobContainerClient(containerName).getBlobClient(blobName);
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try {
+            blobClient.downloadStreamWithResponse(saida, new BlobRange(0, tamanhoMaximoUpload + 1), null,
+                    new BlobRequestConditions().setIfMatch(etag), false, null, Context.NONE);
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() == 412) {
+                throw new BusinessException("O arquivo foi alterado depois da confirmação. Envie a imagem novamente.");
+            }
+            log.error("Falha no download do blob {} do contêiner {}", blobName, containerName, e);
+            throw new StorageException("Falha ao ler arquivo do storage.", e);
+        } catch (Exception e) {
+            log.error("Falha no download do blob {} do contêiner {}", blobName, containerName, e);
+            throw new StorageException("Falha ao ler arquivo do storage.", e);
+        }
+
+        if (saida.size() > tamanhoMaximoUpload) {
+            throw new BusinessException("Arquivo recusado. Apenas imagens de até " + tamanhoMaximoUpload + " bytes são permitidas.");
+        }
+        return saida.toByteArray();
+    }
+
+
+    /**
+     * Remove um blob, se ele existir. Falhas são apenas registradas: um blob órfão não deve
+     * impedir a operação que o descartou.
+     * @param containerName O nome do contêiner.
+     * @param blobName O nome do blob.
+     */
+    @Override
+    public void remover(String containerName, String blobName) {
+        try {
+            blobServiceClient.getBlobContainerClient(containerName).getBlobClient(blobName).deleteIfExists();
+            urlsAssinadas.invalidate(containerName + "/" + blobName);
+        } catch (Exception e) {
+            log.warn("Não foi possível remover o blob '{}' do contêiner '{}': {}", blobName, containerName, e.getMessage());
+        }
+    }
+
+
+    /**
+     * Método auxiliar que copia o blob recebido para o nome do servidor, apenas se o ETag da origem ainda for
+     * o validado (If-Match). Dentro da mesma conta a cópia é concluída no próprio storage, sem passar os bytes
+     * pela aplicação.
+     * @return O ETag da cópia.
+     */
+    private String copiarSeInalterado(BlobClient origem, BlobClient destino, String etagValidado) {
+        try {
+            PollResponse<BlobCopyInfo> resposta = destino.beginCopy(new BlobBeginCopyOptions(origem.getBlobUrl())
+                            .setSourceRequestConditions(new BlobBeginCopySourceRequestConditions().setIfMatch(etagValidado))
+                            .setPollInterval(Duration.ofMillis(200)))
+                    .waitForCompletion(TIMEOUT_COPIA);
+            BlobCopyInfo copia = resposta.getValue();
+            if (copia == null || copia.getCopyStatus() != CopyStatusType.SUCCESS) {
+                throw new StorageException("A cópia do arquivo enviado não foi concluída: " + (copia == null ? "sem resposta" : copia.getCopyStatus()));
+            }
+            return destino.getProperties().getETag();
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() == 412) {
+                log.warn("Upload direto '{}' alterado depois da validação; confirmação recusada.", origem.getBlobName());
+                remover(origem.getContainerName(), origem.getBlobName());
+                throw new BusinessException("O arquivo foi alterado durante a confirmação. Envie a imagem novamente.");
+            }
+            throw new StorageException("Falha ao copiar o arquivo enviado no storage.", e);
+        }
+    }
+
+
+    /**
+     * Método auxiliar que devolve a URL SAS em cache do blob ou, se ela estiver perto de expirar
+     * (ou não existir), assina uma nova com a expiração informada.
+     */
+    private String urlAssinada(String containerName, String blobName, Instant agora, Instant expiraEm) {
+        String chave = containerName + "/" + blobName;
+        UrlAssinada emCache = urlsAssinadas.getIfPresent(chave);
+        if (emCache != null && emCache.expiraEm().isAfter(agora.plus(restanteMinimoSas))) {
+            return emCache.url();
+        }
 
         // Pega o cliente para o blob específico
         BlobClient blobClient = blobServiceClient.getBlobContainerClient(containerName).getBlobClient(blobName);
 
-        // Define as permissões (apenas Leitura) e a validade (5 minutos)
+        // Define as permissões (apenas Leitura) e a validade; sem horário de início, para que a assinatura
+        // dependa só da janela. O Cache-Control da resposta permite ao navegador reaproveitar a imagem.
         BlobSasPermission permission = new BlobSasPermission().setReadPermission(true);
-        OffsetDateTime expiryTime = OffsetDateTime.now().plusMinutes(5);
-        BlobServiceSasSignatureValues sasValues = new BlobServiceSasSignatureValues(expiryTime, permission);
+        BlobServiceSasSignatureValues sasValues = new BlobServiceSasSignatureValues(OffsetDateTime.ofInstant(expiraEm, ZoneOffset.UTC), permission)
+                .setCacheControl("private, max-age=" + validadeSas.toSeconds());
 
         // Gera o token SAS e o anexa à URL do blob
-        String sasToken = blobClient.generateSas(sasValues);
-        return blobClient.getBlobUrl() + "?" + sasToken;
+        String url = blobClient.getBlobUrl() + "?" + blobClient.generateSas(sasValues);
+        urlsAssinadas.put(chave, new UrlAssinada(url, expiraEm));
+        return url;
+    }
+
+
+    /**
+     * Método auxiliar que calcula a expiração de uma nova URL SAS: agora + validade, arredondado para cima
+     * até o fim da janela corrente. Todas as URLs geradas na mesma janela expiram no mesmo instante.
+     */
+    private Instant expiracaoAlinhada(Instant agora) {
+        long janela = janelaSas.toSeconds();
+        long fim = agora.plus(validadeSas).getEpochSecond();
+        return Instant.ofEpochSecond((fim / janela + 1) * janela);
     }
 
 
     /**
      * Método auxiliar que cria um contêiner se ele não existir.
+     * A verificação é feita uma vez por contêiner; depois disso não há mais chamada de rede.
      * @param containerName O nome do contêiner.
      * @return O cliente do contêiner (BlobContainerClient).
      */
     private BlobContainerClient getOrCreateContainer(String containerName) {
         BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(containerName);
+        if (conteineresVerificados.contains(containerName)) {
+            return containerClient;
+        }
         if (!containerClient.exists()) {
             
             if ("dev".equals(activeProfile)) {
@@ -183,6 +483,7 @@ public class AzureBlobStorageServiceImpl implements StorageService {
                 log.info("Contêiner de blob '{}' criado com acesso PRIVADO (Perfil PROD).", containerName);
             }
         }
+        conteineresVerificados.add(containerName);
         return containerClient;
     }
 
@@ -0,0 +1,463 @@
+package br.com.mottu.fleet.infrastructure.service;
+
+import br.com.mottu.fleet.domain.exception.BusinessException;
+import br.com.mottu.fleet.domain.exception.ImageProcessingOverloadedException;
+import br.com.mottu.fleet.domain.exception.StorageException;
+import br.com.mottu.fleet.domain.service.ImagemService;
+import br.com.mottu.fleet.domain.service.StorageService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Implementação do pipeline de variantes de imagem (fotos de funcionários e plantas de pátio).
+ * Cada imagem recebida é decodificada com ImageIO e regravada em três variantes, lado a lado no contêiner:
+ * ORIGINAL (tamanho cheio), MEDIA e MINIATURA. A regravação descarta os metadados (EXIF, GPS, perfis),
+ * depois de aplicar a orientação EXIF aos pixels. JPEG continua JPEG; PNG e GIF viram PNG.
+ *
+ * A decodificação e o redimensionamento (CPU e memória) rodam em um pool dedicado e limitado, como a
+ * verificação de senhas do login: quando o pool e a fila estão cheios, o upload é rejeitado na hora
+ * (HTTP 503) em vez de acumular imagens na memória. A leitura dos bytes (do formulário ou do storage) também
+ * roda na tarefa do pool, para que só imagens admitidas ocupem a heap. Os uploads das variantes continuam
+ * na thread da requisição.
+ */
+@Service
+public class ImagemServiceImpl implements ImagemService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImagemServiceImpl.class);
+
+    private static final String MENSAGEM_SOBRECARGA = "Muitas imagens em processamento. Tente novamente em instantes.";
+    private static final List<String> ALLOWED_IMAGE_TYPES = List.of("image/jpeg", "image/png", "image/gif");
+
+    /**
+     * Resultado do processamento: os bytes de cada variante, já codificados, e o formato de saída.
+     */
+    private record Variantes(Map<Variante, byte[]> conteudos, String extensao, String contentType) {}
+
+    private final StorageService storageService;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final int ladoMedia;
+    private final int ladoMiniatura;
+    private final float qualidadeJpeg;
+    private final long maxPixels;
+    private final Timer duracaoProcessamento;
+    private final Counter rejeitados;
+
+    public ImagemServiceImpl(StorageService storageService,
+                             MeterRegistry meterRegistry,
+                             @Value("${application.imagens.threads:2}") int threads,
+                             @Value("${application.imagens.queue-size:16}") int queueSize,
+                             @Value("${application.imagens.timeout-ms:20000}") long timeoutMs,
+                             @Value("${application.imagens.lado-media:640}") int ladoMedia,
+                             @Value("${application.imagens.lado-miniatura:160}") int ladoMiniatura,
+                             @Value("${application.imagens.qualidade-jpeg:0.82}") float qualidadeJpeg,
+                             @Value("${application.imagens.max-pixels:40000000}") long maxPixels) {
+        this.storageService = storageService;
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "imagem-worker-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMs = timeoutMs;
+        this.ladoMedia = ladoMedia;
+        this.ladoMiniatura = ladoMiniatura;
+        this.qualidadeJpeg = qualidadeJpeg;
+        this.maxPixels = maxPixels;
+
+        this.duracaoProcessamento = Timer.builder("fleet.imagens.processamento")
+                .description("Tempo de decodificação e geração das variantes de uma imagem")
+                .register(meterRegistry);
+        this.rejeitados = Counter.builder("fleet.imagens.rejeitadas")
+                .description("Uploads de imagem rejeitados por falta de capacidade no pool de processamento")
+                .register(meterRegistry);
+        Gauge.builder("fleet.imagens.fila", executor, e -> e.getQueue().size())
+                .description("Imagens aguardando uma thread de processamento")
+                .register(meterRegistry);
+    }
+
+
+    /**
+     * Valida, processa e grava as variantes de uma imagem enviada por formulário.
+     * @param containerName O nome do contêiner (ex: "fotos").
+     * @param arquivo O arquivo enviado.
+     * @return A URL da variante ORIGINAL.
+     * @throws IOException Se o arquivo não puder ser lido.
+     * @throws BusinessException Se o arquivo não for uma imagem aceita.
+     * @throws ImageProcessingOverloadedException Se não houver capacidade para processar a imagem agora.
+     */
+    @Override
+    public String gravarComVariantes(String containerName, MultipartFile arquivo) throws IOException {
+        if (arquivo == null || arquivo.isEmpty()) {
+            throw new BusinessException("O arquivo da imagem não pode ser vazio.");
+        }
+        if (arquivo.getContentType() == null || !ALLOWED_IMAGE_TYPES.contains(arquivo.getContentType())) {
+            log.warn("Tentativa de upload de tipo de arquivo inválido: {}", arquivo.getContentType());
+            throw new BusinessException("Tipo de arquivo inválido. Apenas imagens (jpeg, png, gif) são permitidas.");
+        }
+
+        Variantes variantes = processarNoPool(arquivo::getBytes);
+        return gravar(containerName, UUID.randomUUID().toString(), variantes);
+    }
+
+
+    /**
+     * Processa uma imagem recebida por upload direto: lê o blob confirmado (limitado ao tamanho máximo e
+     * condicionado ao ETag validado), grava as variantes com o mesmo nome base e remove o blob confirmado
+     * (que ainda tem os metadados originais). Se algo falhar, o blob confirmado também é removido.
+     * @param containerName O nome do contêiner.
+     * @param upload O upload já confirmado pelo StorageService.
+     * @return A URL da variante ORIGINAL.
+     * @throws BusinessException Se o arquivo não for uma imagem válida.
+     * @throws ImageProcessingOverloadedException Se não houver capacidade para processar a imagem agora.
+     */
+    @Override
+    public String gerarVariantesDeUpload(String containerName, StorageService.UploadConfirmado upload) {
+        String blobName = upload.blobName();
+        String urlOriginal;
+        try {
+            Variantes variantes = processarNoPool(() -> storageService.baixar(containerName, blobName, upload.etag()));
+            String base = blobName.contains(".") ? blobName.substring(0, blobName.lastIndexOf('.')) : blobName;
+            urlOriginal = gravar(containerName, base, variantes);
+        } finally {
+            storageService.remover(containerName, blobName);
+        }
+        return urlOriginal;
+    }
+
+
+    /**
+     * Remove a imagem e, se ela tiver sido gravada pelo pipeline, as suas variantes.
+     * @param containerName O nome do contêiner.
+     * @param urlOriginal A URL gravada no banco.
+     */
+    @Override
+    public void remover(String containerName, String urlOriginal) {
+        if (urlOriginal == null || urlOriginal.isBlank()) {
+            return;
+        }
+        storageService.remover(containerName, nomeDoBlob(urlOriginal));
+        for (Variante variante : List.of(Variante.MEDIA, Variante.MINIATURA)) {
+            String url = ImagemService.urlVariante(urlOriginal, variante);
+            if (url != null) {
+                storageService.remover(containerName, nomeDoBlob(url));
+            }
+        }
+    }
+
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    /**
+     * Método auxiliar que submete a leitura e o processamento ao pool limitado e aguarda o resultado.
+     * @param origem Lê os bytes da imagem; só é chamada depois que a tarefa foi admitida no pool.
+     */
+    private Variantes processarNoPool(Callable<byte[]> origem) {
+        Future<Variantes> tarefa;
+        try {
+            tarefa = executor.submit(() -> duracaoProcessamento.recordCallable(() -> processar(origem.call())));
+        } catch (RejectedExecutionException e) {
+            rejeitados.increment();
+            throw new ImageProcessingOverloadedException(MENSAGEM_SOBRECARGA);
+        }
+
+        try {
+            return tarefa.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            log.warn("Falha ao decodificar imagem: {}", e.getCause().getMessage());
+            throw new BusinessException("Não foi possível ler a imagem enviada. Envie um arquivo JPEG, PNG ou GIF válido.");
+        } catch (TimeoutException e) {
+            tarefa.cancel(true);
+            rejeitados.increment();
+            throw new ImageProcessingOverloadedException(MENSAGEM_SOBRECARGA);
+        } catch (InterruptedException e) {
+            tarefa.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new StorageException("Processamento da imagem interrompido.", e);
+        }
+    }
+
+
+    /**
+     * Método auxiliar (executado no pool) que decodifica a imagem e gera as três variantes.
+     * As dimensões são conferidas antes de decodificar os pixels, para recusar "bombas" de descompressão.
+     */
+    private Variantes processar(byte[] dados) throws IOException {
+        BufferedImage imagem;
+        String formato;
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(new ByteArrayInputStream(dados))) {
+            Iterator<ImageReader> leitores = entrada == null ? null : ImageIO.getImageReaders(entrada);
+            if (leitores == null || !leitores.hasNext()) {
+                throw new BusinessException("O arquivo enviado não é uma imagem válida.");
+            }
+            ImageReader leitor = leitores.next();
+            try {
+                // ignoreMetadata = true: os metadados não são nem carregados
+                leitor.setInput(entrada, true, true);
+                if ((long) leitor.getWidth(0) * leitor.getHeight(0) > maxPixels) {
+                    throw new BusinessException("Imagem grande demais. O limite é de " + maxPixels + " pixels.");
+                }
+                formato = leitor.getFormatName().toLowerCase(Locale.ROOT);
+                imagem = leitor.read(0);
+            } finally {
+                leitor.dispose();
+            }
+        }
+
+        boolean jpeg = formato.equals("jpeg") || formato.equals("jpg");
+        if (jpeg) {
+            imagem = aplicarOrientacao(paraRgb(imagem), orientacaoExif(dados));
+        }
+
+        Map<Variante, byte[]> conteudos = new EnumMap<>(Variante.class);
+        conteudos.put(Variante.ORIGINAL, codificar(imagem, jpeg));
+        conteudos.put(Variante.MEDIA, codificar(redimensionar(imagem, ladoMedia), jpeg));
+        conteudos.put(Variante.MINIATURA, codificar(redimensionar(imagem, ladoMiniatura), jpeg));
+        return new Variantes(conteudos, jpeg ? "jpg" : "png", jpeg ? "image/jpeg" : "image/png");
+    }
+
+
+    /**
+     * Método auxiliar que grava as variantes processadas como "<base>_<sufixo>.<extensão>".
+     * Se o upload de uma variante falhar, as variantes já gravadas são removidas.
+     * @return A URL da variante ORIGINAL.
+     */
+    private String gravar(String containerName, String base, Variantes variantes) {
+        String urlOriginal = null;
+        List<String> gravados = new ArrayList<>();
+        try {
+            for (Map.Entry<Variante, byte[]> variante : variantes.conteudos().entrySet()) {
+                String blobName = base + "_" + variante.getKey().sufixo() + "." + variantes.extensao();
+                byte[] conteudo = variante.getValue();
+                String url = storageService.upload(containerName, blobName, new ByteArrayInputStream(conteudo), conteudo.length, variantes.contentType());
+                gravados.add(blobName);
+                if (variante.getKey() == Variante.ORIGINAL) {
+                    urlOriginal = url;
+                }
+            }
+        } catch (RuntimeException e) {
+            gravados.forEach(blobName -> storageService.remover(containerName, blobName));
+            throw e;
+        }
+        return urlOriginal;
+    }
+
+
+    /**
+     * Método auxiliar que reduz a imagem para que o maior lado tenha no máximo 'ladoMaximo' pixels.
+     * Reduções grandes são feitas em etapas de 50% para manter a qualidade com interpolação bilinear.
+     */
+    private static BufferedImage redimensionar(BufferedImage imagem, int ladoMaximo) {
+        int largura = imagem.getWidth();
+        int altura = imagem.getHeight();
+        if (Math.max(largura, altura) <= ladoMaximo) {
+            return imagem;
+        }
+        double escala = (double) ladoMaximo / Math.max(largura, altura);
+        int larguraFinal = Math.max(1, (int) Math.round(largura * escala));
+        int alturaFinal = Math.max(1, (int) Math.round(altura * escala));
+
+        BufferedImage atual = imagem;
+        do {
+            largura = Math.max(larguraFinal, largura / 2);
+            altura = Math.max(alturaFinal, altura / 2);
+            atual = desenhar(atual, largura, altura, new AffineTransform(
+                    (double) largura / atual.getWidth(), 0, 0, (double) altura / atual.getHeight(), 0, 0));
+        } while (largura != larguraFinal || altura != alturaFinal);
+        return atual;
+    }
+
+
+    /**
+     * Método auxiliar que aplica a orientação EXIF aos pixels, já que os metadados com a orientação são descartados.
+     * 3, 6 e 8 são rotações (180°, 90° e 270° no sentido horário); 2 e 4 são espelhamentos horizontal e vertical;
+     * 5 e 7 são as transposições (espelhamento horizontal seguido de rotação de 270° e de 90°).
+     */
+    static BufferedImage aplicarOrientacao(BufferedImage imagem, int orientacao) {
+        int largura = imagem.getWidth();
+        int altura = imagem.getHeight();
+        return switch (orientacao) {
+            case 2 -> desenhar(imagem, largura, altura, new AffineTransform(-1, 0, 0, 1, largura, 0));
+            case 3 -> desenhar(imagem, largura, altura, new AffineTransform(-1, 0, 0, -1, largura, altura));
+            case 4 -> desenhar(imagem, largura, altura, new AffineTransform(1, 0, 0, -1, 0, altura));
+            case 5 -> desenhar(imagem, altura, largura, new AffineTransform(0, 1, 1, 0, 0, 0));
+            case 6 -> desenhar(imagem, altura, largura, new AffineTransform(0, 1, -1, 0, altura, 0));
+            case 7 -> desenhar(imagem, altura, largura, new AffineTransform(0, -1, -1, 0, altura, largura));
+            case 8 -> desenhar(imagem, altura, largura, new AffineTransform(0, -1, 1, 0, 0, largura));
+            default -> imagem;
+        };
+    }
+
+
+    private static BufferedImage desenhar(BufferedImage origem, int largura, int altura, AffineTransform transformacao) {
+        int tipo = origem.getTransparency() == BufferedImage.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage destino = new BufferedImage(largura, altura, tipo);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(origem, transformacao, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+
+    /**
+     * Método auxiliar que converte para RGB sem alfa (o encoder JPEG do ImageIO não aceita alfa).
+     */
+    private static BufferedImage paraRgb(BufferedImage imagem) {
+        if (imagem.getType() == BufferedImage.TYPE_INT_RGB) {
+            return imagem;
+        }
+        return desenhar(imagem, imagem.getWidth(), imagem.getHeight(), new AffineTransform());
+    }
+
+
+    /**
+     * Método auxiliar que codifica a imagem em JPEG (com a qualidade configurada) ou PNG, sem metadados.
+     */
+    private byte[] codificar(BufferedImage imagem, boolean jpeg) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        if (!jpeg) {
+            ImageIO.write(imagem, "png", saida);
+            return saida.toByteArray();
+        }
+
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream destino = ImageIO.createImageOutputStream(saida)) {
+            escritor.setOutput(destino);
+            ImageWriteParam parametros = escritor.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(qualidadeJpeg);
+            escritor.write(null, new IIOImage(paraRgb(imagem), null, null), parametros);
+        } finally {
+            escritor.dispose();
+        }
+        return saida.toByteArray();
+    }
+
+
+    /**
+     * Método auxiliar que lê a tag Orientation (0x0112) do segmento EXIF (APP1) de um JPEG.
+     * @return A orientação (1 a 8), ou 1 se não houver EXIF ou a tag.
+     */
+    static int orientacaoExif(byte[] jpeg) {
+        int posicao = 2; // após o SOI (FF D8)
+        while (posicao + 4 <= jpeg.length && (jpeg[posicao] & 0xFF) == 0xFF) {
+            int marcador = jpeg[posicao + 1] & 0xFF;
+            int tamanho = ((jpeg[posicao + 2] & 0xFF) << 8) | (jpeg[posicao + 3] & 0xFF);
+            if (marcador == 0xDA || tamanho < 2) {
+                return 1; // início dos dados da imagem: não há mais segmentos de metadados
+            }
+            int inicio = posicao + 4;
+            if (marcador == 0xE1 && inicio + 14 <= jpeg.length
+                    && jpeg[inicio] == 'E' && jpeg[inicio + 1] == 'x' && jpeg[inicio + 2] == 'i' && jpeg[inicio + 3] == 'f') {
+                return orientacaoTiff(jpeg, inicio + 6, Math.min(jpeg.length, posicao + 2 + tamanho));
+            }
+            posicao += 2 + tamanho;
+        }
+        return 1;
+    }
+
+
+    private static int orientacaoTiff(byte[] dados, int tiff, int fim) {
+        boolean littleEndian = dados[tiff] == 'I';
+        long deslocamento = lerInteiro(dados, tiff + 4, 4, littleEndian);
+        if (deslocamento < 8 || tiff + deslocamento + 2 > fim) {
+            return 1;
+        }
+        int ifd = tiff + (int) deslocamento;
+        if (ifd + 2 > fim) {
+            return 1;
+        }
+        int entradas = (int) lerInteiro(dados, ifd, 2, littleEndian);
+        for (int i = 0; i < entradas; i++) {
+            int entrada = ifd + 2 + i * 12;
+            if (entrada + 12 > fim) {
+                return 1;
+            }
+            if (lerInteiro(dados, entrada, 2, littleEndian) == 0x0112) {
+                int orientacao = (int) lerInteiro(dados, entrada + 8, 2, littleEndian);
+                return orientacao >= 1 && orientacao <= 8 ? orientacao : 1;
+            }
+        }
+        return 1;
+    }
+
+
+    private static long lerInteiro(byte[] dados, int posicao, int bytes, boolean littleEndian) {
+        long valor = 0;
+        for (int i = 0; i < bytes; i++) {
+            int b = dados[posicao + (littleEndian ? bytes - 1 - i : i)] & 0xFF;
+            valor = (valor << 8) | b;
+        }
+        return valor;
+    }
+
+
+    private static String nomeDoBlob(String url) {
+        String semQuery = url.contains("?") ? url.substring(0, url.indexOf('?')) : url;
+        return semQuery.substring(semQuery.lastIndexOf('/') + 1);
+    }
+
+}
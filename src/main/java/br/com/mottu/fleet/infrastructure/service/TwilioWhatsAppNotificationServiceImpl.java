@@ -1,5 +1,6 @@
 package br.com.mottu.fleet.infrastructure.service;
 
+import br.com.mottu.fleet.config.TokenHashing;
 import br.com.mottu.fleet.domain.entity.Funcionario;
 import br.com.mottu.fleet.domain.entity.TokenAcesso;
 import br.com.mottu.fleet.domain.repository.TokenAcessoRepository;
@@ -58,7 +59,7 @@ public class TwilioWhatsAppNotificationServiceImpl implements NotificationServic
         try {
             // 1. Encontra o TokenAcesso no banco usando o UUID da URL
             String tokenUuid = extrairTokenDaUrl(magicLinkUrl);
-            TokenAcesso tokenAcesso = tokenAcessoRepository.findByToken(tokenUuid)
+            TokenAcesso tokenAcesso = tokenAcessoRepository.findByTokenHash(TokenHashing.sha256(tokenUuid))
                     .orElseThrow(() -> new IllegalStateException("TokenAcesso não encontrado para a URL do Magic Link: " + magicLinkUrl));
 
             // 2. Formata a mensagem
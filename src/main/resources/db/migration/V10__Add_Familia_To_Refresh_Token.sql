@@ -0,0 +1,12 @@
+ALTER TABLE refresh_token
+    ADD COLUMN familia_id BINARY(16) NULL,
+    ADD COLUMN geracao INT NOT NULL DEFAULT 0,
+    ADD COLUMN rotacionado_em DATETIME(6) NULL,
+    ADD COLUMN revogado_em DATETIME(6) NULL;
+
+-- Tokens já emitidos viram famílias de um único membro
+UPDATE refresh_token SET familia_id = id WHERE familia_id IS NULL;
+
+ALTER TABLE refresh_token
+    MODIFY COLUMN familia_id BINARY(16) NOT NULL,
+    ADD CONSTRAINT uk_refresh_token_familia UNIQUE (familia_id);
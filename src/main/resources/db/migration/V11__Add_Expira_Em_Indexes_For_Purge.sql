@@ -0,0 +1,4 @@
+CREATE INDEX idx_token_acesso_expira_em ON token_acesso (expira_em);
+CREATE INDEX idx_auth_code_expira_em ON auth_code (expira_em);
+CREATE INDEX idx_refresh_token_expira_em ON refresh_token (expira_em);
+CREATE INDEX idx_refresh_token_revogado_em ON refresh_token (revogado_em);
@@ -0,0 +1,19 @@
+-- Magic Links: guarda apenas o SHA-256 do valor enviado ao funcionário
+ALTER TABLE token_acesso ADD COLUMN token_hash BINARY(32) NULL;
+
+UPDATE token_acesso SET token_hash = UNHEX(SHA2(token, 256)) WHERE token_hash IS NULL;
+
+ALTER TABLE token_acesso
+    MODIFY COLUMN token_hash BINARY(32) NOT NULL,
+    ADD CONSTRAINT uk_token_acesso_token_hash UNIQUE (token_hash),
+    DROP COLUMN token;
+
+-- Refresh Tokens: mesmo tratamento (o hash cobre o valor completo "<familiaId>.<segredo>")
+ALTER TABLE refresh_token ADD COLUMN token_hash BINARY(32) NULL;
+
+UPDATE refresh_token SET token_hash = UNHEX(SHA2(token, 256)) WHERE token_hash IS NULL;
+
+ALTER TABLE refresh_token
+    MODIFY COLUMN token_hash BINARY(32) NOT NULL,
+    ADD CONSTRAINT uk_refresh_token_token_hash UNIQUE (token_hash),
+    DROP COLUMN token;
@@ -0,0 +1,18 @@
+-- Magic Link mais recente de um funcionário: igualdade em (funcionario_id, usado), leitura já ordenada
+-- por criado_em (sem filesort) e expira_em no próprio índice para o filtro de validade.
+CREATE INDEX idx_token_acesso_funcionario_usado_criado
+    ON token_acesso (funcionario_id, usado, criado_em, expira_em);
+
+-- Lista de funcionários do pátio ordenada por nome. A listagem filtrada (FuncionarioSpecification.comFiltros)
+-- usa os índices de V15, que têm (pateo_id, status[, cargo]) como prefixo
+CREATE INDEX idx_funcionario_pateo_nome ON funcionario (pateo_id, nome);
+
+-- Verificação de telefone duplicado no cadastro
+CREATE INDEX idx_funcionario_telefone ON funcionario (telefone);
+
+-- Listagem paginada de admins de pátio por status
+CREATE INDEX idx_usuario_admin_role_status ON usuario_admin (role, status);
+
+-- Posse dos pátios: cobrem as consultas de IDs ordenadas por created_at (o id vem junto no InnoDB)
+CREATE INDEX idx_pateo_status_created ON pateo (status, created_at, gerenciado_por_id);
+CREATE INDEX idx_pateo_gerenciado_status_created ON pateo (gerenciado_por_id, status, created_at);
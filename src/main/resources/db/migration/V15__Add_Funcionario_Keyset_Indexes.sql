@@ -0,0 +1,7 @@
+-- Paginação por cursor da listagem de funcionários (keyset em nome, id): igualdade em
+-- (pateo_id, status[, cargo]) e leitura já ordenada por nome, sem filesort. O id (PK) vem junto
+-- no InnoDB e serve de desempate entre nomes iguais.
+CREATE INDEX idx_funcionario_pateo_status_nome ON funcionario (pateo_id, status, nome);
+
+-- Mesma listagem filtrada também por cargo; serve ainda para FuncionarioSpecification.comFiltros(status, cargo)
+CREATE INDEX idx_funcionario_pateo_status_cargo_nome ON funcionario (pateo_id, status, cargo, nome);
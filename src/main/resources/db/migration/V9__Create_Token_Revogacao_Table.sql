@@ -0,0 +1,7 @@
+CREATE TABLE token_revogacao (
+    sujeito_id BINARY(16) NOT NULL PRIMARY KEY,
+    tipo VARCHAR(20) NOT NULL,
+    revogado_antes_de DATETIME(6) NOT NULL,
+    atualizado_em DATETIME(6) NOT NULL,
+    INDEX idx_token_revogacao_atualizado_em (atualizado_em)
+);
@@ -0,0 +1,63 @@
+package br.com.mottu.fleet.config;
+
+import br.com.mottu.fleet.domain.exception.BusinessException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+/**
+ * Testes unitários para o `AuthCodeCodec` (AuthCode stateless).
+ */
+class AuthCodeCodecTest {
+
+    private final AuthCodeCodec codec = new AuthCodeCodec("segredo-de-teste", "stateless", 120, 1_000);
+
+    @Test
+    @DisplayName("resgatar: devolve o funcionário do código emitido")
+    void resgatar_codigoValido() {
+        UUID funcionarioId = UUID.randomUUID();
+        String code = codec.emitir(funcionarioId, Instant.now().plusSeconds(120));
+
+        assertThat(codec.resgatar(code)).isEqualTo(funcionarioId);
+    }
+
+    @Test
+    @DisplayName("resgatar: recusa o segundo uso do mesmo código")
+    void resgatar_replay() {
+        String code = codec.emitir(UUID.randomUUID(), Instant.now().plusSeconds(120));
+        codec.resgatar(code);
+
+        assertThatThrownBy(() -> codec.resgatar(code))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("já foi utilizado");
+    }
+
+    @Test
+    @DisplayName("resgatar: recusa código expirado")
+    void resgatar_expirado() {
+        String code = codec.emitir(UUID.randomUUID(), Instant.now().minusSeconds(1));
+
+        assertThatThrownBy(() -> codec.resgatar(code))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("expirou");
+    }
+
+    @Test
+    @DisplayName("resgatar: recusa código adulterado ou emitido com outra chave")
+    void resgatar_adulterado() {
+        String code = codec.emitir(UUID.randomUUID(), Instant.now().plusSeconds(120));
+        char original = code.charAt(30);
+        String adulterado = code.substring(0, 30) + (original == 'A' ? 'B' : 'A') + code.substring(31);
+        AuthCodeCodec outraChave = new AuthCodeCodec("outro-segredo", "stateless", 120, 1_000);
+
+        assertThatThrownBy(() -> codec.resgatar(adulterado)).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> outraChave.resgatar(code)).isInstanceOf(BusinessException.class);
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.mottu.fleet.config;
+
+import br.com.mottu.fleet.infrastructure.cache.PateoOwnershipIndex;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+
+/**
+ * Testes unitários para a escolha da chave de verificação do `JwtService` e a inicialização do `JwtKeyRing`.
+ */
+class JwtServiceTest {
+
+    private static final String SEGREDO = "segredo-de-teste-com-pelo-menos-256-bits-para-o-hs256";
+
+    @Test
+    @DisplayName("verify: com RS256, recusa token HS256 sem kid por padrão")
+    void verify_assimetrico_recusaHs256() {
+        JwtService service = jwtService(new JwtKeyRing("RS256", "", "", true), false);
+
+        assertThatThrownBy(() -> service.verify(tokenHs256()))
+                .isInstanceOf(UnsupportedJwtException.class);
+    }
+
+    @Test
+    @DisplayName("verify: com RS256 e accept-legacy-hs256, aceita token HS256 sem kid")
+    void verify_assimetrico_aceitaHs256Legado() {
+        JwtService service = jwtService(new JwtKeyRing("RS256", "", "", true), true);
+
+        assertThat(service.verify(tokenHs256()).subject()).isEqualTo("admin@mottu.com");
+    }
+
+    @Test
+    @DisplayName("verify: no modo HS256, aceita token sem kid")
+    void verify_hs256() {
+        JwtService service = jwtService(new JwtKeyRing("HS256", "", "", false), false);
+
+        assertThat(service.verify(tokenHs256()).subject()).isEqualTo("admin@mottu.com");
+    }
+
+    @Test
+    @DisplayName("JwtKeyRing: com RS256 e sem chaves no diretório, não sobe sem ephemeral-key")
+    void keyRing_semChaves_falha() {
+        assertThatThrownBy(() -> new JwtKeyRing("RS256", "", "", false))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("keys-dir");
+    }
+
+
+    private static JwtService jwtService(JwtKeyRing keyRing, boolean aceitarHs256Legado) {
+        return new JwtService(SEGREDO, 60_000, 0, 100, aceitarHs256Legado, mock(PateoOwnershipIndex.class), keyRing);
+    }
+
+    private static String tokenHs256() {
+        return Jwts.builder()
+                .subject("admin@mottu.com")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
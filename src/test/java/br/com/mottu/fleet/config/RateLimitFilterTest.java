@@ -0,0 +1,252 @@
+package br.com.mottu.fleet.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.apache.catalina.filters.RemoteIpFilter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Testes unitários para o balde GCRA e para a resposta 429 / releitura do corpo do `RateLimitFilter`.
+ */
+class RateLimitFilterTest {
+
+    private static final long UM_MINUTO = TimeUnit.MINUTES.toNanos(1);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    @DisplayName("Balde: aceita uma rajada do tamanho do limite e recusa a seguinte")
+    void balde_rajadaDoTamanhoDoLimite() {
+        RateLimitFilter.Balde balde = new RateLimitFilter.Balde();
+        long intervalo = UM_MINUTO / 5;
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(balde.consumir(intervalo, UM_MINUTO)).isZero();
+        }
+        long espera = balde.consumir(intervalo, UM_MINUTO);
+        assertThat(espera).isPositive().isLessThanOrEqualTo(intervalo);
+    }
+
+    @Test
+    @DisplayName("Balde: uma recusa não consome ficha")
+    void balde_recusaNaoConsome() {
+        RateLimitFilter.Balde balde = new RateLimitFilter.Balde();
+        long intervalo = UM_MINUTO;
+
+        assertThat(balde.consumir(intervalo, UM_MINUTO)).isZero();
+        long primeiraEspera = balde.consumir(intervalo, UM_MINUTO);
+        long segundaEspera = balde.consumir(intervalo, UM_MINUTO);
+        assertThat(primeiraEspera).isPositive();
+        assertThat(segundaEspera).isPositive().isLessThanOrEqualTo(primeiraEspera);
+    }
+
+    @Test
+    @DisplayName("filtro: esgotado o limite por IP, responde 429 com Retry-After e não chama o controller")
+    void filtro_limitePorIp_responde429() throws Exception {
+        RateLimitFilter filtro = filtro(new int[]{2, 0});
+
+        assertThat(executar(filtro, loginDoIp("10.1.1.1", "a@mottu.com")).chain.getRequest()).isNotNull();
+        assertThat(executar(filtro, loginDoIp("10.1.1.1", "b@mottu.com")).chain.getRequest()).isNotNull();
+        Execucao recusada = executar(filtro, loginDoIp("10.1.1.1", "c@mottu.com"));
+
+        assertThat(recusada.chain.getRequest()).isNull();
+        assertThat(recusada.response.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(recusada.response.getHeader("Retry-After"))).isBetween(1L, 60L);
+        JsonNode corpo = OBJECT_MAPPER.readTree(recusada.response.getContentAsByteArray());
+        assertThat(corpo.get("status").asInt()).isEqualTo(429);
+        assertThat(corpo.get("path").asText()).isEqualTo("/api/auth/login");
+    }
+
+    @Test
+    @DisplayName("filtro: o limite por credencial vale para requisições de IPs diferentes")
+    void filtro_limitePorCredencial_entreIps() throws Exception {
+        RateLimitFilter filtro = filtro(new int[]{0, 1});
+
+        assertThat(executar(filtro, loginDoIp("10.1.1.1", "Alvo@Mottu.com")).response.getStatus()).isEqualTo(200);
+        assertThat(executar(filtro, loginDoIp("10.2.2.2", "alvo@mottu.com ")).response.getStatus()).isEqualTo(429);
+        assertThat(executar(filtro, loginDoIp("10.2.2.2", "outro@mottu.com")).response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("filtro: atrás do RemoteIpValve, um X-Forwarded-For forjado pelo cliente não abre um balde novo")
+    void filtro_xForwardedForForjado_mesmoBalde() throws Exception {
+        RateLimitFilter filtro = filtro(new int[]{1, 0});
+
+        MockHttpServletRequest primeira = loginDoIp("203.0.113.7", "a@mottu.com");
+        primeira.addHeader("X-Forwarded-For", "198.51.100.1");
+        MockHttpServletRequest segunda = loginDoIp("203.0.113.7", "a@mottu.com");
+        segunda.addHeader("X-Forwarded-For", "198.51.100.2");
+
+        assertThat(executarAtrasDoProxy(filtro, primeira).response.getStatus()).isEqualTo(200);
+        assertThat(executarAtrasDoProxy(filtro, segunda).response.getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("filtro: atrás do RemoteIpValve, clientes distintos vindos do proxy interno têm baldes distintos")
+    void filtro_xForwardedForDoProxyInterno_baldesDistintos() throws Exception {
+        RateLimitFilter filtro = filtro(new int[]{1, 0});
+
+        MockHttpServletRequest primeira = loginDoIp("10.0.0.5", "a@mottu.com");
+        primeira.addHeader("X-Forwarded-For", "198.51.100.1");
+        MockHttpServletRequest segunda = loginDoIp("10.0.0.5", "a@mottu.com");
+        segunda.addHeader("X-Forwarded-For", "198.51.100.2");
+
+        Execucao execucao = executarAtrasDoProxy(filtro, primeira);
+        assertThat(execucao.response.getStatus()).isEqualTo(200);
+        assertThat(execucao.requisicaoRepassada().getRemoteAddr()).isEqualTo("198.51.100.1");
+        assertThat(executarAtrasDoProxy(filtro, segunda).response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("filtro: depois de extrair a credencial, o controller lê o corpo completo pelo InputStream")
+    void filtro_corpoReutilizavel_inputStream() throws Exception {
+        String json = "{\"email\":\"a@mottu.com\",\"senha\":\"segredo\"}";
+
+        HttpServletRequest repassada = executar(filtro(new int[]{10, 10}), login("10.1.1.1", json)).requisicaoRepassada();
+
+        assertThat(new String(repassada.getInputStream().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(json);
+    }
+
+    @Test
+    @DisplayName("filtro: depois de extrair a credencial, o controller lê o corpo completo pelo Reader")
+    void filtro_corpoReutilizavel_reader() throws Exception {
+        String json = "{\"email\":\"jose@mottu.com\",\"nome\":\"José\"}";
+
+        HttpServletRequest repassada = executar(filtro(new int[]{10, 10}), login("10.1.1.1", json)).requisicaoRepassada();
+
+        StringBuilder lido = new StringBuilder();
+        repassada.getReader().lines().forEach(lido::append);
+        assertThat(lido.toString()).isEqualTo(json);
+    }
+
+    @Test
+    @DisplayName("filtro: um corpo acima de 16 KiB não é interpretado, mas chega inteiro ao controller")
+    void filtro_corpoGrande_chegaInteiro() throws Exception {
+        String json = "{\"email\":\"a@mottu.com\",\"extra\":\"" + "x".repeat(20_000) + "\"}";
+
+        HttpServletRequest repassada = executar(filtro(new int[]{10, 1}), login("10.1.1.1", json)).requisicaoRepassada();
+
+        assertThat(repassada.getInputStream().readAllBytes()).hasSize(json.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+
+    @Test
+    @DisplayName("filtro: com corpo acima de 16 KiB, isFinished só fica true quando a leitura devolve -1")
+    void filtro_corpoGrande_isFinishedNoFimDoStream() throws Exception {
+        String json = "{\"email\":\"a@mottu.com\",\"extra\":\"" + "x".repeat(20_000) + "\"}";
+
+        ServletInputStream stream = executar(filtro(new int[]{10, 1}), login("10.1.1.1", json))
+                .requisicaoRepassada().getInputStream();
+
+        assertThat(stream.readNBytes(16 * 1024 + 1)).hasSize(16 * 1024 + 1);
+        assertThat(stream.isFinished()).isFalse();
+        stream.readAllBytes();
+        assertThat(stream.isFinished()).isTrue();
+    }
+
+    @Test
+    @DisplayName("filtro: um ReadListener registrado no corpo relido recebe os dados e o aviso de fim")
+    void filtro_corpoReutilizavel_readListener() throws Exception {
+        String json = "{\"email\":\"a@mottu.com\",\"senha\":\"segredo\"}";
+        ServletInputStream stream = executar(filtro(new int[]{10, 10}), login("10.1.1.1", json))
+                .requisicaoRepassada().getInputStream();
+        ByteArrayOutputStream lido = new ByteArrayOutputStream();
+        List<String> eventos = new ArrayList<>();
+
+        stream.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[8];
+                int lidos;
+                while (stream.isReady() && (lidos = stream.read(buffer)) != -1) {
+                    lido.write(buffer, 0, lidos);
+                }
+                eventos.add("dados");
+            }
+
+            @Override
+            public void onAllDataRead() {
+                eventos.add("fim");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                eventos.add("erro");
+            }
+        });
+
+        assertThat(eventos).containsExactly("dados", "fim");
+        assertThat(lido.toString(StandardCharsets.UTF_8)).isEqualTo(json);
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    private record Execucao(MockHttpServletResponse response, MockFilterChain chain) {
+        HttpServletRequest requisicaoRepassada() {
+            assertThat(chain.getRequest()).isNotNull();
+            return (HttpServletRequest) chain.getRequest();
+        }
+    }
+
+    /**
+     * Monta o filtro com o limite {porIp, porCredencial} informado para o login; os demais endpoints ficam sem limite.
+     */
+    private static RateLimitFilter filtro(int[] login) {
+        int[] semLimite = {0, 0};
+        return new RateLimitFilter(OBJECT_MAPPER, new SimpleMeterRegistry(), true, 1_000,
+                semLimite, login, semLimite, semLimite, semLimite);
+    }
+
+    private static Execucao executar(RateLimitFilter filtro, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filtro.doFilter(request, response, chain);
+        return new Execucao(response, chain);
+    }
+
+    /**
+     * Executa o filtro atrás do RemoteIpFilter do Tomcat, que aplica as mesmas regras do RemoteIpValve ligado por
+     * server.forward-headers-strategy=NATIVE: o X-Forwarded-For só vale quando o remoteAddr é um proxy interno.
+     */
+    private static Execucao executarAtrasDoProxy(RateLimitFilter filtro, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        new RemoteIpFilter().doFilter(request, response, (req, res) -> filtro.doFilter(req, res, chain));
+        return new Execucao(response, chain);
+    }
+
+    private static MockHttpServletRequest loginDoIp(String ip, String email) {
+        return login(ip, "{\"email\":\"" + email + "\",\"senha\":\"x\"}");
+    }
+
+    private static MockHttpServletRequest login(String ip, String json) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setCharacterEncoding("UTF-8");
+        request.setContent(json.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
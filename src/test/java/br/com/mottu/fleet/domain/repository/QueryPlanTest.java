@@ -0,0 +1,560 @@
+package br.com.mottu.fleet.domain.repository;
+
+import br.com.mottu.fleet.domain.entity.Funcionario;
+import br.com.mottu.fleet.domain.enums.Cargo;
+import br.com.mottu.fleet.domain.enums.Role;
+import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.domain.repository.specification.FuncionarioSpecification;
+
+import org.flywaydb.core.Flyway;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Regressão de planos de execução: chama cada consulta dos repositórios contra um MySQL do Testcontainers,
+ * captura o SQL gerado pelo Hibernate (StatementInspector) e roda EXPLAIN nele, falhando quando aparece
+ * um full table scan (type=ALL) ou um "Using filesort".
+ *
+ * O schema vem das migrations do Flyway e a massa de dados imita o estado estável da aplicação
+ * (tokens de 15 minutos, purge a cada 15 minutos com 24h de retenção), pois o otimizador escolhe o
+ * plano pelas estatísticas das tabelas. Sem Docker disponível, a classe é ignorada.
+ * Ao criar uma consulta nova no repositório, inclua-a aqui.
+ */
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanTest {
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    private static final CapturaSql CAPTURA = new CapturaSql();
+
+    private static final int ADMINS = 600;
+    private static final int FUNCIONARIOS_POR_PATEO = 10;
+    private static final int TOKENS_POR_FUNCIONARIO = 5;
+
+    private static Connection connection;
+    private static Instant agora;
+
+    // Valores reais da massa de dados, usados como parâmetros das consultas
+    private static UUID adminId;
+    private static UUID pateoId;
+    private static List<UUID> funcionarioIds;
+    private static byte[] tokenHash;
+    private static String twilioSid;
+    private static String authCode;
+    private static UUID familiaId;
+    private static byte[] refreshTokenHash;
+
+    @Autowired private TokenAcessoRepository tokenAcessoRepository;
+    @Autowired private AuthCodeRepository authCodeRepository;
+    @Autowired private RefreshTokenRepository refreshTokenRepository;
+    @Autowired private TokenRevogacaoRepository tokenRevogacaoRepository;
+    @Autowired private FuncionarioRepository funcionarioRepository;
+    @Autowired private PateoRepository pateoRepository;
+    @Autowired private UsuarioAdminRepository usuarioAdminRepository;
+
+    /**
+     * Uma chamada de repositório e os valores que o Hibernate liga a cada comando que ela gera, na ordem dos '?'.
+     * @param tabelaInteira A consulta devolve a tabela inteira: scan completo e filesort são esperados.
+     */
+    private record Consulta(String nome, Consumer<QueryPlanTest> chamada, List<List<Object>> parametrosPorComando,
+                            boolean tabelaInteira) {
+
+        Consulta(String nome, Consumer<QueryPlanTest> chamada, Object... parametros) {
+            this(nome, chamada, List.of(Arrays.asList(parametros)), false);
+        }
+
+        @Override
+        public String toString() {
+            return nome;
+        }
+    }
+
+    /**
+     * Guarda o SQL de cada comando preparado pelo Hibernate, sem alterá-lo.
+     */
+    static final class CapturaSql implements StatementInspector {
+
+        private final List<String> comandos = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            comandos.add(sql);
+            return sql;
+        }
+    }
+
+    @TestConfiguration
+    static class Configuracao {
+
+        @Bean
+        HibernatePropertiesCustomizer capturaSql() {
+            return propriedades -> propriedades.put(AvailableSettings.STATEMENT_INSPECTOR, CAPTURA);
+        }
+    }
+
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+
+    @BeforeAll
+    static void prepararBanco() throws Exception {
+        Flyway.configure().dataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword()).load().migrate();
+
+        connection = DriverManager.getConnection(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+        agora = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        popularTabelas();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE usuario_admin, pateo, zona, funcionario, token_acesso, " +
+                    "auth_code, refresh_token, token_revogacao");
+        }
+    }
+
+
+    @AfterAll
+    static void fecharConexao() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+
+    @BeforeEach
+    void limparCaptura() {
+        CAPTURA.comandos.clear();
+    }
+
+
+    /**
+     * Cada teste roda na transação do @DataJpaTest, desfeita ao final: UPDATEs e DELETEs não alteram a massa.
+     * O EXPLAIN roda em outra conexão, com os mesmos valores que o Hibernate ligou aos '?'.
+     */
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("consultas")
+    void consulta_naoFazScanCompletoNemFilesort(Consulta consulta) throws Exception {
+        consulta.chamada().accept(this);
+        List<String> comandos = List.copyOf(CAPTURA.comandos);
+        assertThat(comandos).as("Comandos gerados por '%s'", consulta.nome())
+                .hasSize(consulta.parametrosPorComando().size());
+
+        List<String> problemas = new ArrayList<>();
+        for (int c = 0; c < comandos.size(); c++) {
+            String sql = comandos.get(c);
+            List<Object> parametros = consulta.parametrosPorComando().get(c);
+            assertThat(sql.chars().filter(ch -> ch == '?').count())
+                    .as("Parâmetros de '%s'", sql)
+                    .isEqualTo(parametros.size());
+            problemas.addAll(problemasDoPlano(sql, parametros, consulta.tabelaInteira()));
+        }
+        assertThat(problemas).as("Plano de '%s'", consulta.nome()).isEmpty();
+    }
+
+
+    /**
+     * O TokenPurgeJob usa SQL nativo (JdbcTemplate), que não passa pelo Hibernate: o SQL é o mesmo que o job monta.
+     */
+    @ParameterizedTest(name = "TokenPurgeJob: {0}")
+    @MethodSource("comandosDoPurge")
+    void purge_naoFazScanCompletoNemFilesort(String sql) throws Exception {
+        Timestamp corte = Timestamp.from(agora.minus(Duration.ofHours(24)));
+
+        assertThat(problemasDoPlano(sql, List.of(corte, 1000), false)).isEmpty();
+    }
+
+
+    static List<Consulta> consultas() {
+        Timestamp ts = Timestamp.from(agora);
+        Instant janelaReuso = agora.minus(Duration.ofMinutes(5));
+        Instant ultimoMinuto = agora.minus(Duration.ofMinutes(1));
+        UUID funcionarioId = funcionarioIds.get(0);
+        byte[] novoHash = sha256("novo");
+        String nome = "Funcionário 1";
+
+        return List.of(
+            // TokenAcessoRepository
+            new Consulta("TokenAcesso.findByTokenHash",
+                    t -> t.tokenAcessoRepository.findByTokenHash(tokenHash), tokenHash),
+            new Consulta("TokenAcesso.consumirToken",
+                    t -> t.tokenAcessoRepository.consumirToken(tokenHash, agora, janelaReuso),
+                    ts, tokenHash, ts, Timestamp.from(janelaReuso)),
+            new Consulta("TokenAcesso.findFuncionarioIdByTokenHash",
+                    t -> t.tokenAcessoRepository.findFuncionarioIdByTokenHash(tokenHash), tokenHash),
+            new Consulta("TokenAcesso.findFirstByFuncionarioAndUsadoIsFalseAndExpiraEmAfterOrderByCriadoEmDesc",
+                    t -> t.tokenAcessoRepository.findFirstByFuncionarioAndUsadoIsFalseAndExpiraEmAfterOrderByCriadoEmDesc(
+                            t.funcionario(funcionarioId), agora),
+                    bytes(funcionarioId), ts, 1),
+            new Consulta("TokenAcesso.findByTwilioMessageSid",
+                    t -> t.tokenAcessoRepository.findByTwilioMessageSid(twilioSid), twilioSid),
+            new Consulta("TokenAcesso.deleteAllByFuncionarioId",
+                    t -> t.tokenAcessoRepository.deleteAllByFuncionarioId(funcionarioId), bytes(funcionarioId)),
+            new Consulta("TokenAcesso.findAllValidTokensByFuncionarioList",
+                    t -> t.tokenAcessoRepository.findAllValidTokensByFuncionarioList(
+                            funcionarioIds.subList(0, 3).stream().map(t::funcionario).toList(), agora),
+                    bytes(funcionarioIds.get(0)), bytes(funcionarioIds.get(1)), bytes(funcionarioIds.get(2)), ts),
+
+            // AuthCodeRepository
+            new Consulta("AuthCode.findByCode",
+                    t -> t.authCodeRepository.findByCode(authCode), authCode),
+            new Consulta("AuthCode.consumirCodigo",
+                    t -> t.authCodeRepository.consumirCodigo(authCode, agora), authCode, ts),
+            new Consulta("AuthCode.findFuncionarioByCode",
+                    t -> t.authCodeRepository.findFuncionarioByCode(authCode), authCode),
+            new Consulta("AuthCode.deleteAllByFuncionarioId",
+                    t -> t.authCodeRepository.deleteAllByFuncionarioId(funcionarioId), bytes(funcionarioId)),
+
+            // RefreshTokenRepository
+            new Consulta("RefreshToken.findByTokenHash",
+                    t -> t.refreshTokenRepository.findByTokenHash(refreshTokenHash), refreshTokenHash),
+            new Consulta("RefreshToken.findByFamiliaId",
+                    t -> t.refreshTokenRepository.findByFamiliaId(familiaId), bytes(familiaId)),
+            new Consulta("RefreshToken.existsByFamiliaIdAndRevogadoEmIsNull",
+                    t -> t.refreshTokenRepository.existsByFamiliaIdAndRevogadoEmIsNull(familiaId), bytes(familiaId), 1),
+            new Consulta("RefreshToken.findFuncionarioByFamiliaId",
+                    t -> t.refreshTokenRepository.findFuncionarioByFamiliaId(familiaId), bytes(familiaId)),
+            new Consulta("RefreshToken.rotacionar",
+                    t -> t.refreshTokenRepository.rotacionar(familiaId, refreshTokenHash, novoHash, agora, agora),
+                    novoHash, ts, ts, bytes(familiaId), refreshTokenHash, ts),
+            new Consulta("RefreshToken.revogarFamilia",
+                    t -> t.refreshTokenRepository.revogarFamilia(familiaId, agora), ts, bytes(familiaId)),
+            new Consulta("RefreshToken.deleteAllByFuncionarioId",
+                    t -> t.refreshTokenRepository.deleteAllByFuncionarioId(funcionarioId), bytes(funcionarioId)),
+
+            // TokenRevogacaoRepository
+            new Consulta("TokenRevogacao.findAllByAtualizadoEmAfterOrderByAtualizadoEmAsc",
+                    t -> t.tokenRevogacaoRepository.findAllByAtualizadoEmAfterOrderByAtualizadoEmAsc(ultimoMinuto),
+                    Timestamp.from(ultimoMinuto)),
+
+            // FuncionarioRepository e FuncionarioSpecification
+            new Consulta("Funcionario.findByEmail",
+                    t -> t.funcionarioRepository.findByEmail("funcionario1@fleet.test"), "funcionario1@fleet.test"),
+            new Consulta("Funcionario.existsByEmail",
+                    t -> t.funcionarioRepository.existsByEmail("funcionario1@fleet.test"), "funcionario1@fleet.test", 1),
+            new Consulta("Funcionario.existsByTelefone",
+                    t -> t.funcionarioRepository.existsByTelefone("11900000001"), "11900000001", 1),
+            new Consulta("Funcionario.findAllWithPateo",
+                    t -> t.funcionarioRepository.findAllWithPateo(), List.of(List.of()), true),
+            new Consulta("Funcionario.findAllByPateoIdWithPateo",
+                    t -> t.funcionarioRepository.findAllByPateoIdWithPateo(pateoId), bytes(pateoId)),
+            new Consulta("Funcionario.findAllSemLinkValido",
+                    t -> t.funcionarioRepository.findAllSemLinkValido(pateoId, Status.ATIVO, agora),
+                    bytes(pateoId), "ATIVO", ts),
+            new Consulta("Funcionario.findContatosExistentes",
+                    t -> t.funcionarioRepository.findContatosExistentes(
+                            List.of("funcionario1@fleet.test", "funcionario2@fleet.test"),
+                            List.of("11900000001", "11900000002")),
+                    "funcionario1@fleet.test", "funcionario2@fleet.test", "11900000001", "11900000002"),
+            new Consulta("Funcionario.findPaginaPorCursor(status)",
+                    t -> t.funcionarioRepository.findPaginaPorCursor(
+                            pateoId, Status.ATIVO, null, nome, new UUID(0, 0), Limit.of(50)),
+                    bytes(pateoId), "ATIVO", null, null, nome, nome, new byte[16], 50),
+            new Consulta("Funcionario.findPaginaPorCursor(status, cargo)",
+                    t -> t.funcionarioRepository.findPaginaPorCursor(
+                            pateoId, Status.ATIVO, Cargo.OPERACIONAL, nome, new UUID(0, 0), Limit.of(50)),
+                    bytes(pateoId), "ATIVO", "OPERACIONAL", "OPERACIONAL", nome, nome, new byte[16], 50),
+            new Consulta("FuncionarioSpecification.comFiltros(status)",
+                    t -> t.funcionarioRepository.findAll(FuncionarioSpecification.comFiltros(pateoId, Status.ATIVO, null)),
+                    bytes(pateoId), "ATIVO"),
+            new Consulta("FuncionarioSpecification.comFiltros(status, cargo)",
+                    t -> t.funcionarioRepository.findAll(
+                            FuncionarioSpecification.comFiltros(pateoId, Status.ATIVO, Cargo.OPERACIONAL)),
+                    bytes(pateoId), "ATIVO", "OPERACIONAL"),
+
+            // PateoRepository
+            new Consulta("Pateo.findAllByGerenciadoPorId",
+                    t -> t.pateoRepository.findAllByGerenciadoPorId(adminId), bytes(adminId)),
+            new Consulta("Pateo.findAllByStatus",
+                    t -> t.pateoRepository.findAllByStatus(Status.ATIVO), List.of(List.of("ATIVO")), true),
+            new Consulta("Pateo.findPateoWithZonasById",
+                    t -> t.pateoRepository.findPateoWithZonasById(pateoId), bytes(pateoId)),
+            new Consulta("Pateo.findPateoWithDetailsById",
+                    t -> t.pateoRepository.findPateoWithDetailsById(pateoId), bytes(pateoId)),
+            new Consulta("Pateo.findFirstByGerenciadoPorId",
+                    t -> t.pateoRepository.findFirstByGerenciadoPorId(adminId), bytes(adminId), 1),
+            new Consulta("Pateo.findAllPosseByStatus",
+                    t -> t.pateoRepository.findAllPosseByStatus(Status.ATIVO), "ATIVO"),
+            new Consulta("Pateo.findIdsByGerenciadoPorIdAndStatus",
+                    t -> t.pateoRepository.findIdsByGerenciadoPorIdAndStatus(adminId, Status.ATIVO),
+                    bytes(adminId), "ATIVO"),
+
+            // UsuarioAdminRepository
+            new Consulta("UsuarioAdmin.findByEmail",
+                    t -> t.usuarioAdminRepository.findByEmail("admin1@fleet.test"), "admin1@fleet.test"),
+            new Consulta("UsuarioAdmin.findAllByRoleAndStatus",
+                    t -> t.usuarioAdminRepository.findAllByRoleAndStatus(Role.PATEO_ADMIN, Status.SUSPENSO),
+                    "PATEO_ADMIN", "SUSPENSO"),
+            new Consulta("UsuarioAdmin.findAllByRoleAndStatus(Pageable)",
+                    t -> t.usuarioAdminRepository.findAllByRoleAndStatus(
+                            Role.PATEO_ADMIN, Status.SUSPENSO, PageRequest.of(0, 10)),
+                    List.of(List.of("PATEO_ADMIN", "SUSPENSO", 10), List.of("PATEO_ADMIN", "SUSPENSO")), false),
+            new Consulta("UsuarioAdmin.atualizarSenha",
+                    t -> t.usuarioAdminRepository.atualizarSenha(adminId, "{bcrypt}x"), "{bcrypt}x", bytes(adminId))
+        );
+    }
+
+
+    static List<String> comandosDoPurge() {
+        return List.of(
+                "DELETE FROM token_acesso WHERE expira_em < ? LIMIT ?",
+                "DELETE FROM auth_code WHERE expira_em < ? LIMIT ?",
+                "DELETE FROM refresh_token WHERE expira_em < ? LIMIT ?",
+                "DELETE FROM refresh_token WHERE revogado_em < ? LIMIT ?");
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    private Funcionario funcionario(UUID id) {
+        return funcionarioRepository.getReferenceById(id);
+    }
+
+
+    /**
+     * Método auxiliar que roda EXPLAIN no comando e lista os acessos por scan completo ou com filesort.
+     */
+    private static List<String> problemasDoPlano(String sql, List<Object> parametros, boolean tabelaInteira)
+            throws Exception {
+        List<String> problemas = new ArrayList<>();
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parametros.size(); i++) {
+                explain.setObject(i + 1, parametros.get(i));
+            }
+            try (ResultSet plano = explain.executeQuery()) {
+                while (plano.next()) {
+                    String tabela = plano.getString("table");
+                    String tipo = plano.getString("type");
+                    String extra = String.valueOf(plano.getString("Extra"));
+                    if (tabelaInteira) {
+                        continue;
+                    }
+                    if ("ALL".equals(tipo)) {
+                        problemas.add(tabela + ": full table scan (possible_keys=" + plano.getString("possible_keys") + ")");
+                    }
+                    if (extra.contains("Using filesort")) {
+                        problemas.add(tabela + ": " + extra);
+                    }
+                }
+            }
+        }
+        return problemas;
+    }
+
+
+    /**
+     * Popula as tabelas com uma distribuição parecida com a de produção: 1 pátio por admin,
+     * 10 funcionários por pátio e tokens emitidos ao longo das últimas 25 horas (a maioria já usada
+     * e expirada), além de alguns refresh tokens revogados.
+     */
+    private static void popularTabelas() throws Exception {
+        connection.setAutoCommit(false);
+        funcionarioIds = new ArrayList<>();
+        List<UUID> pateos = new ArrayList<>();
+
+        try (PreparedStatement admin = connection.prepareStatement(
+                     "INSERT INTO usuario_admin (id, nome, email, senha, role, status) VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement pateo = connection.prepareStatement(
+                     "INSERT INTO pateo (id, nome, gerenciado_por_id, status, created_at) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement zona = connection.prepareStatement(
+                     "INSERT INTO zona (id, pateo_id, criado_por_id, nome, coordenadas) " +
+                     "VALUES (?, ?, ?, ?, ST_GeomFromText('POLYGON((0 0, 1 0, 1 1, 0 1, 0 0))'))")) {
+            for (int i = 0; i < ADMINS; i++) {
+                UUID id = UUID.randomUUID();
+                admin.setBytes(1, bytes(id));
+                admin.setString(2, "Admin " + i);
+                admin.setString(3, "admin" + i + "@fleet.test");
+                admin.setString(4, "{bcrypt}x");
+                admin.setString(5, i % 50 == 0 ? "SUPER_ADMIN" : "PATEO_ADMIN");
+                admin.setString(6, statusPorIndice(i));
+                admin.addBatch();
+
+                UUID idPateo = UUID.randomUUID();
+                pateo.setBytes(1, bytes(idPateo));
+                pateo.setString(2, "Pátio " + i);
+                pateo.setBytes(3, bytes(id));
+                pateo.setString(4, statusPorIndice(i));
+                pateo.setTimestamp(5, Timestamp.from(agora.minus(Duration.ofDays(i))));
+                pateo.addBatch();
+                pateos.add(idPateo);
+
+                for (int z = 0; z < 3; z++) {
+                    zona.setBytes(1, bytes(UUID.randomUUID()));
+                    zona.setBytes(2, bytes(idPateo));
+                    zona.setBytes(3, bytes(id));
+                    zona.setString(4, "Zona " + z);
+                    zona.addBatch();
+                }
+
+                if (i == 1) {
+                    adminId = id;
+                    pateoId = idPateo;
+                }
+            }
+            admin.executeBatch();
+            pateo.executeBatch();
+            zona.executeBatch();
+        }
+
+        try (PreparedStatement funcionario = connection.prepareStatement(
+                "INSERT INTO funcionario (id, codigo, nome, telefone, email, cargo, status, pateo_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            int n = 0;
+            for (UUID idPateo : pateos) {
+                for (int f = 0; f < FUNCIONARIOS_POR_PATEO; f++, n++) {
+                    UUID id = UUID.randomUUID();
+                    funcionario.setBytes(1, bytes(id));
+                    funcionario.setString(2, "F" + n);
+                    funcionario.setString(3, "Funcionário " + n);
+                    funcionario.setString(4, String.format("119%08d", n));
+                    funcionario.setString(5, "funcionario" + n + "@fleet.test");
+                    funcionario.setString(6, List.of("OPERACIONAL", "ADMINISTRATIVO", "TEMPORARIO").get(n % 3));
+                    funcionario.setString(7, n % 10 == 0 ? "SUSPENSO" : "ATIVO");
+                    funcionario.setBytes(8, bytes(idPateo));
+                    funcionario.addBatch();
+                    funcionarioIds.add(id);
+                }
+            }
+            funcionario.executeBatch();
+        }
+
+        try (PreparedStatement token = connection.prepareStatement(
+                     "INSERT INTO token_acesso (id, token_hash, funcionario_id, criado_em, expira_em, usado, twilio_message_sid) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement code = connection.prepareStatement(
+                     "INSERT INTO auth_code (id, code, funcionario_id, usado, expira_em) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement refresh = connection.prepareStatement(
+                     "INSERT INTO refresh_token (id, token_hash, funcionario_id, expira_em, familia_id, revogado_em) " +
+                     "VALUES (?, ?, ?, ?, ?, ?)")) {
+            int n = 0;
+            for (UUID idFuncionario : funcionarioIds) {
+                for (int t = 0; t < TOKENS_POR_FUNCIONARIO; t++, n++) {
+                    // Emitidos ao longo das últimas 25h, com validade de 15 minutos
+                    Instant criadoEm = agora.minus(Duration.ofSeconds((n * 7919L) % (25 * 3600)));
+                    token.setBytes(1, bytes(UUID.randomUUID()));
+                    token.setBytes(2, sha256("token-" + n));
+                    token.setBytes(3, bytes(idFuncionario));
+                    token.setTimestamp(4, Timestamp.from(criadoEm));
+                    token.setTimestamp(5, Timestamp.from(criadoEm.plus(Duration.ofMinutes(15))));
+                    token.setBoolean(6, n % 10 != 0);
+                    token.setString(7, "SM" + n);
+                    token.addBatch();
+
+                    code.setBytes(1, bytes(UUID.randomUUID()));
+                    code.setString(2, "code-" + n);
+                    code.setBytes(3, bytes(idFuncionario));
+                    code.setBoolean(4, true);
+                    code.setTimestamp(5, Timestamp.from(criadoEm.plus(Duration.ofMinutes(2))));
+                    code.addBatch();
+                }
+
+                UUID familia = UUID.randomUUID();
+                refresh.setBytes(1, bytes(familia));
+                refresh.setBytes(2, sha256("refresh-" + n));
+                refresh.setBytes(3, bytes(idFuncionario));
+                refresh.setTimestamp(4, Timestamp.from(agora.plus(Duration.ofDays(7))));
+                refresh.setBytes(5, bytes(familia));
+                refresh.setTimestamp(6, n % 20 == 0 ? Timestamp.from(agora.minus(Duration.ofHours(n % 25))) : null);
+                refresh.addBatch();
+                if (familiaId == null) {
+                    familiaId = familia;
+                    refreshTokenHash = sha256("refresh-" + n);
+                }
+            }
+            token.executeBatch();
+            code.executeBatch();
+            refresh.executeBatch();
+        }
+
+        try (PreparedStatement revogacao = connection.prepareStatement(
+                "INSERT INTO token_revogacao (sujeito_id, tipo, revogado_antes_de, atualizado_em) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < 500; i++) {
+                Timestamp quando = Timestamp.from(agora.minus(Duration.ofHours(i)));
+                revogacao.setBytes(1, bytes(funcionarioIds.get(i)));
+                revogacao.setString(2, "FUNCIONARIO");
+                revogacao.setTimestamp(3, quando);
+                revogacao.setTimestamp(4, quando);
+                revogacao.addBatch();
+            }
+            revogacao.executeBatch();
+        }
+
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        tokenHash = sha256("token-0");
+        twilioSid = "SM0";
+        authCode = "code-0";
+    }
+
+
+    private static String statusPorIndice(int i) {
+        return List.of("ATIVO", "SUSPENSO", "REMOVIDO").get(i % 3);
+    }
+
+
+    private static byte[] bytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+
+    private static byte[] sha256(String valor) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(valor.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package br.com.mottu.fleet.domain.service;
+
+import br.com.mottu.fleet.application.dto.api.FuncionarioImportResponse;
+import br.com.mottu.fleet.domain.entity.Funcionario;
+import br.com.mottu.fleet.domain.entity.Pateo;
+import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
+import br.com.mottu.fleet.domain.exception.BusinessException;
+import br.com.mottu.fleet.domain.repository.FuncionarioRepository;
+import br.com.mottu.fleet.domain.repository.PateoRepository;
+import br.com.mottu.fleet.infrastructure.cache.PateoOwnershipIndex;
+import br.com.mottu.fleet.infrastructure.publisher.InterServiceEventPublisher;
+import br.com.mottu.fleet.infrastructure.router.AsyncNotificationOrchestrator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Testes unitários para a leitura do arquivo e o processamento em lotes do `FuncionarioImportServiceImpl`.
+ */
+class FuncionarioImportServiceImplTest {
+
+    private static final String CABECALHO = "nome,telefone,email,cargo";
+    private static final int TAMANHO_LOTE = 2;
+    private static final int MAX_LINHAS = 4;
+
+    private FuncionarioRepository funcionarioRepository;
+    private MagicLinkService magicLinkService;
+    private AsyncNotificationOrchestrator asyncOrchestrator;
+    private InterServiceEventPublisher eventPublisher;
+    private ValidatorFactory validatorFactory;
+    private FuncionarioImportServiceImpl importService;
+
+    private final UUID pateoId = UUID.randomUUID();
+    private final UsuarioAdmin admin = new UsuarioAdmin();
+    private final List<List<String>> lotesGravados = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        funcionarioRepository = Mockito.mock(FuncionarioRepository.class);
+        PateoRepository pateoRepository = Mockito.mock(PateoRepository.class);
+        magicLinkService = Mockito.mock(MagicLinkService.class);
+        asyncOrchestrator = Mockito.mock(AsyncNotificationOrchestrator.class);
+        eventPublisher = Mockito.mock(InterServiceEventPublisher.class);
+        PateoOwnershipIndex pateoOwnershipIndex = Mockito.mock(PateoOwnershipIndex.class);
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+
+        admin.setId(UUID.randomUUID());
+        Pateo pateo = new Pateo();
+        pateo.setId(pateoId);
+
+        when(pateoOwnershipIndex.pateoAtivoDoAdmin(admin.getId())).thenReturn(Optional.of(pateoId));
+        when(pateoRepository.getReferenceById(pateoId)).thenReturn(pateo);
+        when(funcionarioRepository.findContatosExistentes(anyCollection(), anyCollection())).thenReturn(List.of());
+        when(funcionarioRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Funcionario> funcionarios = invocation.getArgument(0);
+            lotesGravados.add(funcionarios.stream().map(Funcionario::getEmail).toList());
+            funcionarios.forEach(f -> f.setId(UUID.randomUUID()));
+            return funcionarios;
+        });
+        when(magicLinkService.gerarLinks(anyList())).thenAnswer(invocation -> {
+            Map<UUID, String> links = new HashMap<>();
+            for (Funcionario f : invocation.<List<Funcionario>>getArgument(0)) {
+                links.put(f.getId(), "https://fleet.mottu.com/auth/validar-token?valor=" + f.getId());
+            }
+            return links;
+        });
+
+        importService = new FuncionarioImportServiceImpl(funcionarioRepository, pateoRepository, magicLinkService,
+                asyncOrchestrator, eventPublisher, pateoOwnershipIndex, validatorFactory.getValidator(),
+                new ObjectMapper(), new TransacaoEmMemoria(), TAMANHO_LOTE, MAX_LINHAS);
+    }
+
+    @AfterEach
+    void fechar() {
+        validatorFactory.close();
+    }
+
+    @Test
+    @DisplayName("importar: campos entre aspas aceitam o separador e \"\" como aspas literais")
+    void importar_csv_camposEntreAspas() throws IOException {
+        FuncionarioImportResponse resposta = importarCsv(CABECALHO,
+                "\"Silva, João \"\"Jota\"\"\",11987654321,joao@mottu.com,OPERACIONAL");
+
+        assertThat(resposta.criados()).isEqualTo(1);
+        assertThat(funcionarioSalvo().getNome()).isEqualTo("Silva, João \"Jota\"");
+    }
+
+    @Test
+    @DisplayName("importar: aspas não fechadas recusam só a linha, com o número dela no arquivo")
+    void importar_csv_aspasNaoFechadas() throws IOException {
+        FuncionarioImportResponse resposta = importarCsv(CABECALHO,
+                "\"Maria,11987654321,maria@mottu.com,OPERACIONAL",
+                "Ana,11912345678,ana@mottu.com,ADMINISTRATIVO");
+
+        assertThat(resposta.linhas()).extracting(FuncionarioImportResponse.Linha::status).containsExactly("ERRO", "CRIADO");
+        assertThat(resposta.linhas().get(0).linha()).isEqualTo(2);
+        assertThat(resposta.linhas().get(0).erros()).containsExactly("Aspas não fechadas na linha.");
+    }
+
+    @Test
+    @DisplayName("importar: cabeçalho com ';' e sem ',' usa ';' como separador, em qualquer ordem de colunas")
+    void importar_csv_separadorPontoEVirgula() throws IOException {
+        FuncionarioImportResponse resposta = importarCsv("email;Nome;cargo;telefone",
+                "joao@mottu.com;Silva, João;TEMPORARIO;11987654321");
+
+        assertThat(resposta.criados()).isEqualTo(1);
+        Funcionario salvo = funcionarioSalvo();
+        assertThat(salvo.getNome()).isEqualTo("Silva, João");
+        assertThat(salvo.getTelefone()).isEqualTo("11987654321");
+        assertThat(salvo.getEmail()).isEqualTo("joao@mottu.com");
+    }
+
+    @Test
+    @DisplayName("importar: o BOM UTF-8 no início do arquivo não entra no nome da primeira coluna")
+    void importar_csv_comBom() throws IOException {
+        FuncionarioImportResponse resposta = importarCsv("\uFEFF" + CABECALHO,
+                "João,11987654321,joao@mottu.com,OPERACIONAL");
+
+        assertThat(resposta.criados()).isEqualTo(1);
+        assertThat(funcionarioSalvo().getNome()).isEqualTo("João");
+    }
+
+    @Test
+    @DisplayName("importar: cabeçalho sem uma coluna obrigatória lança BusinessException")
+    void importar_csv_cabecalhoSemColuna() {
+        assertThatThrownBy(() -> importarCsv("nome,telefone,cargo", "João,11987654321,OPERACIONAL"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("'email'");
+        verify(funcionarioRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("importar: arquivo CSV vazio lança BusinessException")
+    void importar_csv_vazio() {
+        assertThatThrownBy(() -> importarCsv())
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("O arquivo CSV está vazio.");
+    }
+
+    @Test
+    @DisplayName("importar: e-mail (sem diferenciar maiúsculas) e telefone repetidos no arquivo são recusados, mesmo em outro lote")
+    void importar_csv_duplicadosNoArquivo() throws IOException {
+        FuncionarioImportResponse resposta = importarCsv(CABECALHO,
+                "João,11987654321,joao@mottu.com,OPERACIONAL",
+                "Maria,11912345678,maria@mottu.com,OPERACIONAL",
+                "Joao,11900000000,JOAO@mottu.com,OPERACIONAL",
+                "Mariana,11912345678,mariana@mottu.com,OPERACIONAL");
+
+        assertThat(resposta.criados()).isEqualTo(2);
+        assertThat(resposta.linhas()).extracting(FuncionarioImportResponse.Linha::linha).containsExactly(2, 3, 4, 5);
+        assertThat(resposta.linhas().get(2).erros()).containsExactly("E-mail repetido no arquivo.");
+        assertThat(resposta.linhas().get(3).erros()).containsExactly("Telefone repetido no arquivo.");
+        assertThat(lotesGravados).containsExactly(List.of("joao@mottu.com", "maria@mottu.com"));
+    }
+
+    @Test
+    @DisplayName("importar: contatos já cadastrados são recusados sem impedir o resto do lote")
+    void importar_csv_contatoJaCadastrado() throws IOException {
+        when(funcionarioRepository.findContatosExistentes(anyCollection(), anyCollection()))
+                .thenReturn(List.of(contato("JOAO@mottu.com", "11900000000")));
+
+        FuncionarioImportResponse resposta = importarCsv(CABECALHO,
+                "João,11987654321,joao@mottu.com,OPERACIONAL",
+                "Maria,11912345678,maria@mottu.com,OPERACIONAL");
+
+        assertThat(resposta.linhas().get(0).erros()).containsExactly("O e-mail fornecido já está em uso.");
+        assertThat(resposta.linhas().get(1).status()).isEqualTo("CRIADO");
+        assertThat(lotesGravados).containsExactly(List.of("maria@mottu.com"));
+    }
+
+    @Test
+    @DisplayName("importar: passando de max-linhas, importa o que foi lido e reporta a linha onde a leitura parou")
+    void importar_csv_limiteDeLinhas() throws IOException {
+        FuncionarioImportResponse resposta = importarCsv(CABECALHO,
+                "A,11900000001,a@mottu.com,OPERACIONAL",
+                "B,11900000002,b@mottu.com,OPERACIONAL",
+                "C,11900000003,c@mottu.com,OPERACIONAL",
+                "D,11900000004,d@mottu.com,OPERACIONAL",
+                "E,11900000005,e@mottu.com,OPERACIONAL",
+                "F,11900000006,f@mottu.com,OPERACIONAL");
+
+        assertThat(resposta.criados()).isEqualTo(MAX_LINHAS);
+        assertThat(resposta.total()).isEqualTo(MAX_LINHAS + 1);
+        FuncionarioImportResponse.Linha ultima = resposta.linhas().get(resposta.linhas().size() - 1);
+        assertThat(ultima.linha()).isEqualTo(MAX_LINHAS + 2);
+        assertThat(ultima.status()).isEqualTo("ERRO");
+        assertThat(ultima.erros().get(0)).startsWith("Limite de " + MAX_LINHAS + " linhas por importação excedido");
+        assertThat(lotesGravados).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("importar: falha ao gravar um lote reporta as linhas dele como ERRO e não desfaz os outros lotes")
+    void importar_csv_falhaNoLote() throws IOException {
+        AtomicInteger chamadas = new AtomicInteger();
+        when(funcionarioRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Funcionario> funcionarios = invocation.getArgument(0);
+            if (chamadas.incrementAndGet() == 2) {
+                throw new IllegalStateException("Deadlock found when trying to get lock");
+            }
+            lotesGravados.add(funcionarios.stream().map(Funcionario::getEmail).toList());
+            funcionarios.forEach(f -> f.setId(UUID.randomUUID()));
+            return funcionarios;
+        });
+
+        FuncionarioImportResponse resposta = importarCsv(CABECALHO,
+                "A,11900000001,a@mottu.com,OPERACIONAL",
+                "B,11900000002,b@mottu.com,OPERACIONAL",
+                "C,11900000003,c@mottu.com,OPERACIONAL",
+                "D,11900000004,email-invalido,OPERACIONAL");
+
+        assertThat(resposta.criados()).isEqualTo(2);
+        assertThat(resposta.linhas()).extracting(FuncionarioImportResponse.Linha::status)
+                .containsExactly("CRIADO", "CRIADO", "ERRO", "ERRO");
+        assertThat(resposta.linhas().get(2).erros())
+                .containsExactly("Falha ao gravar o lote desta linha. Tente importá-la novamente.");
+        assertThat(resposta.linhas().get(3).erros()).containsExactly("O formato do email é inválido.");
+        // Só o lote gravado dispara as notificações e os eventos, uma vez, após o commit
+        verify(asyncOrchestrator, times(1)).dispararNotificacoesEmLote(any());
+        verify(eventPublisher, times(1)).publishEvents(anyList(), eq("FUNCIONARIO_CRIADO"));
+    }
+
+    @Test
+    @DisplayName("importar: JSON que não é um array lança BusinessException")
+    void importar_json_naoArray() {
+        assertThatThrownBy(() -> importarJson("{\"nome\":\"João\"}"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("O JSON deve ser um array de funcionários.");
+    }
+
+    @Test
+    @DisplayName("importar: JSON malformado no meio importa os elementos já lidos e reporta onde parou")
+    void importar_json_malformado() throws IOException {
+        FuncionarioImportResponse resposta = importarJson("""
+                [{"nome":"João","telefone":"11987654321","email":"joao@mottu.com","cargo":"OPERACIONAL"},
+                 42,
+                 {"nome":"Maria",""");
+
+        assertThat(resposta.linhas()).extracting(FuncionarioImportResponse.Linha::linha).containsExactly(1, 2, 3);
+        assertThat(resposta.linhas()).extracting(FuncionarioImportResponse.Linha::status)
+                .containsExactly("CRIADO", "ERRO", "ERRO");
+        assertThat(resposta.linhas().get(1).erros()).containsExactly("O elemento deve ser um objeto JSON.");
+        assertThat(resposta.linhas().get(2).erros().get(0)).startsWith("Arquivo ilegível a partir desta linha");
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    private FuncionarioImportResponse importarCsv(String... linhas) throws IOException {
+        String conteudo = String.join("\n", linhas);
+        return importService.importar(new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8)),
+                FuncionarioImportService.Formato.CSV, admin);
+    }
+
+    private FuncionarioImportResponse importarJson(String conteudo) throws IOException {
+        return importService.importar(new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8)),
+                FuncionarioImportService.Formato.JSON, admin);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Funcionario funcionarioSalvo() {
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(funcionarioRepository).saveAll(captor.capture());
+        return ((List<Funcionario>) captor.getValue()).get(0);
+    }
+
+    private static FuncionarioRepository.ContatoView contato(String email, String telefone) {
+        return new FuncionarioRepository.ContatoView() {
+            @Override
+            public String getEmail() { return email; }
+
+            @Override
+            public String getTelefone() { return telefone; }
+        };
+    }
+
+
+    /**
+     * Gerenciador de transações sem recurso: só abre e fecha a sincronização,
+     * para que os callbacks de afterCommit registrados no lote sejam executados.
+     */
+    private static final class TransacaoEmMemoria extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
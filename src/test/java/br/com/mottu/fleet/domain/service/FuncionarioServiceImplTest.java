@@ -0,0 +1,216 @@
+package br.com.mottu.fleet.domain.service;
+
+import br.com.mottu.fleet.application.dto.api.FuncionarioCreateRequest;
+import br.com.mottu.fleet.config.PrincipalResolver;
+import br.com.mottu.fleet.domain.entity.Funcionario;
+import br.com.mottu.fleet.domain.entity.Pateo;
+import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
+import br.com.mottu.fleet.domain.enums.Cargo;
+import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.domain.repository.FuncionarioRepository;
+import br.com.mottu.fleet.domain.repository.PateoRepository;
+import br.com.mottu.fleet.infrastructure.cache.PateoOwnershipIndex;
+import br.com.mottu.fleet.infrastructure.cache.TokenRevocationRegistry;
+import br.com.mottu.fleet.infrastructure.publisher.InterServiceEventPublisher;
+import br.com.mottu.fleet.infrastructure.router.AsyncNotificationOrchestrator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Testes unitários para o upload de fotos do `FuncionarioServiceImpl`: o envio ao storage e o processamento
+ * da imagem acontecem sem transação e sem conexão com o banco presa à thread; só a gravação é transacional.
+ */
+class FuncionarioServiceImplTest {
+
+    private FuncionarioRepository funcionarioRepository;
+    private ImagemService imagemService;
+    private StorageService storageService;
+    private FuncionarioServiceImpl funcionarioService;
+
+    private final UUID pateoId = UUID.randomUUID();
+    private final UsuarioAdmin admin = new UsuarioAdmin();
+    private final Funcionario funcionario = new Funcionario();
+    private final List<String> eventos = new ArrayList<>();
+
+    @BeforeEach
+    void setup() throws IOException {
+        funcionarioRepository = Mockito.mock(FuncionarioRepository.class);
+        PateoRepository pateoRepository = Mockito.mock(PateoRepository.class);
+        imagemService = Mockito.mock(ImagemService.class);
+        storageService = Mockito.mock(StorageService.class);
+        PateoOwnershipIndex pateoOwnershipIndex = Mockito.mock(PateoOwnershipIndex.class);
+
+        admin.setId(UUID.randomUUID());
+        Pateo pateo = new Pateo();
+        pateo.setId(pateoId);
+        funcionario.setId(UUID.randomUUID());
+        funcionario.setPateo(pateo);
+        funcionario.setCargo(Cargo.OPERACIONAL);
+        funcionario.setStatus(Status.ATIVO);
+
+        when(pateoOwnershipIndex.pateoAtivoDoAdmin(admin.getId())).thenReturn(Optional.of(pateoId));
+        when(pateoRepository.getReferenceById(pateoId)).thenReturn(pateo);
+        when(funcionarioRepository.findById(funcionario.getId())).thenReturn(Optional.of(funcionario));
+        when(funcionarioRepository.save(any(Funcionario.class))).thenAnswer(invocation -> {
+            eventos.add("save");
+            return invocation.getArgument(0);
+        });
+        when(imagemService.gravarComVariantes(eq("fotos"), any())).thenAnswer(invocation -> {
+            eventos.add(estadoDaThread("upload"));
+            return "https://storage.test/fotos/nova.jpg";
+        });
+        when(imagemService.gerarVariantesDeUpload(eq("fotos"), any())).thenAnswer(invocation -> {
+            eventos.add(estadoDaThread("variantes"));
+            return "https://storage.test/fotos/nova.jpg";
+        });
+
+        funcionarioService = new FuncionarioServiceImpl(funcionarioRepository, pateoRepository,
+                Mockito.mock(MagicLinkService.class), storageService, imagemService,
+                Mockito.mock(AsyncNotificationOrchestrator.class), Mockito.mock(InterServiceEventPublisher.class),
+                Mockito.mock(PrincipalResolver.class), pateoOwnershipIndex, Mockito.mock(TokenRevocationRegistry.class),
+                new TransacaoComConexao(eventos), 200);
+    }
+
+    @Test
+    @DisplayName("criar: a foto é gravada sem conexão presa e o funcionário é salvo depois, em uma transação curta")
+    void criar_uploadForaDaTransacao() throws IOException {
+        funcionarioService.criar(novoFuncionario(), foto(), admin);
+
+        assertThat(eventos).containsExactly("upload sem transação e sem conexão", "begin", "save", "commit");
+    }
+
+    @Test
+    @DisplayName("criar: se a gravação falhar, a foto já enviada é removida")
+    void criar_falhaNaGravacao_removeFoto() {
+        when(funcionarioRepository.save(any(Funcionario.class))).thenThrow(new IllegalStateException("Duplicate entry"));
+
+        assertThatThrownBy(() -> funcionarioService.criar(novoFuncionario(), foto(), admin))
+                .isInstanceOf(IllegalStateException.class);
+        verify(imagemService).remover("fotos", "https://storage.test/fotos/nova.jpg");
+        assertThat(eventos).containsExactly("upload sem transação e sem conexão", "begin", "rollback");
+    }
+
+    @Test
+    @DisplayName("atualizarFoto: a foto é gravada sem conexão presa; só a troca da URL é transacional")
+    void atualizarFoto_uploadForaDaTransacao() throws IOException {
+        Funcionario atualizado = funcionarioService.atualizarFoto(funcionario.getId(), foto(), admin);
+
+        assertThat(atualizado.getFotoUrl()).isEqualTo("https://storage.test/fotos/nova.jpg");
+        assertThat(eventos).containsExactly("upload sem transação e sem conexão", "begin", "save", "commit");
+    }
+
+    @Test
+    @DisplayName("confirmarUploadFoto: a cópia e as variantes são geradas sem conexão presa")
+    void confirmarUploadFoto_variantesForaDaTransacao() {
+        when(storageService.confirmarUpload(eq("fotos"), eq(funcionario.getId().toString()), any())).thenAnswer(invocation -> {
+            eventos.add(estadoDaThread("confirmação"));
+            return null;
+        });
+
+        funcionarioService.confirmarUploadFoto(funcionario.getId(), "fotos/upload.jpg", admin);
+
+        assertThat(eventos).containsExactly("confirmação sem transação e sem conexão",
+                "variantes sem transação e sem conexão", "begin", "save", "commit");
+    }
+
+    @Test
+    @DisplayName("application.properties: o Open Session in View está desligado, para não prender a conexão na requisição")
+    void openInView_desligado() throws IOException {
+        assertThat(PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"))
+                .getProperty("spring.jpa.open-in-view")).isEqualTo("false");
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    /**
+     * Descreve o estado da thread no momento da chamada: com o Open Session in View ou uma transação aberta,
+     * o EntityManager (e a conexão) ficaria registrado no TransactionSynchronizationManager.
+     */
+    private static String estadoDaThread(String etapa) {
+        boolean semTransacao = !TransactionSynchronizationManager.isActualTransactionActive();
+        boolean semConexao = TransactionSynchronizationManager.getResourceMap().isEmpty();
+        return etapa + (semTransacao ? " sem transação" : " com transação")
+                + (semConexao ? " e sem conexão" : " e com conexão");
+    }
+
+    private static FuncionarioCreateRequest novoFuncionario() {
+        FuncionarioCreateRequest request = new FuncionarioCreateRequest();
+        request.setNome("João da Silva");
+        request.setTelefone("11987654321");
+        request.setEmail("joao.silva@mottu.com");
+        request.setCargo("OPERACIONAL");
+        return request;
+    }
+
+    private static MockMultipartFile foto() {
+        return new MockMultipartFile("foto", "foto.jpg", "image/jpeg", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF});
+    }
+
+
+    /**
+     * Gerenciador de transações que, como o JpaTransactionManager, registra um recurso (a "conexão")
+     * na thread ao abrir a transação e o remove ao terminá-la.
+     */
+    private static final class TransacaoComConexao extends AbstractPlatformTransactionManager {
+
+        private static final Object CONEXAO = new Object();
+
+        private final List<String> eventos;
+
+        TransacaoComConexao(List<String> eventos) {
+            this.eventos = eventos;
+        }
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            TransactionSynchronizationManager.bindResource(CONEXAO, "conexão");
+            eventos.add("begin");
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            eventos.add("commit");
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            eventos.add("rollback");
+        }
+
+        @Override
+        protected void doCleanupAfterCompletion(Object transaction) {
+            TransactionSynchronizationManager.unbindResource(CONEXAO);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package br.com.mottu.fleet.domain.service;
+
+import br.com.mottu.fleet.application.dto.api.TokenResponse;
+import br.com.mottu.fleet.config.AuthCodeCodec;
+import br.com.mottu.fleet.config.JwtService;
+import br.com.mottu.fleet.config.TokenHashing;
+import br.com.mottu.fleet.domain.entity.Funcionario;
+import br.com.mottu.fleet.domain.entity.RefreshToken;
+import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.domain.exception.BusinessException;
+import br.com.mottu.fleet.domain.repository.AuthCodeRepository;
+import br.com.mottu.fleet.domain.repository.FuncionarioRepository;
+import br.com.mottu.fleet.domain.repository.RefreshTokenRepository;
+import br.com.mottu.fleet.domain.repository.TokenAcessoRepository;
+import br.com.mottu.fleet.infrastructure.cache.PateoOwnershipIndex;
+import br.com.mottu.fleet.infrastructure.persistence.UltimoLoginBuffer;
+import br.com.mottu.fleet.infrastructure.router.AsyncNotificationOrchestrator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Testes unitários para a rotação de Refresh Tokens (renovarTokens) do `MagicLinkServiceImpl`:
+ * os motivos de recusa quando o UPDATE condicional não afeta nenhuma linha e a janela de tolerância.
+ */
+class MagicLinkServiceImplTest {
+
+    private static final long GRACE_SEGUNDOS = 10;
+
+    private RefreshTokenRepository refreshTokenRepository;
+    private JwtService jwtService;
+    private UltimoLoginBuffer ultimoLoginBuffer;
+    private MagicLinkServiceImpl magicLinkService;
+
+    private final UUID familiaId = UUID.randomUUID();
+    private final String token = familiaId + "." + UUID.randomUUID();
+    private final Funcionario funcionario = new Funcionario();
+
+    @BeforeEach
+    void setup() {
+        refreshTokenRepository = Mockito.mock(RefreshTokenRepository.class);
+        jwtService = Mockito.mock(JwtService.class);
+        ultimoLoginBuffer = Mockito.mock(UltimoLoginBuffer.class);
+        magicLinkService = magicLinkService(GRACE_SEGUNDOS);
+
+        funcionario.setId(UUID.randomUUID());
+        funcionario.setStatus(Status.ATIVO);
+        when(refreshTokenRepository.findFuncionarioByFamiliaId(familiaId)).thenReturn(Optional.of(funcionario));
+        when(refreshTokenRepository.existsByFamiliaIdAndRevogadoEmIsNull(familiaId)).thenReturn(true);
+        when(jwtService.generateToken(any(UserDetails.class))).thenReturn("access-token");
+
+        // Simula a transação do @Transactional, para que os callbacks de afterCommit possam ser registrados
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void limparTransacao() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("renovarTokens: rotação bem-sucedida devolve um novo Refresh Token da mesma família")
+    void renovarTokens_rotacaoBemSucedida() {
+        rotacaoAfeta(1);
+
+        TokenResponse par = magicLinkService.renovarTokens(token);
+
+        assertThat(par.accessToken()).isEqualTo("access-token");
+        assertThat(par.refreshToken()).startsWith(familiaId + ".").isNotEqualTo(token);
+        verify(ultimoLoginBuffer).registrar(eq(funcionario.getId()), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("renovarTokens: 0 linhas e família inexistente recusa como token inválido")
+    void renovarTokens_familiaInexistente() {
+        rotacaoAfeta(0);
+        when(refreshTokenRepository.findByFamiliaId(familiaId)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> magicLinkService.renovarTokens(token))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Refresh Token inválido.");
+        verify(refreshTokenRepository, never()).revogarFamilia(any(), any());
+    }
+
+    @Test
+    @DisplayName("renovarTokens: 0 linhas e família já revogada encerra a sessão sem revogar de novo")
+    void renovarTokens_familiaRevogada() {
+        rotacaoAfeta(0);
+        RefreshToken familia = familia(TokenHashing.sha256(token), null);
+        familia.setRevogadoEm(Instant.now().minusSeconds(60));
+        when(refreshTokenRepository.findByFamiliaId(familiaId)).thenReturn(Optional.of(familia));
+
+        assertThatThrownBy(() -> magicLinkService.renovarTokens(token))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageStartingWith("Sessão encerrada.");
+        verify(refreshTokenRepository, never()).revogarFamilia(any(), any());
+    }
+
+    @Test
+    @DisplayName("renovarTokens: 0 linhas e token antigo fora da janela de tolerância é reuso e revoga a família")
+    void renovarTokens_reuso() {
+        rotacaoAfeta(0);
+        when(refreshTokenRepository.findByFamiliaId(familiaId))
+                .thenReturn(Optional.of(familia(TokenHashing.sha256("outro"), Instant.now().minusSeconds(GRACE_SEGUNDOS * 6))));
+
+        assertThatThrownBy(() -> magicLinkService.renovarTokens(token))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageStartingWith("Sessão encerrada.");
+        verify(refreshTokenRepository).revogarFamilia(eq(familiaId), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("renovarTokens: 0 linhas e token antigo logo após uma rotação ainda não publicada não revoga")
+    void renovarTokens_dentroDaJanela() {
+        rotacaoAfeta(0);
+        when(refreshTokenRepository.findByFamiliaId(familiaId))
+                .thenReturn(Optional.of(familia(TokenHashing.sha256("outro"), Instant.now().minusSeconds(1))));
+
+        assertThatThrownBy(() -> magicLinkService.renovarTokens(token))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Refresh Token renovado há instantes. Tente novamente.");
+        verify(refreshTokenRepository, never()).revogarFamilia(any(), any());
+    }
+
+    @Test
+    @DisplayName("renovarTokens: 0 linhas com o token atual da família significa que ele expirou")
+    void renovarTokens_expirado() {
+        rotacaoAfeta(0);
+        when(refreshTokenRepository.findByFamiliaId(familiaId))
+                .thenReturn(Optional.of(familia(TokenHashing.sha256(token), null)));
+
+        assertThatThrownBy(() -> magicLinkService.renovarTokens(token))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Refresh Token expirou. Por favor, faça login novamente.");
+        verify(refreshTokenRepository, never()).revogarFamilia(any(), any());
+    }
+
+    @Test
+    @DisplayName("renovarTokens: funcionário inativo revoga a família mesmo com a rotação aplicada")
+    void renovarTokens_funcionarioInativo() {
+        rotacaoAfeta(1);
+        funcionario.setStatus(Status.SUSPENSO);
+
+        assertThatThrownBy(() -> magicLinkService.renovarTokens(token))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageStartingWith("Funcionário inativo.");
+        verify(refreshTokenRepository).revogarFamilia(eq(familiaId), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("renovarTokens: o par só é reaproveitado pelas retentativas depois do commit")
+    void renovarTokens_publicaNoCacheAposCommit() {
+        rotacaoAfeta(1);
+        TokenResponse par = magicLinkService.renovarTokens(token);
+
+        // Antes do commit, a retentativa ainda passa pelo banco
+        rotacaoAfeta(0);
+        when(refreshTokenRepository.findByFamiliaId(familiaId))
+                .thenReturn(Optional.of(familia(TokenHashing.sha256(par.refreshToken()), Instant.now())));
+        assertThatThrownBy(() -> magicLinkService.renovarTokens(token))
+                .hasMessage("Refresh Token renovado há instantes. Tente novamente.");
+
+        confirmarTransacao();
+
+        assertThat(magicLinkService.renovarTokens(token)).isEqualTo(par);
+        verify(refreshTokenRepository, times(2)).rotacionar(any(), any(), any(), any(), any());
+        verify(refreshTokenRepository, never()).revogarFamilia(any(), any());
+    }
+
+    @Test
+    @DisplayName("renovarTokens: rotação concorrente publicada durante o UPDATE devolve o mesmo par, sem revogar")
+    void renovarTokens_rotacaoConcorrente() {
+        rotacaoAfeta(1);
+        TokenResponse par = magicLinkService.renovarTokens(token);
+        List<TransactionSynchronization> commitDaOutraRequisicao = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // A outra requisição commita enquanto esta espera o lock da linha; o UPDATE daqui não afeta nada
+        when(refreshTokenRepository.rotacionar(eq(familiaId), any(), any(), any(), any())).thenAnswer(invocation -> {
+            commitDaOutraRequisicao.forEach(TransactionSynchronization::afterCommit);
+            return 0;
+        });
+
+        assertThat(magicLinkService.renovarTokens(token)).isEqualTo(par);
+        verify(refreshTokenRepository, never()).findByFamiliaId(any());
+        verify(refreshTokenRepository, never()).revogarFamilia(any(), any());
+    }
+
+    @Test
+    @DisplayName("renovarTokens: par em cache de uma família revogada não é reaproveitado")
+    void renovarTokens_cacheDeFamiliaRevogada() {
+        rotacaoAfeta(1);
+        magicLinkService.renovarTokens(token);
+        confirmarTransacao();
+        when(refreshTokenRepository.existsByFamiliaIdAndRevogadoEmIsNull(familiaId)).thenReturn(false);
+
+        assertThatThrownBy(() -> magicLinkService.renovarTokens(token))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageStartingWith("Sessão encerrada.");
+
+        // A entrada foi descartada: a próxima tentativa volta a passar pela rotação no banco
+        rotacaoAfeta(0);
+        when(refreshTokenRepository.findByFamiliaId(familiaId)).thenReturn(Optional.empty());
+        assertThatThrownBy(() -> magicLinkService.renovarTokens(token)).hasMessage("Refresh Token inválido.");
+        verify(refreshTokenRepository, times(2)).rotacionar(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("renovarTokens: com grace-segundos=0 nenhum par é guardado para retentativas")
+    void renovarTokens_semJanela() {
+        magicLinkService = magicLinkService(0);
+        rotacaoAfeta(1);
+
+        magicLinkService.renovarTokens(token);
+
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    private MagicLinkServiceImpl magicLinkService(long graceSegundos) {
+        return new MagicLinkServiceImpl(Mockito.mock(TokenAcessoRepository.class), Mockito.mock(FuncionarioRepository.class),
+                Mockito.mock(PateoOwnershipIndex.class), Mockito.mock(NotificationService.class),
+                Mockito.mock(AuthCodeRepository.class), jwtService, refreshTokenRepository,
+                Mockito.mock(AuthCodeCodec.class), Mockito.mock(AsyncNotificationOrchestrator.class), ultimoLoginBuffer,
+                "https://fleet.test", 500, graceSegundos, 100);
+    }
+
+    private void rotacaoAfeta(int linhas) {
+        when(refreshTokenRepository.rotacionar(eq(familiaId), any(), any(), any(), any())).thenReturn(linhas);
+    }
+
+    private RefreshToken familia(byte[] tokenHashAtual, Instant rotacionadoEm) {
+        RefreshToken familia = new RefreshToken();
+        familia.setFamiliaId(familiaId);
+        familia.setTokenHash(tokenHashAtual);
+        familia.setRotacionadoEm(rotacionadoEm);
+        familia.setGeracao(2);
+        return familia;
+    }
+
+    /**
+     * Executa os callbacks de afterCommit registrados até aqui e abre uma nova "transação".
+     */
+    private static void confirmarTransacao() {
+        List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizacoes.forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+}
@@ -6,6 +6,7 @@ import br.com.mottu.fleet.domain.entity.UsuarioAdmin;
 import br.com.mottu.fleet.domain.exception.BusinessException;
 import br.com.mottu.fleet.domain.repository.PateoRepository;
 import br.com.mottu.fleet.domain.repository.ZonaRepository;
+import br.com.mottu.fleet.infrastructure.cache.PateoOwnershipIndex;
 import br.com.mottu.fleet.infrastructure.publisher.InterServiceEventPublisher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -27,6 +28,7 @@ class ZonaServiceUnitTest {
     private ZonaRepository zonaRepository;
     private PateoRepository pateoRepository;
     private InterServiceEventPublisher eventPublisher;
+    private PateoOwnershipIndex pateoOwnershipIndex;
     private ZonaServiceImpl zonaService;
 
     @BeforeEach
@@ -34,8 +36,9 @@ class ZonaServiceUnitTest {
         zonaRepository = Mockito.mock(ZonaRepository.class);
         pateoRepository = Mockito.mock(PateoRepository.class);
         eventPublisher = Mockito.mock(InterServiceEventPublisher.class);
+        pateoOwnershipIndex = Mockito.mock(PateoOwnershipIndex.class);
 
-        zonaService = new ZonaServiceImpl(zonaRepository, pateoRepository, eventPublisher);
+        zonaService = new ZonaServiceImpl(zonaRepository, pateoRepository, eventPublisher, pateoOwnershipIndex);
     }
 
     @Test
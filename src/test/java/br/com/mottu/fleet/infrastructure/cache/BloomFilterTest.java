@@ -0,0 +1,49 @@
+package br.com.mottu.fleet.infrastructure.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Testes unitários para o `BloomFilter` usado no registro de revogação de tokens.
+ */
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("mightContain: nunca retorna falso negativo para UUIDs adicionados")
+    void mightContain_semFalsoNegativo() {
+        BloomFilter filtro = new BloomFilter(1_000, 0.01);
+        List<UUID> adicionados = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            UUID id = UUID.randomUUID();
+            filtro.put(id);
+            adicionados.add(id);
+        }
+
+        assertThat(adicionados).allMatch(filtro::mightContain);
+    }
+
+    @Test
+    @DisplayName("mightContain: taxa de falso positivo próxima da configurada")
+    void mightContain_taxaDeFalsoPositivoControlada() {
+        BloomFilter filtro = new BloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filtro.put(UUID.randomUUID());
+        }
+
+        int falsosPositivos = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filtro.mightContain(UUID.randomUUID())) {
+                falsosPositivos++;
+            }
+        }
+
+        assertThat(falsosPositivos).isLessThan(300); // 1% esperado, com folga
+    }
+}
@@ -0,0 +1,154 @@
+package br.com.mottu.fleet.infrastructure.cache;
+
+import br.com.mottu.fleet.domain.enums.Status;
+import br.com.mottu.fleet.domain.repository.PateoRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Testes unitários para o `PateoOwnershipIndex`: uma leitura do banco feita antes do commit de uma mudança
+ * de posse não pode recolocar a posse antiga no índice depois da invalidação.
+ */
+class PateoOwnershipIndexTest {
+
+    private PateoRepository pateoRepository;
+    private PateoOwnershipIndex index;
+
+    private final UUID adminId = UUID.randomUUID();
+    private final UUID pateoAntigo = UUID.randomUUID();
+    private final UUID pateoNovo = UUID.randomUUID();
+
+    @BeforeEach
+    void setup() {
+        pateoRepository = Mockito.mock(PateoRepository.class);
+        index = new PateoOwnershipIndex(pateoRepository);
+    }
+
+    @AfterEach
+    void limparTransacao() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("recarregar: sem invalidações, o índice responde sem voltar ao banco")
+    void recarregar_aqueceOIndice() {
+        when(pateoRepository.findAllPosseByStatus(Status.ATIVO)).thenReturn(List.of(posse(adminId, pateoAntigo)));
+
+        index.recarregar();
+
+        assertThat(index.pateoAtivoDoAdmin(adminId)).contains(pateoAntigo);
+        verify(pateoRepository, times(0)).findIdsByGerenciadoPorIdAndStatus(adminId, Status.ATIVO);
+    }
+
+    @Test
+    @DisplayName("recarregar: invalidação durante a leitura completa não é sobrescrita pela posse antiga")
+    void recarregar_invalidacaoDuranteALeitura() {
+        // A recarga lê o banco antes do commit (posse antiga); o afterCommit da mudança roda antes de ela gravar
+        when(pateoRepository.findAllPosseByStatus(Status.ATIVO)).thenAnswer(invocation -> {
+            commitDeMudancaDePosse();
+            return List.of(posse(adminId, pateoAntigo));
+        });
+        when(pateoRepository.findIdsByGerenciadoPorIdAndStatus(adminId, Status.ATIVO)).thenReturn(List.of(pateoNovo));
+
+        index.recarregar();
+
+        assertThat(index.gerencia(adminId, pateoAntigo)).isFalse();
+        assertThat(index.pateoAtivoDoAdmin(adminId)).contains(pateoNovo);
+    }
+
+    @Test
+    @DisplayName("pateoAtivoDoAdmin: invalidação durante a carga sob demanda não deixa a posse antiga no índice")
+    void cargaSobDemanda_invalidacaoDuranteALeitura() {
+        when(pateoRepository.findIdsByGerenciadoPorIdAndStatus(adminId, Status.ATIVO))
+                .thenAnswer(invocation -> {
+                    commitDeMudancaDePosse();
+                    return List.of(pateoAntigo);
+                })
+                .thenReturn(List.of(pateoNovo));
+
+        // A requisição que fez a leitura responde com o que leu, mas não o guarda
+        assertThat(index.pateoAtivoDoAdmin(adminId)).contains(pateoAntigo);
+
+        assertThat(index.pateoAtivoDoAdmin(adminId)).contains(pateoNovo);
+        assertThat(index.pateoAtivoDoAdmin(adminId)).contains(pateoNovo);
+        verify(pateoRepository, times(2)).findIdsByGerenciadoPorIdAndStatus(adminId, Status.ATIVO);
+    }
+
+    @Test
+    @DisplayName("recarregar: a invalidação de um admin não impede a gravação dos demais")
+    void recarregar_outrosAdminsNaoSaoAfetados() {
+        UUID outroAdmin = UUID.randomUUID();
+        UUID pateoDoOutro = UUID.randomUUID();
+        when(pateoRepository.findAllPosseByStatus(Status.ATIVO)).thenAnswer(invocation -> {
+            commitDeMudancaDePosse();
+            return List.of(posse(adminId, pateoAntigo), posse(outroAdmin, pateoDoOutro));
+        });
+
+        index.recarregar();
+
+        assertThat(index.gerencia(outroAdmin, pateoDoOutro)).isTrue();
+        verify(pateoRepository, times(0)).findIdsByGerenciadoPorIdAndStatus(outroAdmin, Status.ATIVO);
+    }
+
+    @Test
+    @DisplayName("invalidar: dentro de uma transação, só remove o admin do índice após o commit")
+    void invalidar_aposOCommit() {
+        when(pateoRepository.findAllPosseByStatus(Status.ATIVO)).thenReturn(List.of(posse(adminId, pateoAntigo)));
+        index.recarregar();
+        TransactionSynchronizationManager.initSynchronization();
+
+        index.invalidar(adminId);
+        assertThat(index.gerencia(adminId, pateoAntigo)).isTrue();
+
+        confirmarTransacao();
+        when(pateoRepository.findIdsByGerenciadoPorIdAndStatus(adminId, Status.ATIVO)).thenReturn(List.of(pateoNovo));
+        assertThat(index.pateoAtivoDoAdmin(adminId)).contains(pateoNovo);
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    /**
+     * Simula um serviço (onboarding, desativarPorId, reativarPorId) que invalida o admin em uma transação
+     * e cujo commit acontece enquanto o índice está lendo o banco.
+     */
+    private void commitDeMudancaDePosse() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.invalidar(adminId);
+        confirmarTransacao();
+    }
+
+    private static void confirmarTransacao() {
+        List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizacoes.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static PateoRepository.PosseView posse(UUID adminId, UUID pateoId) {
+        return new PateoRepository.PosseView() {
+            @Override
+            public UUID getAdminId() { return adminId; }
+
+            @Override
+            public UUID getPateoId() { return pateoId; }
+        };
+    }
+}
@@ -0,0 +1,187 @@
+package br.com.mottu.fleet.infrastructure.persistence;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Testes unitários para o `UltimoLoginBuffer`: junção dos logins pendentes, divisão em lotes,
+ * nova tentativa após falha e a ordem dos parâmetros do UPDATE ... CASE.
+ */
+class UltimoLoginBufferTest {
+
+    private static final Instant AGORA = Instant.parse("2026-10-17T12:00:00Z");
+
+    private JdbcFalso jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        jdbcTemplate = new JdbcFalso();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("registrar: vários logins do mesmo funcionário viram uma entrada com o mais recente")
+    void registrar_mantemOMaisRecente() {
+        UltimoLoginBuffer buffer = buffer(500);
+        UUID funcionarioId = UUID.randomUUID();
+
+        buffer.registrar(funcionarioId, AGORA.minusSeconds(60));
+        buffer.registrar(funcionarioId, AGORA);
+        buffer.registrar(funcionarioId, AGORA.minusSeconds(30));
+        buffer.flush();
+
+        assertThat(jdbcTemplate.chamadas).hasSize(1);
+        assertThat(gravadosNa(jdbcTemplate.chamadas.get(0))).containsExactly(Map.entry(funcionarioId, AGORA));
+    }
+
+    @Test
+    @DisplayName("flush: as entradas são divididas em lotes do tamanho configurado")
+    void flush_divideEmLotes() {
+        UltimoLoginBuffer buffer = buffer(2);
+        Map<UUID, Instant> registrados = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            UUID funcionarioId = UUID.randomUUID();
+            registrados.put(funcionarioId, AGORA.minusSeconds(i));
+            buffer.registrar(funcionarioId, AGORA.minusSeconds(i));
+        }
+
+        buffer.flush();
+
+        assertThat(jdbcTemplate.chamadas).extracting(chamada -> gravadosNa(chamada).size()).containsExactly(2, 2, 1);
+        Map<UUID, Instant> gravados = new HashMap<>();
+        jdbcTemplate.chamadas.forEach(chamada -> gravados.putAll(gravadosNa(chamada)));
+        assertThat(gravados).isEqualTo(registrados);
+        assertThat(meterRegistry.get("fleet.ultimo-login.gravados").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("flush: um lote que falha volta ao buffer sem sobrescrever um login mais novo registrado no meio-tempo")
+    void flush_falhaReRegistraSemSobrescrever() {
+        UltimoLoginBuffer buffer = buffer(500);
+        UUID comLoginNovo = UUID.randomUUID();
+        UUID semLoginNovo = UUID.randomUUID();
+        buffer.registrar(comLoginNovo, AGORA.minusSeconds(60));
+        buffer.registrar(semLoginNovo, AGORA.minusSeconds(60));
+        jdbcTemplate.aoExecutar = () -> {
+            // Um novo login chega enquanto o UPDATE está em andamento, e o UPDATE falha
+            buffer.registrar(comLoginNovo, AGORA);
+            throw new DataAccessResourceFailureException("Connection reset");
+        };
+
+        buffer.flush();
+        assertThat(meterRegistry.get("fleet.ultimo-login.gravados").counter().count()).isZero();
+
+        jdbcTemplate.aoExecutar = null;
+        buffer.flush();
+
+        assertThat(jdbcTemplate.chamadas).hasSize(2);
+        assertThat(gravadosNa(jdbcTemplate.chamadas.get(1)))
+                .containsOnly(Map.entry(comLoginNovo, AGORA), Map.entry(semLoginNovo, AGORA.minusSeconds(60)));
+    }
+
+    @Test
+    @DisplayName("flush: o UPDATE traz os pares (id, instante) do CASE e depois os ids do IN, na mesma ordem")
+    void flush_ordemDosParametros() {
+        UltimoLoginBuffer buffer = buffer(500);
+        UUID primeiro = UUID.randomUUID();
+        UUID segundo = UUID.randomUUID();
+        buffer.registrar(primeiro, AGORA.minusSeconds(10));
+        buffer.registrar(segundo, AGORA);
+
+        buffer.flush();
+
+        Chamada chamada = jdbcTemplate.chamadas.get(0);
+        assertThat(chamada.sql()).isEqualTo("UPDATE funcionario SET ultimo_login = GREATEST(COALESCE(ultimo_login, "
+                + "TIMESTAMP '1970-01-01 00:00:01'), CASE id WHEN ? THEN ? WHEN ? THEN ? END) WHERE id IN (?, ?)");
+        Object[] parametros = chamada.parametros();
+        assertThat(parametros).hasSize(6);
+        assertThat(parametros[1]).isInstanceOf(Timestamp.class);
+        assertThat(parametros[3]).isInstanceOf(Timestamp.class);
+        assertThat(uuid(parametros[4])).isEqualTo(uuid(parametros[0]));
+        assertThat(uuid(parametros[5])).isEqualTo(uuid(parametros[2]));
+        assertThat(gravadosNa(chamada))
+                .containsOnly(Map.entry(primeiro, AGORA.minusSeconds(10)), Map.entry(segundo, AGORA));
+    }
+
+    @Test
+    @DisplayName("encerrar: o que estiver pendente é gravado no shutdown; sem pendências, não acessa o banco")
+    void encerrar_gravaPendentes() {
+        UltimoLoginBuffer buffer = buffer(500);
+        buffer.flush();
+        assertThat(jdbcTemplate.chamadas).isEmpty();
+
+        UUID funcionarioId = UUID.randomUUID();
+        buffer.registrar(funcionarioId, AGORA);
+        buffer.encerrar();
+
+        assertThat(jdbcTemplate.chamadas).hasSize(1);
+        assertThat(gravadosNa(jdbcTemplate.chamadas.get(0))).containsExactly(Map.entry(funcionarioId, AGORA));
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    private UltimoLoginBuffer buffer(int tamanhoLote) {
+        return new UltimoLoginBuffer(jdbcTemplate, meterRegistry, tamanhoLote);
+    }
+
+    /**
+     * Lê os pares (id, instante) do CASE de um UPDATE, conferindo que o IN traz os mesmos ids na mesma ordem.
+     */
+    private static Map<UUID, Instant> gravadosNa(Chamada chamada) {
+        Object[] parametros = chamada.parametros();
+        int quantidade = parametros.length / 3;
+        Map<UUID, Instant> gravados = new HashMap<>();
+        for (int i = 0; i < quantidade; i++) {
+            UUID funcionarioId = uuid(parametros[2 * i]);
+            assertThat(uuid(parametros[2 * quantidade + i])).isEqualTo(funcionarioId);
+            gravados.put(funcionarioId, ((Timestamp) parametros[2 * i + 1]).toInstant());
+        }
+        return gravados;
+    }
+
+    private static UUID uuid(Object parametro) {
+        ByteBuffer buffer = ByteBuffer.wrap((byte[]) parametro);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+
+    private record Chamada(String sql, Object[] parametros) {}
+
+    /**
+     * JdbcTemplate que apenas registra os UPDATEs recebidos, podendo executar uma ação (ex: falhar) em cada um.
+     */
+    private static final class JdbcFalso extends JdbcTemplate {
+
+        private final List<Chamada> chamadas = new ArrayList<>();
+        private Runnable aoExecutar;
+
+        @Override
+        public int update(String sql, Object... args) {
+            chamadas.add(new Chamada(sql, args));
+            if (aoExecutar != null) {
+                aoExecutar.run();
+            }
+            return args.length / 3;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.mottu.fleet.infrastructure.persistence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Testes unitários para o `UuidV7Generator`. O benchmark de inserção (v4 x v7) fica em src/jmh (UuidInsercaoBenchmark).
+ */
+class UuidV7GeneratorTest {
+
+    @Test
+    @DisplayName("novoUuid: versão 7, variante RFC e timestamp atual")
+    void novoUuid_formato() {
+        long antes = System.currentTimeMillis();
+        UUID uuid = UuidV7Generator.novoUuid();
+        long depois = System.currentTimeMillis();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(uuid.getMostSignificantBits() >>> 16).isBetween(antes, depois + 1);
+    }
+
+    @Test
+    @DisplayName("novoUuid: estritamente crescente na ordem de bytes do BINARY(16)")
+    void novoUuid_monotonico() {
+        byte[] anterior = bytes(UuidV7Generator.novoUuid());
+        for (int i = 0; i < 100_000; i++) {
+            byte[] atual = bytes(UuidV7Generator.novoUuid());
+            assertThat(Arrays.compareUnsigned(atual, anterior)).isPositive();
+            anterior = atual;
+        }
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    private static byte[] bytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,150 @@
+package br.com.mottu.fleet.infrastructure.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Testes unitários para as URLs SAS de leitura do `AzureBlobStorageServiceImpl`, com relógio fixo:
+ * alinhamento da expiração às janelas, reaproveitamento do cache e assinatura em lote.
+ * A assinatura é calculada localmente com a chave do Azurite, sem acesso à rede.
+ */
+class AzureBlobStorageServiceImplTest {
+
+    private static final String CONEXAO_AZURITE = "DefaultEndpointsProtocol=http;AccountName=devstoreaccount1;"
+            + "AccountKey=Eby8vdM02xNOcqFlqUwJPLlmEtlCDXJ1OUzFT50uSRZ6IFsuFq2UVErCz4I6tq/K1SZFPTOtr/KBHBeksoGMGw==;"
+            + "BlobEndpoint=http://127.0.0.1:10000/devstoreaccount1;";
+
+    private RelogioAjustavel relogio;
+    private AzureBlobStorageServiceImpl storageService;
+
+    @BeforeEach
+    void setup() {
+        relogio = new RelogioAjustavel(Instant.parse("2026-10-17T12:00:00Z"));
+        // validade 15 min, janela 5 min, restante mínimo 2 min
+        storageService = new AzureBlobStorageServiceImpl(CONEXAO_AZURITE, 15, 5, 2, 1_000, 2, 5_242_880, relogio);
+        storageService.init();
+    }
+
+    @Test
+    @DisplayName("gerarUrlAcessoTemporario: a expiração é agora + validade, arredondada até o fim da janela")
+    void expiracao_alinhadaAJanela() {
+        assertThat(expiracaoAssinadaEm("12:00:00", "a.jpg")).isEqualTo("2026-10-17T12:20:00Z");
+        assertThat(expiracaoAssinadaEm("12:02:30", "b.jpg")).isEqualTo("2026-10-17T12:20:00Z");
+        assertThat(expiracaoAssinadaEm("12:04:59", "c.jpg")).isEqualTo("2026-10-17T12:20:00Z");
+        assertThat(expiracaoAssinadaEm("12:05:00", "d.jpg")).isEqualTo("2026-10-17T12:25:00Z");
+    }
+
+    @Test
+    @DisplayName("gerarUrlAcessoTemporario: na mesma janela, o mesmo blob tem sempre a mesma assinatura, em qualquer nó")
+    void expiracao_mesmaAssinaturaNaJanela() {
+        String primeiro = storageService.gerarUrlAcessoTemporario("fotos", "a.jpg");
+
+        relogio.ajustar(Instant.parse("2026-10-17T12:04:59Z"));
+        AzureBlobStorageServiceImpl outroNo = new AzureBlobStorageServiceImpl(CONEXAO_AZURITE, 15, 5, 2, 1_000, 2, 5_242_880, relogio);
+        outroNo.init();
+
+        assertThat(outroNo.gerarUrlAcessoTemporario("fotos", "a.jpg")).isEqualTo(primeiro);
+    }
+
+    @Test
+    @DisplayName("gerarUrlAcessoTemporario: reaproveita a URL em cache enquanto restar mais que o restante mínimo")
+    void cache_reaproveitaAteORestanteMinimo() {
+        String original = storageService.gerarUrlAcessoTemporario("fotos", "a.jpg");
+
+        // Expira às 12:20:00; às 12:17:59 ainda restam 2min01s
+        relogio.ajustar(Instant.parse("2026-10-17T12:17:59Z"));
+        assertThat(storageService.gerarUrlAcessoTemporario("fotos", "a.jpg")).isSameAs(original);
+
+        // Com exatamente 2 min restantes, assina de novo com a expiração da janela corrente
+        relogio.ajustar(Instant.parse("2026-10-17T12:18:00Z"));
+        String renovada = storageService.gerarUrlAcessoTemporario("fotos", "a.jpg");
+        assertThat(renovada).isNotEqualTo(original);
+        assertThat(expiracao(renovada)).isEqualTo("2026-10-17T12:35:00Z");
+    }
+
+    @Test
+    @DisplayName("gerarUrlsAcessoTemporario: no lote, só os blobs sem URL válida em cache são assinados")
+    void lote_misturaCacheEAssinaturaNova() {
+        String vencendo = storageService.gerarUrlAcessoTemporario("fotos", "c.jpg");
+        relogio.ajustar(Instant.parse("2026-10-17T12:05:00Z"));
+        String emCache = storageService.gerarUrlAcessoTemporario("fotos", "a.jpg");
+        // c.jpg expira às 12:20:00 (restam 2 min) e a.jpg às 12:25:00 (restam 7 min)
+        relogio.ajustar(Instant.parse("2026-10-17T12:18:00Z"));
+
+        String base = "http://127.0.0.1:10000/devstoreaccount1/fotos/";
+        Map<String, String> urls = storageService.gerarUrlsAcessoTemporario("fotos",
+                Arrays.asList(base + "a.jpg", base + "b.jpg", null, " ", base + "a.jpg", base + "c.jpg"));
+
+        assertThat(List.copyOf(urls.keySet())).containsExactly(base + "a.jpg", base + "b.jpg", base + "c.jpg");
+        assertThat(urls.get(base + "a.jpg")).isSameAs(emCache);
+        assertThat(expiracao(urls.get(base + "b.jpg"))).isEqualTo("2026-10-17T12:35:00Z");
+        assertThat(expiracao(urls.get(base + "c.jpg"))).isEqualTo("2026-10-17T12:35:00Z");
+        assertThat(urls.get(base + "c.jpg")).isNotEqualTo(vencendo);
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    private String expiracaoAssinadaEm(String horario, String blobName) {
+        relogio.ajustar(Instant.parse("2026-10-17T" + horario + "Z"));
+        return expiracao(storageService.gerarUrlAcessoTemporario("fotos", blobName));
+    }
+
+    /**
+     * Lê o parâmetro "se" (signed expiry) da URL SAS.
+     */
+    private static String expiracao(String url) {
+        for (String parametro : url.substring(url.indexOf('?') + 1).split("&")) {
+            if (parametro.startsWith("se=")) {
+                return URLDecoder.decode(parametro.substring(3), StandardCharsets.UTF_8);
+            }
+        }
+        throw new AssertionError("URL sem expiração: " + url);
+    }
+
+
+    /**
+     * Relógio fixo que o teste pode mover entre as chamadas.
+     */
+    private static final class RelogioAjustavel extends Clock {
+
+        private Instant agora;
+
+        RelogioAjustavel(Instant agora) {
+            this.agora = agora;
+        }
+
+        void ajustar(Instant agora) {
+            this.agora = agora;
+        }
+
+        @Override
+        public Instant instant() {
+            return agora;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package br.com.mottu.fleet.infrastructure.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Testes unitários para a leitura (orientacaoExif) e a aplicação (aplicarOrientacao) da orientação EXIF
+ * do `ImagemServiceImpl`.
+ */
+class ImagemServiceImplTest {
+
+    private static final int LARGURA = 3;
+    private static final int ALTURA = 2;
+
+    @ParameterizedTest(name = "orientação {0}")
+    @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8})
+    @DisplayName("orientacaoExif: lê a tag Orientation em TIFF big-endian (MM)")
+    void orientacaoExif_bigEndian(int orientacao) {
+        assertThat(ImagemServiceImpl.orientacaoExif(jpegComOrientacao(orientacao, false))).isEqualTo(orientacao);
+    }
+
+    @ParameterizedTest(name = "orientação {0}")
+    @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8})
+    @DisplayName("orientacaoExif: lê a tag Orientation em TIFF little-endian (II)")
+    void orientacaoExif_littleEndian(int orientacao) {
+        assertThat(ImagemServiceImpl.orientacaoExif(jpegComOrientacao(orientacao, true))).isEqualTo(orientacao);
+    }
+
+    @Test
+    @DisplayName("orientacaoExif: sem segmento EXIF, devolve 1")
+    void orientacaoExif_semExif() {
+        byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xDA, 0x00, 0x02, 0x00, (byte) 0xFF, (byte) 0xD9};
+
+        assertThat(ImagemServiceImpl.orientacaoExif(jpeg)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("orientacaoExif: arquivo cortado em qualquer ponto antes da tag devolve 1, sem exceção")
+    void orientacaoExif_arquivoTruncado() {
+        byte[] jpeg = jpegComOrientacao(6, false);
+        int fimDaTag = fimDaEntradaOrientation(jpeg);
+
+        for (int tamanho = 0; tamanho < fimDaTag; tamanho++) {
+            assertThat(ImagemServiceImpl.orientacaoExif(Arrays.copyOf(jpeg, tamanho)))
+                    .as("cortado em %d bytes", tamanho)
+                    .isEqualTo(1);
+        }
+        assertThat(ImagemServiceImpl.orientacaoExif(Arrays.copyOf(jpeg, fimDaTag))).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("orientacaoExif: APP1 com tamanho declarado menor que o IFD devolve 1")
+    void orientacaoExif_app1ComTamanhoDeclaradoCurto() {
+        byte[] jpeg = jpegComOrientacao(6, true);
+        int app1 = inicioDoApp1(jpeg);
+        int tamanhoCurto = fimDaEntradaOrientation(jpeg) - 1 - (app1 + 2);
+        jpeg[app1 + 2] = (byte) (tamanhoCurto >> 8);
+        jpeg[app1 + 3] = (byte) tamanhoCurto;
+
+        assertThat(ImagemServiceImpl.orientacaoExif(jpeg)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("orientacaoExif: deslocamento do IFD fora do segmento devolve 1")
+    void orientacaoExif_deslocamentoInvalido() {
+        byte[] jpeg = jpegComOrientacao(6, false);
+        int tiff = inicioDoApp1(jpeg) + 10;
+        jpeg[tiff + 4] = 0x7F;
+
+        assertThat(ImagemServiceImpl.orientacaoExif(jpeg)).isEqualTo(1);
+    }
+
+    @ParameterizedTest(name = "orientação {0}")
+    @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8})
+    @DisplayName("aplicarOrientacao: rotações e espelhamentos levam cada pixel à posição correta")
+    void aplicarOrientacao_posicaoDosPixels(int orientacao) {
+        BufferedImage origem = new BufferedImage(LARGURA, ALTURA, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < ALTURA; y++) {
+            for (int x = 0; x < LARGURA; x++) {
+                origem.setRGB(x, y, cor(x, y));
+            }
+        }
+
+        BufferedImage resultado = ImagemServiceImpl.aplicarOrientacao(origem, orientacao);
+
+        boolean transposta = orientacao >= 5;
+        assertThat(resultado.getWidth()).isEqualTo(transposta ? ALTURA : LARGURA);
+        assertThat(resultado.getHeight()).isEqualTo(transposta ? LARGURA : ALTURA);
+        for (int y = 0; y < ALTURA; y++) {
+            for (int x = 0; x < LARGURA; x++) {
+                int[] destino = destino(orientacao, x, y);
+                assertThat(resultado.getRGB(destino[0], destino[1]) & 0xFFFFFF)
+                        .as("pixel (%d, %d)", x, y)
+                        .isEqualTo(cor(x, y));
+            }
+        }
+    }
+
+
+    // --- Métodos Auxiliares ---
+
+    /**
+     * Posição esperada do pixel (x, y) da origem depois de aplicar a orientação, pela definição da tag EXIF.
+     */
+    private static int[] destino(int orientacao, int x, int y) {
+        int w = LARGURA - 1;
+        int h = ALTURA - 1;
+        return switch (orientacao) {
+            case 2 -> new int[]{w - x, y};
+            case 3 -> new int[]{w - x, h - y};
+            case 4 -> new int[]{x, h - y};
+            case 5 -> new int[]{y, x};
+            case 6 -> new int[]{h - y, x};
+            case 7 -> new int[]{h - y, w - x};
+            case 8 -> new int[]{y, w - x};
+            default -> new int[]{x, y};
+        };
+    }
+
+    private static int cor(int x, int y) {
+        return (x * 80) << 16 | (y * 120) << 8 | 0x40;
+    }
+
+    /**
+     * Monta um JPEG mínimo (SOI, APP0 JFIF, APP1 EXIF, SOS, EOI) cujo IFD0 tem a tag Make e a tag Orientation.
+     */
+    private static byte[] jpegComOrientacao(int orientacao, boolean littleEndian) {
+        ByteArrayOutputStream tiff = new ByteArrayOutputStream();
+        tiff.writeBytes(littleEndian ? new byte[]{'I', 'I'} : new byte[]{'M', 'M'});
+        escrever(tiff, 42, 2, littleEndian);
+        escrever(tiff, 8, 4, littleEndian);              // deslocamento do IFD0
+        escrever(tiff, 2, 2, littleEndian);              // número de entradas
+        escrever(tiff, 0x010F, 2, littleEndian);         // Make, ASCII, 1 caractere
+        escrever(tiff, 2, 2, littleEndian);
+        escrever(tiff, 1, 4, littleEndian);
+        escrever(tiff, 0, 4, littleEndian);
+        escrever(tiff, 0x0112, 2, littleEndian);         // Orientation, SHORT, 1 valor
+        escrever(tiff, 3, 2, littleEndian);
+        escrever(tiff, 1, 4, littleEndian);
+        escrever(tiff, orientacao, 2, littleEndian);
+        escrever(tiff, 0, 2, littleEndian);
+        escrever(tiff, 0, 4, littleEndian);              // sem próximo IFD
+
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        jpeg.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xD8});
+        jpeg.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xE0, 0x00, 0x10, 'J', 'F', 'I', 'F', 0x00,
+                0x01, 0x01, 0x00, 0x00, 0x01, 0x00, 0x01, 0x00, 0x00});
+        jpeg.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xE1});
+        escrever(jpeg, 2 + 6 + tiff.size(), 2, false);
+        jpeg.writeBytes(new byte[]{'E', 'x', 'i', 'f', 0x00, 0x00});
+        jpeg.writeBytes(tiff.toByteArray());
+        jpeg.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xDA, 0x00, 0x02, 0x00, (byte) 0xFF, (byte) 0xD9});
+        return jpeg.toByteArray();
+    }
+
+    private static void escrever(ByteArrayOutputStream saida, int valor, int bytes, boolean littleEndian) {
+        for (int i = 0; i < bytes; i++) {
+            int deslocamento = littleEndian ? i * 8 : (bytes - 1 - i) * 8;
+            saida.write((valor >> deslocamento) & 0xFF);
+        }
+    }
+
+    private static int inicioDoApp1(byte[] jpeg) {
+        for (int i = 0; i + 1 < jpeg.length; i++) {
+            if ((jpeg[i] & 0xFF) == 0xFF && (jpeg[i + 1] & 0xFF) == 0xE1) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Fixture sem APP1");
+    }
+
+    /**
+     * Primeiro byte depois da entrada Orientation (a segunda do IFD0) na fixture.
+     */
+    private static int fimDaEntradaOrientation(byte[] jpeg) {
+        int tiff = inicioDoApp1(jpeg) + 10;
+        return tiff + 8 + 2 + 2 * 12;
+    }
+}